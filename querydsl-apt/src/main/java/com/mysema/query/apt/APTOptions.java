@@ -35,6 +35,8 @@ public final class APTOptions {
 
     public static final String QUERYDSL_ENTITY_ACCESSORS = "querydsl.entityAccessors";
 
+    public static final String QUERYDSL_LAZY_INIT = "querydsl.lazyInit";
+
     public static final String QUERYDSL_EXCLUDED_PACKAGES = "querydsl.excludedPackages";
 
     public static final String QUERYDSL_EXCLUDED_CLASSES = "querydsl.excludedClasses";
@@ -45,6 +47,10 @@ public final class APTOptions {
 
     public static final String QUERYDSL_UNKNOWN_AS_EMBEDDABLE = "querydsl.unknownAsEmbeddable";
 
+    public static final String QUERYDSL_INCREMENTAL = "querydsl.incremental";
+
+    public static final String QUERYDSL_PROFILE = "querydsl.profile";
+
     private APTOptions() {}
 
 }
@@ -14,13 +14,17 @@
 package com.mysema.query.apt;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -38,12 +42,14 @@ import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
-import javax.lang.model.type.NoType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 import com.mysema.codegen.JavaWriter;
 import com.mysema.codegen.model.Parameter;
@@ -52,8 +58,10 @@ import com.mysema.codegen.model.TypeCategory;
 import com.mysema.query.annotations.QueryDelegate;
 import com.mysema.query.annotations.QueryExclude;
 import com.mysema.query.annotations.QueryProjection;
+import com.mysema.query.codegen.BuildState;
 import com.mysema.query.codegen.Delegate;
 import com.mysema.query.codegen.EntityType;
+import com.mysema.query.codegen.ModelDigest;
 import com.mysema.query.codegen.Property;
 import com.mysema.query.codegen.QueryTypeFactory;
 import com.mysema.query.codegen.Serializer;
@@ -86,11 +94,26 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
 
     private Context context;
 
+    private BuildState buildState;
+
+    private final ProcessingProfile profile = new ProcessingProfile();
+
+    // annotationless supertypes and embedded types of supertypes per type name, kept over rounds
+    private final Map<String, List<String>> annotationlessSupertypes = new HashMap<String, List<String>>();
+
+    private final Map<String, Set<String>> supertypeEmbeddedTypes = new HashMap<String, Set<String>>();
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Running " + getClass().getSimpleName());
 
         if (roundEnv.processingOver() || annotations.size() == 0) {
+            if (roundEnv.processingOver()) {
+                storeBuildState();
+                if (conf != null && conf.isProfile()) {
+                    storeProfile();
+                }
+            }
             return ALLOW_OTHER_PROCESSORS_TO_CLAIM_ANNOTATIONS;
         }
 
@@ -107,24 +130,31 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
         this.typeFactory = new ExtendedTypeFactory(processingEnv, conf, entityAnnotations, typeMappings, queryTypeFactory);
         elementHandler = new TypeElementHandler(conf, typeFactory, typeMappings, queryTypeFactory);
         this.roundEnv = roundEnv;
+        profile.count("rounds", 1);
 
         // process annotations
         processAnnotations();
 
+        profile.begin("validate");
         validateMetaTypes();
 
         // serialize created types
+        profile.begin("serialize");
         serializeMetaTypes();
+        profile.end();
 
         return ALLOW_OTHER_PROCESSORS_TO_CLAIM_ANNOTATIONS;
     }
 
     private void processAnnotations() {
+        profile.begin("collect");
         processExclusions();
 
         Set<TypeElement> elements = collectElements();
+        profile.count("elements", elements.size());
 
         // create meta models
+        profile.begin("models");
         for (Element element : elements) {
             typeFactory.getEntityType(element.asType(), false);
         }
@@ -133,6 +163,7 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
         }
 
         // add properties
+        profile.begin("properties");
         boolean embeddableAnn = conf.getEmbeddableAnnotation() != null;
         boolean superAnn = conf.getSuperTypeAnnotation() != null;
         for (TypeElement element : elements) {
@@ -165,6 +196,7 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
         }
 
         // add external parents
+        profile.begin("supertypes");
         for (Element element : elements) {
             EntityType entityType = typeFactory.getEntityType(element.asType(), false);
             addExternalParents(entityType);
@@ -176,10 +208,13 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
             addSupertypeFields(entityType, handled);
         }
 
+        profile.begin("projections");
         processProjectionTypes(elements);
 
         // extend entity types
+        profile.begin("extend");
         typeFactory.extendTypes();
+        profile.count("types", typeFactory.getEntityTypes().size());
 
         context.clean();
 
@@ -246,25 +281,12 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
 
         // register possible embedded types of non-tracked supertypes
         if (conf.getEmbeddedAnnotation() != null) {
-            Class<? extends Annotation> embedded = conf.getEmbeddedAnnotation();
             Set<TypeElement> embeddedElements = new HashSet<TypeElement>();
             for (TypeElement element : elements) {
-                TypeMirror superTypeMirror = element.getSuperclass();
-                while (superTypeMirror != null) {
-                    TypeElement superTypeElement = (TypeElement) processingEnv.getTypeUtils().asElement(superTypeMirror);
-                    if (superTypeElement != null) {
-                        List<? extends Element> enclosed = superTypeElement.getEnclosedElements();
-                        for (Element child : enclosed) {
-                            if (child.getAnnotation(embedded) != null) {
-                                handleEmbeddedType(child, embeddedElements);
-                            }
-                        }
-                        superTypeMirror = superTypeElement.getSuperclass();
-                        if (superTypeMirror instanceof NoType) {
-                            superTypeMirror = null;
-                        }
-                    } else {
-                        superTypeMirror = null;
+                for (String name : getSupertypeEmbeddedTypes(element)) {
+                    TypeElement embeddedElement = processingEnv.getElementUtils().getTypeElement(name);
+                    if (embeddedElement != null) {
+                        embeddedElements.add(embeddedElement);
                     }
                 }
             }
@@ -281,28 +303,72 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
         return elements;
     }
 
+    private Set<String> getSupertypeEmbeddedTypes(TypeElement element) {
+        String name = element.getQualifiedName().toString();
+        Set<String> embeddedTypes = supertypeEmbeddedTypes.get(name);
+        if (embeddedTypes == null) {
+            embeddedTypes = new HashSet<String>();
+            TypeMirror superTypeMirror = element.getSuperclass();
+            boolean resolved = superTypeMirror.getKind() != TypeKind.ERROR;
+            TypeElement superTypeElement = (TypeElement) processingEnv.getTypeUtils().asElement(superTypeMirror);
+            if (superTypeElement != null) {
+                Set<TypeElement> elements = new HashSet<TypeElement>();
+                for (Element child : superTypeElement.getEnclosedElements()) {
+                    if (child.getAnnotation(conf.getEmbeddedAnnotation()) != null) {
+                        handleEmbeddedType(child, elements);
+                    }
+                }
+                for (TypeElement typeElement : elements) {
+                    embeddedTypes.add(typeElement.getQualifiedName().toString());
+                }
+                embeddedTypes.addAll(getSupertypeEmbeddedTypes(superTypeElement));
+                resolved &= supertypeEmbeddedTypes.containsKey(superTypeElement.getQualifiedName().toString());
+            }
+            // types which may still be generated in a later round are not memoized
+            if (resolved) {
+                supertypeEmbeddedTypes.put(name, embeddedTypes);
+            }
+        }
+        return embeddedTypes;
+    }
+
     private Set<TypeElement> getAnnotationlessSupertypes(Set<TypeElement> elements) {
         Set<TypeElement> rv = new HashSet<TypeElement>();
         for (TypeElement element : elements) {
-            TypeMirror superTypeMirror = element.getSuperclass();
-            while (superTypeMirror != null) {
-                TypeElement superTypeElement = (TypeElement) processingEnv.getTypeUtils().asElement(superTypeMirror);
-                if (superTypeElement != null
-                        && !superTypeElement.toString().startsWith("java.lang.")
-                        && !TypeUtils.hasAnnotationOfType(superTypeElement, conf.getEntityAnnotations())) {
+            for (String name : getAnnotationlessSupertypes(element)) {
+                TypeElement superTypeElement = processingEnv.getElementUtils().getTypeElement(name);
+                if (superTypeElement != null) {
                     rv.add(superTypeElement);
-                    superTypeMirror = superTypeElement.getSuperclass();
-                    if (superTypeMirror instanceof NoType) {
-                        superTypeMirror = null;
-                    }
-                } else {
-                    superTypeMirror = null;
                 }
             }
         }
         return rv;
     }
 
+    private List<String> getAnnotationlessSupertypes(TypeElement element) {
+        String name = element.getQualifiedName().toString();
+        List<String> supertypes = annotationlessSupertypes.get(name);
+        if (supertypes == null) {
+            supertypes = Collections.emptyList();
+            TypeMirror superTypeMirror = element.getSuperclass();
+            boolean resolved = superTypeMirror.getKind() != TypeKind.ERROR;
+            TypeElement superTypeElement = (TypeElement) processingEnv.getTypeUtils().asElement(superTypeMirror);
+            if (superTypeElement != null
+                    && !superTypeElement.toString().startsWith("java.lang.")
+                    && !TypeUtils.hasAnnotationOfType(superTypeElement, conf.getEntityAnnotations())) {
+                supertypes = new ArrayList<String>();
+                supertypes.add(superTypeElement.getQualifiedName().toString());
+                supertypes.addAll(getAnnotationlessSupertypes(superTypeElement));
+                resolved &= annotationlessSupertypes.containsKey(superTypeElement.getQualifiedName().toString());
+            }
+            // types which may still be generated in a later round are not memoized
+            if (resolved) {
+                annotationlessSupertypes.put(name, supertypes);
+            }
+        }
+        return supertypes;
+    }
+
     private void registerTypeElement(String entityName, TypeElement element) {
         Set<TypeElement> elements = context.typeElements.get(entityName);
         if (elements == null) {
@@ -571,7 +637,70 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
         return SourceVersion.latest();
     }
 
+    private BuildState getBuildState() {
+        if (buildState == null) {
+            buildState = new BuildState();
+            try {
+                FileObject file = processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT,
+                        "", BuildState.FILE_NAME);
+                InputStream in = file.openInputStream();
+                try {
+                    buildState.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                // no previous build state
+            }
+        }
+        return buildState;
+    }
+
+    private void storeBuildState() {
+        if (buildState != null && buildState.isModified()) {
+            try {
+                FileObject file = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT,
+                        "", BuildState.FILE_NAME);
+                OutputStream out = file.openOutputStream();
+                try {
+                    buildState.store(out);
+                } finally {
+                    out.close();
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, e.getMessage());
+            }
+        }
+    }
+
+    private void storeProfile() {
+        processingEnv.getMessager().printMessage(Kind.NOTE, "Processing profile\n" + profile);
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.SOURCE_OUTPUT,
+                    "", ProcessingProfile.FILE_NAME);
+            Writer writer = file.openWriter();
+            try {
+                profile.writeTo(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.WARNING, e.getMessage());
+        }
+    }
+
+    private boolean exists(String packageName, String simpleName) {
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT,
+                    packageName, simpleName + ".java");
+            return file.getLastModified() > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     private void serialize(Serializer serializer, Collection<EntityType> models) {
+        ModelDigest modelDigest = conf.isIncremental() ? new ModelDigest(serializer) : null;
         for (EntityType model : models) {
             try {
                 Type type = conf.getTypeMappings().getPathType(model, model, true);
@@ -583,6 +712,17 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
                     continue;
                 }
 
+                SerializerConfig serializerConfig = conf.getSerializerConfig(model);
+                String digest = null;
+                if (modelDigest != null) {
+                    digest = modelDigest.digest(model, serializerConfig);
+                    if (getBuildState().isUnchanged(className, digest)
+                            && exists(packageName, type.getSimpleName())) {
+                        profile.count("skipped", 1);
+                        continue;
+                    }
+                }
+
                 Set<TypeElement> elements = context.typeElements.get(model.getFullName());
 
                 if (elements == null) {
@@ -602,13 +742,16 @@ public abstract class AbstractQuerydslProcessor extends AbstractProcessor {
                         elements.toArray(new Element[elements.size()]));
                 Writer writer = fileObject.openWriter();
                 try {
-                    SerializerConfig serializerConfig = conf.getSerializerConfig(model);
                     serializer.serialize(model, serializerConfig, new JavaWriter(writer));
                 } finally {
                     if (writer != null) {
                         writer.close();
                     }
                 }
+                if (digest != null) {
+                    getBuildState().update(className, digest);
+                }
+                profile.count("generated", 1);
 
             } catch (IOException e) {
                 e.printStackTrace();
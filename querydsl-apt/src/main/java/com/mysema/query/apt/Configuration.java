@@ -43,6 +43,22 @@ public interface Configuration {
      * @return
      */
     boolean isUnknownAsEmbedded();
+
+    /**
+     * Sources of unchanged models are not generated again, if incremental generation is used.
+     * This requires the folder of the generated sources to be a source root of the compilation.
+     *
+     * @return
+     */
+    boolean isIncremental();
+
+    /**
+     * The time spent in the processing phases is written to the source output folder, if
+     * profiling is used.
+     *
+     * @return
+     */
+    boolean isProfile();
     
     /**
      * @return
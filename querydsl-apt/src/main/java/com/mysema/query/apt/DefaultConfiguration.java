@@ -19,10 +19,13 @@ import static com.mysema.query.apt.APTOptions.QUERYDSL_EXCLUDED_CLASSES;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_EXCLUDED_PACKAGES;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_INCLUDED_CLASSES;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_INCLUDED_PACKAGES;
+import static com.mysema.query.apt.APTOptions.QUERYDSL_INCREMENTAL;
+import static com.mysema.query.apt.APTOptions.QUERYDSL_LAZY_INIT;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_LIST_ACCESSORS;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_MAP_ACCESSORS;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_PACKAGE_SUFFIX;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_PREFIX;
+import static com.mysema.query.apt.APTOptions.QUERYDSL_PROFILE;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_SUFFIX;
 import static com.mysema.query.apt.APTOptions.QUERYDSL_UNKNOWN_AS_EMBEDDABLE;
 
@@ -75,6 +78,10 @@ public class DefaultConfiguration implements Configuration {
 
     private boolean unknownAsEmbedded;
 
+    private boolean incremental;
+
+    private boolean profile;
+
     private final CodegenModule module = new CodegenModule();
 
     private final SerializerConfig defaultSerializerConfig;
@@ -143,6 +150,7 @@ public class DefaultConfiguration implements Configuration {
         boolean listAccessors = false;
         boolean mapAccessors = false;
         boolean createDefaultVariable = true;
+        boolean lazyInit = false;
 
         if (options.containsKey(QUERYDSL_ENTITY_ACCESSORS)) {
             entityAccessors = Boolean.valueOf(options.get(QUERYDSL_ENTITY_ACCESSORS));
@@ -153,6 +161,9 @@ public class DefaultConfiguration implements Configuration {
         if (options.containsKey(QUERYDSL_MAP_ACCESSORS)) {
             mapAccessors = Boolean.valueOf(options.get(QUERYDSL_MAP_ACCESSORS));
         }
+        if (options.containsKey(QUERYDSL_LAZY_INIT)) {
+            lazyInit = Boolean.valueOf(options.get(QUERYDSL_LAZY_INIT));
+        }
         if (options.containsKey(QUERYDSL_CREATE_DEFAULT_VARIABLE)) {
             createDefaultVariable = Boolean.valueOf(options.get(QUERYDSL_CREATE_DEFAULT_VARIABLE));
         }
@@ -168,6 +179,12 @@ public class DefaultConfiguration implements Configuration {
         if (options.containsKey(QUERYDSL_UNKNOWN_AS_EMBEDDABLE)) {
             unknownAsEmbedded = Boolean.valueOf(options.get(QUERYDSL_UNKNOWN_AS_EMBEDDABLE));
         }
+        if (options.containsKey(QUERYDSL_INCREMENTAL)) {
+            incremental = Boolean.valueOf(options.get(QUERYDSL_INCREMENTAL));
+        }
+        if (options.containsKey(QUERYDSL_PROFILE)) {
+            profile = Boolean.valueOf(options.get(QUERYDSL_PROFILE));
+        }
 
         if (options.containsKey(QUERYDSL_EXCLUDED_PACKAGES)) {
             String packageString = options.get(QUERYDSL_EXCLUDED_PACKAGES);
@@ -206,7 +223,7 @@ public class DefaultConfiguration implements Configuration {
         }
 
         defaultSerializerConfig = new SimpleSerializerConfig(entityAccessors, listAccessors,
-                mapAccessors, createDefaultVariable, "");
+                mapAccessors, createDefaultVariable, "", lazyInit);
 
     }
 
@@ -458,4 +475,22 @@ public class DefaultConfiguration implements Configuration {
         this.unknownAsEmbedded = unknownAsEmbedded;
     }
 
+    @Override
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    @Override
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
 }
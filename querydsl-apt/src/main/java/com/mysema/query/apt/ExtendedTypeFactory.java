@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -68,6 +69,10 @@ public final class ExtendedTypeFactory {
 
     private final Map<List<String>, EntityType> entityTypeCache = new HashMap<List<String>, EntityType>();
 
+    // cache keys by type mirror identity, since the creation of the keys is the expensive part
+    // of the cache lookups
+    private final Map<TypeMirror, List<String>> keyCache = new IdentityHashMap<TypeMirror, List<String>>();
+
     private final Type defaultType;
 
     private final Set<Class<? extends Annotation>> entityAnnotations;
@@ -322,7 +327,7 @@ public final class ExtendedTypeFactory {
 
     @Nullable
     public Type getType(TypeMirror typeMirror, boolean deep) {
-        List<String> key = keyBuilder.visit(typeMirror,true);
+        List<String> key = getKey(typeMirror);
         if (entityTypeCache.containsKey(key)) {
             return entityTypeCache.get(key);
         } else if (typeCache.containsKey(key)) {
@@ -332,6 +337,15 @@ public final class ExtendedTypeFactory {
         }
     }
 
+    private List<String> getKey(TypeMirror typeMirror) {
+        List<String> key = keyCache.get(typeMirror);
+        if (key == null) {
+            key = keyBuilder.visit(typeMirror, true);
+            keyCache.put(typeMirror, key);
+        }
+        return key;
+    }
+
     @Nullable
     private Type createType(TypeMirror typeMirror, List<String> key, boolean deep) {
         typeCache.put(key, null);
@@ -458,7 +472,7 @@ public final class ExtendedTypeFactory {
 
     @Nullable
     public EntityType getEntityType(TypeMirror typeMirror, boolean deep) {
-        List<String> key = keyBuilder.visit(typeMirror, true);
+        List<String> key = getKey(typeMirror);
         // get from cache
         if (entityTypeCache.containsKey(key)) {
             EntityType entityType = entityTypeCache.get(key);
@@ -616,15 +630,20 @@ public final class ExtendedTypeFactory {
     }
 
     public void extendTypes() {
+        // index the first entity type with properties per type name
+        Map<String, EntityType> typesWithProperties = new HashMap<String, EntityType>();
+        for (Map.Entry<List<String>, EntityType> entry : entityTypeCache.entrySet()) {
+            String name = entry.getKey().get(0);
+            if (!entry.getValue().getProperties().isEmpty() && !typesWithProperties.containsKey(name)) {
+                typesWithProperties.put(name, entry.getValue());
+            }
+        }
         for (EntityType entityType : entityTypeCache.values()) {
             if (entityType.getProperties().isEmpty()) {
-                for (Map.Entry<List<String>, EntityType> entry : entityTypeCache.entrySet()) {
-                    if (entry.getKey().get(0).equals(entityType.getFullName()) &&
-                        !entry.getValue().getProperties().isEmpty()) {
-                        for (Property property : entry.getValue().getProperties()) {
-                            entityType.addProperty(property);
-                        }
-                        break;
+                EntityType typeWithProperties = typesWithProperties.get(entityType.getFullName());
+                if (typeWithProperties != null) {
+                    for (Property property : typeWithProperties.getProperties()) {
+                        entityType.addProperty(property);
                     }
                 }
             }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.apt;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProcessingProfile collects the time spent in the phases of {@link AbstractQuerydslProcessor}
+ * and the number of handled types over all rounds of a compilation
+ *
+ * @author tiwe
+ *
+ */
+public class ProcessingProfile {
+
+    /**
+     * Default name of the profile file in the source output folder
+     */
+    public static final String FILE_NAME = "querydsl-profile.txt";
+
+    private final Map<String, Long> times = new LinkedHashMap<String, Long>();
+
+    private final Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+
+    private String phase;
+
+    private long start;
+
+    /**
+     * Start the given phase and end the current one
+     *
+     * @param phase
+     */
+    public void begin(String phase) {
+        end();
+        this.phase = phase;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * End the current phase
+     */
+    public void end() {
+        if (phase != null) {
+            Long time = times.get(phase);
+            long elapsed = System.nanoTime() - start;
+            times.put(phase, time != null ? time + elapsed : elapsed);
+            phase = null;
+        }
+    }
+
+    /**
+     * Add the given amount to the counter with the given name
+     *
+     * @param name
+     * @param amount
+     */
+    public void count(String name, int amount) {
+        Integer count = counts.get(name);
+        counts.put(name, count != null ? count + amount : amount);
+    }
+
+    /**
+     * @param phase
+     * @return the time spent in the given phase in milliseconds
+     */
+    public long getTime(String phase) {
+        Long time = times.get(phase);
+        return time != null ? TimeUnit.NANOSECONDS.toMillis(time) : 0l;
+    }
+
+    /**
+     * @param name
+     * @return the value of the counter with the given name
+     */
+    public int getCount(String name) {
+        Integer count = counts.get(name);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Write the profile to the given Appendable, one phase or counter per line
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(Appendable out) throws IOException {
+        long total = 0l;
+        for (Map.Entry<String, Long> entry : times.entrySet()) {
+            long time = TimeUnit.NANOSECONDS.toMillis(entry.getValue());
+            out.append(entry.getKey()).append(" ").append(String.valueOf(time)).append(" ms\n");
+            total += entry.getValue();
+        }
+        out.append("total ").append(String.valueOf(TimeUnit.NANOSECONDS.toMillis(total))).append(" ms\n");
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            out.append(entry.getKey()).append(" ").append(String.valueOf(entry.getValue())).append("\n");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writeTo(builder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+}
@@ -14,47 +14,61 @@
 package com.mysema.query.apt;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 
-import org.junit.Ignore;
 import org.junit.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.io.Files;
+import com.mysema.query.codegen.BuildState;
 
-@Ignore
 public class IncrementalCompilationTest extends AbstractProcessorTest{
-    
-    private static final String packagePath = "src/test/java/com/mysema/query/domain/";
+
+    private static final String ENTITY = "package com.mysema.query.apt.incremental;\n" +
+            "@com.mysema.query.annotations.QueryEntity\n" +
+            "public class IncrementalEntity {\n%s}\n";
 
     @Test
-    public void Does_Not_Overwrite_Unchanged_Files() throws IOException, InterruptedException {
-        File source = new File(packagePath, "ExampleEntity.java");
+    public void Does_Not_Overwrite_Unchanged_Files() throws IOException {
+        File source = new File("target/incremental-src/com/mysema/query/apt/incremental/IncrementalEntity.java");
+        source.getParentFile().mkdirs();
+        Files.write(String.format(ENTITY, "String name;\n"), source, Charsets.UTF_8);
         String path = source.getPath();
-        File qType = new File("target/overwrite/com/mysema/query/domain/QExampleEntity.java");
-        
-        // QTestEntity is generated
-        process(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "overwrite");
+        File qType = new File("target/incremental/com/mysema/query/apt/incremental/QIncrementalEntity.java");
+
+        // QIncrementalEntity is generated
+        process(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "incremental");
         assertTrue(qType.exists());
-        long modified = qType.lastModified();
-        Thread.sleep(1000);
-        
-        // TestEntity has not changed, QTestEntity is not overwritten
-        compile(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "overwrite");
-        assertEquals(modified, qType.lastModified());
-
-        // TestEntity is updated, QTestEntity is overwritten
+        assertTrue(new File("target/incremental/" + BuildState.FILE_NAME).exists());
+        assertTrue(qType.setLastModified(1000l));
+
+        // IncrementalEntity has not changed, QIncrementalEntity is not overwritten
         Files.touch(source);
-        compile(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "overwrite");
-        assertTrue("" + modified + " >= " + qType.lastModified(), modified < qType.lastModified());
-        
-        // QTestEntity is deleted and regenerated 
+        compile(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "incremental");
+        assertEquals(1000l, qType.lastModified());
+
+        // IncrementalEntity is updated, QIncrementalEntity is overwritten
+        Files.write(String.format(ENTITY, "String name;\nint age;\n"), source, Charsets.UTF_8);
+        compile(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "incremental");
+        assertFalse(qType.lastModified() == 1000l);
+        assertTrue(Files.toString(qType, Charsets.UTF_8).contains("age"));
+
+        // QIncrementalEntity is deleted and regenerated
         assertTrue(qType.delete());
-        compile(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "overwrite");
+        compile(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "incremental");
         assertTrue(qType.exists());
     }
-    
+
+    @Override
+    protected Collection<String> getAPTOptions() {
+        return Arrays.asList("-Aquerydsl.incremental=true");
+    }
+
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.apt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class ProfileTest extends AbstractProcessorTest {
+
+    @Test
+    public void Process() throws IOException {
+        String path = new File("src/test/java/com/mysema/query/domain/QueryEmbedded3Test.java").getPath();
+        process(QuerydslAnnotationProcessor.class, Collections.singletonList(path), "profile");
+
+        File file = new File("target/profile/" + ProcessingProfile.FILE_NAME);
+        assertTrue(file.exists());
+        String profile = Files.toString(file, Charsets.UTF_8);
+        for (String line : Arrays.asList("collect ", "models ", "properties ", "supertypes ",
+                "serialize ", "total ", "rounds ", "elements ", "types ", "generated ")) {
+            assertTrue(profile, profile.contains("\n" + line) || profile.startsWith(line));
+        }
+    }
+
+    @Test
+    public void ProcessingProfile() {
+        ProcessingProfile profile = new ProcessingProfile();
+        profile.begin("a");
+        profile.begin("b");
+        profile.end();
+        profile.count("types", 2);
+        profile.count("types", 3);
+        assertEquals(5, profile.getCount("types"));
+        assertTrue(profile.toString().startsWith("a "));
+        assertTrue(profile.toString().contains("\nb "));
+        assertTrue(profile.toString().contains("\ntypes 5\n"));
+    }
+
+    @Override
+    protected Collection<String> getAPTOptions() {
+        return Arrays.asList("-Aquerydsl.profile=true");
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.mysema.query.annotations.Config;
+import com.mysema.query.annotations.QueryEntity;
+
+public class LazyInitTest {
+
+    @Config(lazyInit=true)
+    @QueryEntity
+    public static class Entity {
+
+        String name;
+
+        Entity parent;
+
+        Collection<Entity> collection;
+
+        List<Entity> list;
+
+        Set<String> set;
+
+        Map<String, Entity> map;
+
+        // clashes with count()
+        Entity count;
+
+        // clashes with isNull()
+        List<Entity> isNull;
+
+    }
+
+    @Config(lazyInit=true)
+    @QueryEntity
+    public static class SubEntity extends Entity {
+
+        SubEntity sibling;
+
+    }
+
+    @Test
+    public void Accessors() {
+        QLazyInitTest_Entity entity = QLazyInitTest_Entity.entity;
+        assertEquals("entity.name", entity.name.toString());
+        assertSame(entity.parent(), entity.parent());
+        assertEquals("entity.parent", entity.parent().toString());
+        assertEquals("entity.parent.parent", entity.parent().parent().toString());
+        assertEquals("entity.collection", entity.collection().toString());
+        assertEquals("entity.list", entity.list().toString());
+        assertEquals("entity.set", entity.set().toString());
+        assertEquals("entity.map", entity.map().toString());
+    }
+
+    @Test
+    public void Clashing_Properties() {
+        QLazyInitTest_Entity entity = QLazyInitTest_Entity.entity;
+        assertEquals("entity.count", entity.count.toString());
+        assertEquals("count(entity)", entity.count().toString());
+        assertEquals("entity.isNull", entity.isNull.toString());
+        assertEquals("entity is null", entity.isNull().toString());
+    }
+
+    @Test
+    public void Inherited() {
+        QLazyInitTest_SubEntity subEntity = QLazyInitTest_SubEntity.subEntity;
+        assertEquals("subEntity.parent", subEntity.parent().toString());
+        assertEquals("subEntity.list", subEntity.list().toString());
+        assertEquals("subEntity.sibling", subEntity.sibling().toString());
+        assertNotNull(subEntity.count);
+        assertEquals("subEntity.isNull", subEntity.isNull.toString());
+    }
+
+}
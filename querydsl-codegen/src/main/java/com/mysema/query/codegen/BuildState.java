@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.codegen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * BuildState records the {@link ModelDigest} digests of generated sources, so that sources of
+ * unchanged models don't need to be serialized and written again. Keys are the paths or names
+ * of the generated sources relative to the location of the state.
+ *
+ * @author tiwe
+ *
+ */
+@ThreadSafe
+public class BuildState {
+
+    /**
+     * Default name of the build state file in the target folder
+     */
+    public static final String FILE_NAME = ".querydsl-state";
+
+    private final Properties digests = new Properties();
+
+    private volatile boolean modified;
+
+    /**
+     * Load the digests from the given file, if it exists
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void load(File file) throws IOException {
+        if (file.exists()) {
+            InputStream in = new FileInputStream(file);
+            try {
+                load(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Load the digests from the given stream
+     *
+     * @param in
+     * @throws IOException
+     */
+    public void load(InputStream in) throws IOException {
+        digests.load(in);
+    }
+
+    /**
+     * Store the digests to the given file, if they have been modified
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void store(File file) throws IOException {
+        if (modified) {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            OutputStream out = new FileOutputStream(file);
+            try {
+                store(out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Store the digests to the given stream
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void store(OutputStream out) throws IOException {
+        digests.store(out, null);
+        modified = false;
+    }
+
+    /**
+     * Get whether the source with the given key has been generated from a model with the given
+     * digest
+     *
+     * @param key
+     * @param digest
+     * @return
+     */
+    public boolean isUnchanged(String key, String digest) {
+        return digest.equals(digests.getProperty(key));
+    }
+
+    /**
+     * Record the digest of the model the source with the given key has been generated from
+     *
+     * @param key
+     * @param digest
+     */
+    public void update(String key, String digest) {
+        if (!digest.equals(digests.setProperty(key, digest))) {
+            modified = true;
+        }
+    }
+
+    /**
+     * @return true, if digests have been updated since loading or storing
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+}
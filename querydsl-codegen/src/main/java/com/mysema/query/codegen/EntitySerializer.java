@@ -41,6 +41,7 @@ import javax.inject.Named;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.mysema.codegen.CodeWriter;
@@ -86,6 +87,12 @@ public class EntitySerializer implements Serializer{
 
     private static final Joiner JOINER = Joiner.on("\", \"");
 
+    // no-argument methods of the path supertypes, which lazy accessors would shadow
+    private static final Set<String> PATH_METHODS = ImmutableSet.of("clone", "count",
+            "countDistinct", "finalize", "getAnnotatedElement", "getClass", "getMetadata",
+            "getRoot", "getType", "hashCode", "isNotNull", "isNull", "notify", "notifyAll",
+            "toString", "wait");
+
     private static final Parameter PATH_METADATA = new Parameter("metadata", new ClassType(PathMetadata.class, (Type)null));
 
     private static final Parameter PATH_INITS = new Parameter("inits", new ClassType(PathInits.class));
@@ -227,6 +234,14 @@ public class EntitySerializer implements Serializer{
     protected void entityField(EntityType model, Property field, SerializerConfig config,
             CodeWriter writer) throws IOException {
         Type queryType = typeMappings.getPathType(field.getType(), model, false);
+        if (config.useLazyInit() && isLazy(field)) {
+            boolean hasEntityFields = field.getType() instanceof EntityType
+                    && ((EntityType)field.getType()).hasEntityFields();
+            lazyField(field, queryType, writer, NEW + writer.getRawName(queryType) + "(forProperty(\""
+                    + field.getName() + "\")" + (hasEntityFields ? ", getInits(\"" + field.getName() + "\")" : EMPTY)
+                    + ")");
+            return;
+        }
         if (field.isInherited()) {
             writer.line("// inherited");
         }
@@ -260,7 +275,9 @@ public class EntitySerializer implements Serializer{
         }
 
         for (Property field : model.getProperties()) {
-            if (field.getType().getCategory() == TypeCategory.ENTITY) {
+            if (config.useLazyInit() && isLazy(field)) {
+                continue;
+            } else if (field.getType().getCategory() == TypeCategory.ENTITY) {
                 initEntityField(writer, config, model, field);
 
             } else if (field.isInherited() && superType != null && superType.getEntityType().hasEntityFields()) {
@@ -552,8 +569,61 @@ public class EntitySerializer implements Serializer{
         }
     }
 
-    protected void listAccessor(EntityType model, Property field, CodeWriter writer) throws IOException {
+    /**
+     * Serialize a private volatile field and a thread-safe accessor which initializes it lazily
+     *
+     * @param field
+     * @param type
+     * @param writer
+     * @param value
+     * @throws IOException
+     */
+    protected void lazyField(Property field, Type type, CodeWriter writer, String value) throws IOException {
         String escapedName = field.getEscapedName();
+        if (field.isInherited()) {
+            writer.line("// inherited");
+        }
+        writer.line("private volatile ", writer.getGenericName(true, type), " ", escapedName, SEMICOLON);
+        writer.nl();
+        writer.beginPublicMethod(type, escapedName);
+        writer.line("if (", escapedName, " == null) {");
+        writer.line("    synchronized (this) {");
+        writer.line("        if (", escapedName, " == null) {");
+        writer.line("            ", escapedName, ASSIGN, value, SEMICOLON);
+        writer.line("        }");
+        writer.line("    }");
+        writer.line("}");
+        writer.line(RETURN, escapedName, SEMICOLON);
+        writer.end();
+    }
+
+    private boolean isLazy(Property field) {
+        if (PATH_METHODS.contains(field.getEscapedName())) {
+            // initialized eagerly, since the accessor would clash with the path method
+            return false;
+        } else if (typeMappings.isRegistered(field.getType())
+                && field.getType().getCategory() != TypeCategory.CUSTOM
+                && field.getType().getCategory() != TypeCategory.ENTITY) {
+            return false;
+        }
+        switch (field.getType().getCategory()) {
+        case ENTITY:
+        case COLLECTION:
+        case SET:
+        case LIST:
+        case MAP:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    protected void listAccessor(EntityType model, Property field, CodeWriter writer) throws IOException {
+        listAccessor(model, field, writer, field.getEscapedName());
+    }
+
+    private void listAccessor(EntityType model, Property field, CodeWriter writer,
+            String escapedName) throws IOException {
         Type queryType = typeMappings.getPathType(field.getParameter(0), model, false);
 
         writer.beginPublicMethod(queryType, escapedName, new Parameter("index", Types.INT));
@@ -565,7 +635,11 @@ public class EntitySerializer implements Serializer{
     }
 
     protected void mapAccessor(EntityType model, Property field, CodeWriter writer) throws IOException {
-        String escapedName = field.getEscapedName();
+        mapAccessor(model, field, writer, field.getEscapedName());
+    }
+
+    private void mapAccessor(EntityType model, Property field, CodeWriter writer,
+            String escapedName) throws IOException {
         Type queryType = typeMappings.getPathType(field.getParameter(1), model, false);
 
         writer.beginPublicMethod(queryType, escapedName, new Parameter("key", field.getParameter(0)));
@@ -627,11 +701,20 @@ public class EntitySerializer implements Serializer{
         // property accessors
         for (Property property : model.getProperties()) {
             TypeCategory category = property.getType().getCategory();
+            boolean lazy = config.useLazyInit() && isLazy(property);
             if (category == TypeCategory.MAP && config.useMapAccessors()) {
-                mapAccessor(model, property, writer);
+                if (lazy) {
+                    mapAccessor(model, property, writer, property.getEscapedName() + "()");
+                } else {
+                    mapAccessor(model, property, writer);
+                }
             } else if (category == TypeCategory.LIST && config.useListAccessors()) {
-                listAccessor(model, property, writer);
-            } else if (category == TypeCategory.ENTITY && config.useEntityAccessors()) {
+                if (lazy) {
+                    listAccessor(model, property, writer, property.getEscapedName() + "()");
+                } else {
+                    listAccessor(model, property, writer);
+                }
+            } else if (category == TypeCategory.ENTITY && config.useEntityAccessors() && !lazy) {
                 entityAccessor(model, property, writer);
             }
         }
@@ -666,6 +749,21 @@ public class EntitySerializer implements Serializer{
         }
     }
 
+    private void serialize(EntityType model, Property field, Type type, SerializerConfig config,
+            CodeWriter writer, String factoryMethod, String... args) throws IOException {
+        if (config.useLazyInit() && isLazy(field)) {
+            StringBuilder value = new StringBuilder();
+            value.append(factoryMethod + "(\"" + field.getName() + QUOTE);
+            for (String arg : args) {
+                value.append(COMMA + arg);
+            }
+            value.append(")");
+            lazyField(field, type, writer, value.toString());
+        } else {
+            serialize(model, field, type, writer, factoryMethod, args);
+        }
+    }
+
     private void customField(EntityType model, Property field, SerializerConfig config,
             CodeWriter writer) throws IOException {
         Type queryType = typeMappings.getPathType(field.getType(), model, false);
@@ -780,7 +878,7 @@ public class EntitySerializer implements Serializer{
                 queryType = typeMappings.getPathType(property.getParameter(0), model, true);
 
                 serialize(model, property, new ClassType(CollectionPath.class, getRaw(property.getParameter(0)), genericQueryType),
-                        writer, "this.<"+genericKey + COMMA + writer.getGenericName(true, genericQueryType) + ">createCollection",
+                        config, writer, "this.<"+genericKey + COMMA + writer.getGenericName(true, genericQueryType) + ">createCollection",
                         localRawName + DOT_CLASS, writer.getRawName(queryType) + DOT_CLASS, inits);
                 break;
 
@@ -791,7 +889,7 @@ public class EntitySerializer implements Serializer{
                 queryType = typeMappings.getPathType(property.getParameter(0), model, true);
 
                 serialize(model, property, new ClassType(SetPath.class, getRaw(property.getParameter(0)), genericQueryType),
-                        writer, "this.<"+genericKey + COMMA + writer.getGenericName(true, genericQueryType) + ">createSet",
+                        config, writer, "this.<"+genericKey + COMMA + writer.getGenericName(true, genericQueryType) + ">createSet",
                         localRawName + DOT_CLASS, writer.getRawName(queryType) + DOT_CLASS, inits);
                 break;
 
@@ -802,7 +900,7 @@ public class EntitySerializer implements Serializer{
                 queryType = typeMappings.getPathType(property.getParameter(0), model, true);
 
                 serialize(model, property, new ClassType(ListPath.class, getRaw(property.getParameter(0)), genericQueryType),
-                        writer, "this.<"+genericKey + COMMA + writer.getGenericName(true, genericQueryType) + ">createList",
+                        config, writer, "this.<"+genericKey + COMMA + writer.getGenericName(true, genericQueryType) + ">createList",
                         localRawName + DOT_CLASS, writer.getRawName(queryType) + DOT_CLASS, inits);
                 break;
 
@@ -816,7 +914,7 @@ public class EntitySerializer implements Serializer{
 
                 serialize(model, property, new ClassType(MapPath.class, getRaw(property.getParameter(0)),
                         getRaw(property.getParameter(1)), genericQueryType),
-                        writer, "this.<" + genericKey + COMMA + genericValue + COMMA +
+                        config, writer, "this.<" + genericKey + COMMA + genericValue + COMMA +
                             writer.getGenericName(true, genericQueryType) + ">createMap",
                         keyType+DOT_CLASS, valueType+DOT_CLASS, writer.getRawName(queryType)+DOT_CLASS);
                 break;
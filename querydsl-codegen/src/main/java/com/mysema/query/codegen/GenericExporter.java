@@ -20,12 +20,14 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,9 +36,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -61,6 +68,7 @@ import com.mysema.query.annotations.QuerySupertype;
 import com.mysema.query.annotations.QueryTransient;
 import com.mysema.query.annotations.QueryType;
 import com.mysema.util.BeanUtils;
+import com.mysema.util.ClassFileInfo;
 import com.mysema.util.ClassPathUtils;
 import com.mysema.util.ReflectionUtils;
 
@@ -145,7 +153,17 @@ public class GenericExporter {
 
     private final ClassLoader classLoader;
 
-    private Set<File> generatedFiles = new HashSet<File>();
+    private final Set<File> generatedFiles = Collections.synchronizedSet(new HashSet<File>());
+
+    private boolean incremental = false;
+
+    @Nullable
+    private BuildState buildState;
+
+    private int threads = 1;
+
+    // guards the type factory and the type maps during concurrent model construction
+    private final Object lock = new Object();
 
     /**
      * Create a GenericExporter instance using the given classloader and charset for serializing
@@ -249,10 +267,17 @@ public class GenericExporter {
 
         // add constructors and properties
         for (Map<Class<?>, EntityType> entries : Arrays.asList(superTypes, embeddableTypes, entityTypes, projectionTypes)) {
-            for (Map.Entry<Class<?>, EntityType> entry : Sets.newHashSet(entries.entrySet())) {
-                addConstructors(entry.getKey(), entry.getValue());
-                addProperties(entry.getKey(), entry.getValue());
+            List<Runnable> tasks = new ArrayList<Runnable>(entries.size());
+            for (final Map.Entry<Class<?>, EntityType> entry : Sets.newHashSet(entries.entrySet())) {
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        addConstructors(entry.getKey(), entry.getValue());
+                        addProperties(entry.getKey(), entry.getValue());
+                    }
+                });
             }
+            run(tasks);
         }
 
         // merge supertype fields into subtypes
@@ -286,6 +311,12 @@ public class GenericExporter {
                 projectionSerializer = codegenModule.get(ProjectionSerializer.class);
             }
 
+            File buildStateFile = new File(targetFolder, BuildState.FILE_NAME);
+            buildState = incremental ? new BuildState() : null;
+            if (buildState != null) {
+                buildState.load(buildStateFile);
+            }
+
             // serialize super types
             serialize(supertypeSerializer, superTypes);
 
@@ -298,12 +329,42 @@ public class GenericExporter {
             // serialize projections
             serialize(projectionSerializer, projectionTypes);
 
+            if (buildState != null) {
+                buildState.store(buildStateFile);
+            }
+
         } catch (IOException e) {
             throw new QueryException(e);
         }
 
     }
 
+    private void run(List<Runnable> tasks) {
+        if (threads > 1 && tasks.size() > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+            try {
+                List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+                for (Runnable task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e.getMessage(), e);
+            } catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
     private void addSupertypeFields(EntityType model, Map<String, EntityType> superTypes,
             Set<EntityType> handled) {
         if (handled.add(model)) {
@@ -364,9 +425,12 @@ public class GenericExporter {
             if (constructor.getAnnotation(QueryProjection.class) != null) {
                 List<Parameter> parameters = Lists.newArrayList();
                 for (int i = 0; i < constructor.getParameterTypes().length; i++) {
-                    Type parameterType = typeFactory.get(
-                            constructor.getParameterTypes()[i],
-                            constructor.getGenericParameterTypes()[i]);
+                    Type parameterType;
+                    synchronized (lock) {
+                        parameterType = typeFactory.get(
+                                constructor.getParameterTypes()[i],
+                                constructor.getGenericParameterTypes()[i]);
+                    }
                     for (Annotation annotation : constructor.getParameterAnnotations()[i]) {
                         if (annotation.annotationType().equals(QueryType.class)) {
                             QueryType queryType = (QueryType)annotation;
@@ -435,6 +499,13 @@ public class GenericExporter {
 
     private Type getPropertyType(Class<?> cl, AnnotatedElement annotated, Class<?> type,
             java.lang.reflect.Type genericType) {
+        synchronized (lock) {
+            return getPropertyType0(cl, annotated, type, genericType);
+        }
+    }
+
+    private Type getPropertyType0(Class<?> cl, AnnotatedElement annotated, Class<?> type,
+            java.lang.reflect.Type genericType) {
         Type propertyType = null;
         if (annotated.isAnnotationPresent(embeddedAnnotation)) {
             Class<?> embeddableType = type;
@@ -493,10 +564,24 @@ public class GenericExporter {
         if (packages == null) {
             return;
         }
+        // class files are filtered by their annotations before the classes are loaded
+        Set<String> annotations = new HashSet<String>();
+        boolean inherited = false;
+        for (Class<? extends Annotation> annotation : Arrays.asList(entityAnnotation,
+                embeddableAnnotation, supertypeAnnotation)) {
+            annotations.add(annotation.getName());
+            inherited |= annotation.isAnnotationPresent(Inherited.class);
+        }
         for (String pkg : packages) {
             try {
-                for (Class<?> cl : ClassPathUtils.scanPackage(classLoader, pkg)) {
-                    handleClass(cl);
+                Map<String, ClassFileInfo> classFiles = ClassPathUtils.scanClassFiles(classLoader, pkg);
+                for (String className : classFiles.keySet()) {
+                    if (isCandidate(className, classFiles, annotations, inherited)) {
+                        Class<?> cl = ClassPathUtils.safeClassForName(classLoader, className, false);
+                        if (cl != null) {
+                            handleClass(cl);
+                        }
+                    }
                 }
             } catch (IOException e) {
                 throw new QueryException(e);
@@ -504,6 +589,31 @@ public class GenericExporter {
         }
     }
 
+    private boolean isCandidate(String className, Map<String, ClassFileInfo> classFiles,
+            Set<String> annotations, boolean inherited) {
+        ClassFileInfo classFile = classFiles.get(className);
+        if (classFile == null) {
+            // unreadable class files are checked via reflection
+            return true;
+        } else if (!Collections.disjoint(classFile.getAnnotations(), annotations)
+                || classFile.getConstructorAnnotations().contains(QueryProjection.class.getName())) {
+            return true;
+        } else if (inherited) {
+            String superName = classFile.getSuperName();
+            while (superName != null && !superName.equals(Object.class.getName())) {
+                classFile = classFiles.get(superName);
+                if (classFile == null) {
+                    // the superclass is outside of the scanned packages
+                    return true;
+                } else if (!Collections.disjoint(classFile.getAnnotations(), annotations)) {
+                    return true;
+                }
+                superName = classFile.getSuperName();
+            }
+        }
+        return false;
+    }
+
     private void handleClass(Class<?> cl) {
         if (stopClasses.contains(cl) || cl.isAnnotationPresent(QueryExclude.class)) {
             return;
@@ -523,7 +633,12 @@ public class GenericExporter {
         }
     }
 
-    private void serialize(Serializer serializer, Map<Class<?>, EntityType> types) throws IOException {
+    private void serialize(final Serializer serializer, Map<Class<?>, EntityType> types) {
+        ModelDigest modelDigest = null;
+        if (buildState != null) {
+            modelDigest = new ModelDigest(serializer, charset, createScalaSources);
+        }
+        List<Runnable> tasks = new ArrayList<Runnable>(types.size());
         for (Map.Entry<Class<?>, EntityType> entityType : types.entrySet()) {
             Type type = typeMappings.getPathType(entityType.getValue(), entityType.getValue(), true);
             String packageName = type.getPackageName();
@@ -533,14 +648,35 @@ public class GenericExporter {
                 config = SimpleSerializerConfig.getConfig(entityType.getKey().getAnnotation(Config.class));
             }
             String fileSuffix = createScalaSources ? ".scala" : ".java";
-            write(serializer, className.replace('.', '/') + fileSuffix, config, entityType.getValue());
+            final ModelDigest digest = modelDigest;
+            final String path = className.replace('.', '/') + fileSuffix;
+            final SerializerConfig serializerConfig = config;
+            final EntityType model = entityType.getValue();
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write(serializer, digest, path, serializerConfig, model);
+                    } catch (IOException e) {
+                        throw new QueryException(e);
+                    }
+                }
+            });
         }
+        run(tasks);
     }
 
-    private void write(Serializer serializer, String path, SerializerConfig serializerConfig,
-            EntityType type) throws IOException {
+    private void write(Serializer serializer, @Nullable ModelDigest modelDigest, String path,
+            SerializerConfig serializerConfig, EntityType type) throws IOException {
         File targetFile = new File(targetFolder, path);
         generatedFiles.add(targetFile);
+        String digest = null;
+        if (modelDigest != null) {
+            digest = modelDigest.digest(type, serializerConfig);
+            if (targetFile.exists() && buildState.isUnchanged(path, digest)) {
+                return;
+            }
+        }
         Writer w = writerFor(targetFile);
         try {
             CodeWriter writer = createScalaSources ? new ScalaWriter(w) : new JavaWriter(w);
@@ -548,6 +684,9 @@ public class GenericExporter {
         } finally {
             w.close();
         }
+        if (digest != null) {
+            buildState.update(path, digest);
+        }
     }
 
     private Writer writerFor(File file) {
@@ -569,6 +708,26 @@ public class GenericExporter {
         return generatedFiles;
     }
 
+    /**
+     * Set whether sources are generated incrementally. Digests of the models are recorded in
+     * the target folder and sources of unchanged models are not serialized and written again.
+     *
+     * @param incremental
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Set the amount of threads used to construct the models of the exported types and to
+     * serialize them
+     *
+     * @param threads amount of threads (default: 1)
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     /**
      * Set the entity annotation
      *
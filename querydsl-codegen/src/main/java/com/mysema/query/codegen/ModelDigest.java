@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.codegen;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+import com.mysema.codegen.model.Constructor;
+import com.mysema.codegen.model.Parameter;
+import com.mysema.codegen.model.Type;
+
+/**
+ * ModelDigest computes digests of {@link EntityType} models, which change whenever the
+ * serialized form of the model may change.
+ *
+ * <p>The digest covers the model, the parts of referenced models the serializers depend on, the
+ * {@link SerializerConfig} and the given settings, which are typically the serializer instance
+ * and the output options. Settings and model data are described via their fields, objects which
+ * can't be described in a stable way change the digest on each run, which causes regeneration
+ * instead of stale sources.</p>
+ *
+ * @author tiwe
+ *
+ */
+public final class ModelDigest {
+
+    private static final int MAX_DEPTH = 6;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String settings;
+
+    /**
+     * Create a new ModelDigest instance
+     *
+     * @param settings additional inputs of the serialization
+     */
+    public ModelDigest(Object... settings) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(Serializer.class.getPackage().getImplementationVersion()).append('\n');
+        describe(builder, settings, new IdentityHashMap<Object, Boolean>(), 0);
+        this.settings = builder.toString();
+    }
+
+    /**
+     * Get the digest of the given model
+     *
+     * @param model
+     * @param config
+     * @return
+     */
+    public String digest(EntityType model, SerializerConfig config) {
+        StringBuilder builder = new StringBuilder(settings);
+        builder.append("\nconfig ").append(config.useEntityAccessors())
+            .append(' ').append(config.useLazyInit())
+            .append(' ').append(config.useListAccessors())
+            .append(' ').append(config.useMapAccessors())
+            .append(' ').append(config.createDefaultVariable())
+            .append(' ').append(config.defaultVariableName());
+        builder.append("\ntype ").append(model.getGenericName(true))
+            .append(' ').append(model.getOriginalCategory());
+
+        List<String> lines = new ArrayList<String>();
+        for (Supertype supertype : model.getSuperTypes()) {
+            lines.add(describe(supertype.getType()));
+        }
+        append(builder, "supertypes", lines);
+
+        // the serializers look into the entity types of the supertype chain
+        Supertype supertype = model.getSuperType();
+        for (int i = 0; supertype != null && i < 100; i++) {
+            builder.append("\nsuper ").append(describe(supertype.getType()));
+            EntityType entityType = supertype.getEntityType();
+            if (entityType != null) {
+                builder.append(' ').append(entityType.hasEntityFields());
+                supertype = entityType.getSuperType();
+            } else {
+                supertype = null;
+            }
+        }
+
+        append(builder, "annotations", describeAnnotations(model.getAnnotations()));
+
+        lines = new ArrayList<String>();
+        for (Constructor constructor : model.getConstructors()) {
+            lines.add(describeParameters(constructor.getParameters()));
+        }
+        append(builder, "constructors", lines);
+
+        lines = new ArrayList<String>();
+        for (Delegate delegate : model.getDelegates()) {
+            lines.add(describe(delegate.getDeclaringType()) + " "
+                    + describe(delegate.getDelegateType()) + " "
+                    + delegate.getName() + " "
+                    + describeParameters(delegate.getParameters()) + " "
+                    + describe(delegate.getReturnType()));
+        }
+        append(builder, "delegates", lines);
+
+        for (Property property : model.getProperties()) {
+            builder.append("\nproperty ").append(property.getName())
+                .append(' ').append(property.getEscapedName())
+                .append(' ').append(describe(property.getType()))
+                .append(' ').append(property.isInherited())
+                .append(' ').append(property.getInits());
+            if (property.getType() instanceof EntityType) {
+                builder.append(' ').append(((EntityType)property.getType()).hasEntityFields());
+            }
+            append(builder, "", describeAnnotations(property.getAnnotations()));
+        }
+
+        builder.append("\ndata ");
+        describe(builder, model.getData(), new IdentityHashMap<Object, Boolean>(), 0);
+        return toHex(md5(builder.toString()));
+    }
+
+    private static void append(StringBuilder builder, String title, List<String> lines) {
+        Collections.sort(lines);
+        builder.append('\n').append(title);
+        for (String line : lines) {
+            builder.append(' ').append(line);
+        }
+    }
+
+    private static String describe(Type type) {
+        return type.getGenericName(true) + " " + type.getCategory();
+    }
+
+    private static String describeParameters(Collection<Parameter> parameters) {
+        StringBuilder builder = new StringBuilder("(");
+        for (Parameter parameter : parameters) {
+            builder.append(parameter.getName()).append(' ')
+                .append(describe(parameter.getType())).append(',');
+        }
+        return builder.append(')').toString();
+    }
+
+    private static List<String> describeAnnotations(Collection<Annotation> annotations) {
+        List<String> lines = new ArrayList<String>(annotations.size());
+        for (Annotation annotation : annotations) {
+            StringBuilder builder = new StringBuilder();
+            describe(builder, annotation);
+            lines.add(builder.toString());
+        }
+        return lines;
+    }
+
+    private static void describe(StringBuilder builder, Annotation annotation) {
+        // annotation implementations don't necessarily implement toString
+        Method[] methods = annotation.annotationType().getDeclaredMethods();
+        Arrays.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(Method o1, Method o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        builder.append('@').append(annotation.annotationType().getName()).append('(');
+        try {
+            for (Method method : methods) {
+                builder.append(method.getName()).append('=');
+                describe(builder, method.invoke(annotation), new IdentityHashMap<Object, Boolean>(), 0);
+                builder.append(',');
+            }
+        } catch (IllegalAccessException e) {
+            builder.append(annotation);
+        } catch (InvocationTargetException e) {
+            builder.append(annotation);
+        }
+        builder.append(')');
+    }
+
+    private static void describe(StringBuilder builder, @Nullable Object value,
+            Map<Object, Boolean> visited, int depth) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof CharSequence || value instanceof Number
+                || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?>) {
+            builder.append(value);
+        } else if (value instanceof Annotation) {
+            describe(builder, (Annotation)value);
+        } else if (value instanceof Class<?>) {
+            builder.append(((Class<?>)value).getName());
+        } else if (value instanceof Charset) {
+            builder.append(((Charset)value).name());
+        } else if (value instanceof Type) {
+            builder.append(describe((Type)value));
+        } else if (value instanceof Map<?,?>) {
+            List<String> entries = new ArrayList<String>();
+            for (Map.Entry<?,?> entry : ((Map<?,?>)value).entrySet()) {
+                StringBuilder str = new StringBuilder();
+                describe(str, entry.getKey(), visited, depth + 1);
+                str.append('=');
+                describe(str, entry.getValue(), visited, depth + 1);
+                entries.add(str.toString());
+            }
+            describe(builder, entries, true);
+        } else if (value instanceof Collection<?>) {
+            List<String> elements = new ArrayList<String>();
+            for (Object element : (Collection<?>)value) {
+                StringBuilder str = new StringBuilder();
+                describe(str, element, visited, depth + 1);
+                elements.add(str.toString());
+            }
+            describe(builder, elements, value instanceof Set<?>);
+        } else if (value.getClass().isArray()) {
+            List<String> elements = new ArrayList<String>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                StringBuilder str = new StringBuilder();
+                describe(str, Array.get(value, i), visited, depth + 1);
+                elements.add(str.toString());
+            }
+            describe(builder, elements, false);
+        } else if (depth > MAX_DEPTH || isPlatformClass(value.getClass())) {
+            builder.append(value);
+        } else if (visited.put(value, Boolean.TRUE) == null) {
+            builder.append(value.getClass().getName()).append('{');
+            try {
+                for (Class<?> cl = value.getClass(); cl != Object.class; cl = cl.getSuperclass()) {
+                    for (Field field : cl.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                            field.setAccessible(true);
+                            builder.append(field.getName()).append('=');
+                            describe(builder, field.get(value), visited, depth + 1);
+                            builder.append(',');
+                        }
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                builder.append(value);
+            } catch (SecurityException e) {
+                builder.append(value);
+            }
+            builder.append('}');
+        } else {
+            builder.append(value.getClass().getName()).append("{...}");
+        }
+    }
+
+    private static boolean isPlatformClass(Class<?> cl) {
+        return cl.getName().startsWith("java.") || cl.getName().startsWith("javax.");
+    }
+
+    private static void describe(StringBuilder builder, List<String> elements, boolean sort) {
+        if (sort) {
+            Collections.sort(elements);
+        }
+        builder.append('[');
+        for (String element : elements) {
+            builder.append(element).append(',');
+        }
+        builder.append(']');
+    }
+
+    private static byte[] md5(String str) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(str.getBytes(Charsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new CodeGenerationException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+}
@@ -26,6 +26,11 @@ public interface SerializerConfig {
      */
     boolean useEntityAccessors();
 
+    /**
+     * @return if lazily initialized accessors are used for entity and collection fields
+     */
+    boolean useLazyInit();
+
     /**
      * @return if indexed list accessors are used 
      */
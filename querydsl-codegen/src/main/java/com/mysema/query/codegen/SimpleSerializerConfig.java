@@ -31,10 +31,11 @@ public final class SimpleSerializerConfig implements SerializerConfig{
                 annotation.listAccessors(),
                 annotation.mapAccessors(),
                 annotation.createDefaultVariable(),
-                annotation.defaultVariableName());
+                annotation.defaultVariableName(),
+                annotation.lazyInit());
     }
 
-    private final boolean entityAccessors, listAccessors, mapAccessors, createDefaultVariable;
+    private final boolean entityAccessors, listAccessors, mapAccessors, createDefaultVariable, lazyInit;
     private final String defaultVariableName;
 
     public SimpleSerializerConfig(
@@ -43,11 +44,23 @@ public final class SimpleSerializerConfig implements SerializerConfig{
             boolean mapAccessors,
             boolean createDefaultVariable,
             String defaultVariableName) {
+        this(entityAccessors, listAccessors, mapAccessors, createDefaultVariable,
+                defaultVariableName, false);
+    }
+
+    public SimpleSerializerConfig(
+            boolean entityAccessors,
+            boolean listAccessors,
+            boolean mapAccessors,
+            boolean createDefaultVariable,
+            String defaultVariableName,
+            boolean lazyInit) {
         this.entityAccessors = entityAccessors;
         this.listAccessors = listAccessors;
         this.mapAccessors = mapAccessors;
         this.createDefaultVariable = createDefaultVariable;
         this.defaultVariableName = defaultVariableName;
+        this.lazyInit = lazyInit;
     }
 
     @Override
@@ -55,6 +68,11 @@ public final class SimpleSerializerConfig implements SerializerConfig{
         return entityAccessors;
     }
 
+    @Override
+    public boolean useLazyInit() {
+        return lazyInit;
+    }
+
     @Override
     public boolean useListAccessors() {
         return listAccessors;
@@ -13,6 +13,7 @@
  */
 package com.mysema.query.codegen;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -21,6 +22,7 @@ import java.sql.Time;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
@@ -185,4 +187,26 @@ public class EntitySerializerTest {
         assertTrue(writer.toString().contains("return Entity.test(this);"));
     }
 
+    @Test
+    public void LazyInit() throws IOException {
+        SimpleType type = new SimpleType(TypeCategory.ENTITY, "Entity", "", "Entity",false,false);
+        EntityType entityType = new EntityType(type);
+        entityType.addProperty(new Property(entityType, "s", new ClassType(TypeCategory.STRING, String.class)));
+        entityType.addProperty(new Property(entityType, "entity", entityType));
+        entityType.addProperty(new Property(entityType, "list", new ClassType(TypeCategory.LIST, List.class, type)));
+        typeMappings.register(entityType, queryTypeFactory.create(entityType));
+
+        serializer.serialize(entityType, new SimpleSerializerConfig(false, true, false, true, "", true),
+                new JavaWriter(writer));
+        String str = writer.toString();
+        assertTrue(str.contains("public final StringPath s = createString(\"s\");"));
+        assertTrue(str.contains("private volatile QEntity entity;"));
+        assertTrue(str.contains("public QEntity entity() {"));
+        assertTrue(str.contains("entity = new QEntity(forProperty(\"entity\"), getInits(\"entity\"));"));
+        assertTrue(str.contains("private volatile ListPath<Entity, QEntity> list;"));
+        assertTrue(str.contains("public ListPath<Entity, QEntity> list() {"));
+        assertTrue(str.contains("return list().get(index);"));
+        assertFalse(str.contains("this.entity = "));
+    }
+
 }
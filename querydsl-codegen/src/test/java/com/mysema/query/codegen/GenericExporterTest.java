@@ -13,6 +13,7 @@
  */
 package com.mysema.query.codegen;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -117,5 +118,57 @@ public class GenericExporterTest {
         exporter.export(Cat.class.getPackage());
     }
 
+    @Test
+    public void Export_Incremental() {
+        File folder = new File("target/gen7");
+        File file = new File(folder, "com/mysema/query/codegen/QExampleEntity.java");
+        exporter.setTargetFolder(folder);
+        exporter.setIncremental(true);
+        exporter.export(getClass().getPackage());
+        assertTrue(new File(folder, BuildState.FILE_NAME).exists());
+        assertTrue(file.setLastModified(1000l));
+
+        // unchanged
+        exporter = new GenericExporter();
+        exporter.setTargetFolder(folder);
+        exporter.setIncremental(true);
+        exporter.export(getClass().getPackage());
+        assertEquals(1000l, file.lastModified());
+
+        // changed serializer settings
+        exporter = new GenericExporter();
+        exporter.setTargetFolder(folder);
+        exporter.setIncremental(true);
+        exporter.setKeywords(Keywords.JPA);
+        exporter.export(getClass().getPackage());
+        assertFalse(file.lastModified() == 1000l);
+
+        // deleted
+        assertTrue(file.delete());
+        exporter = new GenericExporter();
+        exporter.setTargetFolder(folder);
+        exporter.setIncremental(true);
+        exporter.export(getClass().getPackage());
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void Export_Threads() throws IOException {
+        exporter.setTargetFolder(new File("target/gen8"));
+        exporter.export(getClass().getPackage());
+
+        GenericExporter parallel = new GenericExporter();
+        parallel.setTargetFolder(new File("target/gen8_threads"));
+        parallel.setThreads(4);
+        parallel.export(getClass().getPackage());
+
+        assertFalse(exporter.getGeneratedFiles().isEmpty());
+        assertEquals(exporter.getGeneratedFiles().size(), parallel.getGeneratedFiles().size());
+        for (File file : exporter.getGeneratedFiles()) {
+            File other = new File(file.getPath().replace("gen8", "gen8_threads"));
+            assertEquals(file.getPath(), Files.toString(file, Charsets.UTF_8),
+                    Files.toString(other, Charsets.UTF_8));
+        }
+    }
 
 }
@@ -70,6 +70,19 @@ public final class CollQueryFactory {
         return new CollQuery().from(path, col);
     }
 
+    /**
+     * Create a new query which uses the given query engine, e.g.
+     * {@link DefaultQueryEngine#getAdaptive()} to interpret queries before compiling them
+     * 
+     * @param queryEngine query engine
+     * @param path source expression
+     * @param col source collection
+     * @return
+     */
+    public static <A> CollQuery from(QueryEngine queryEngine, Path<A> path, Iterable<A> col) {
+        return new CollQuery(queryEngine).from(path, col);
+    }
+
     /**
      * Create a new update clause
      * 
@@ -258,6 +258,21 @@ public final class CollQueryFunctions {
         }
     }
 
+    /**
+     * Get the value of the given field, which is expected to be accessible
+     *
+     * @param parent
+     * @param field
+     * @return
+     */
+    public static <T> T get(Object parent, Field field) {
+        try {
+            return (T)field.get(parent);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private CollQueryFunctions() {}
 
 
@@ -31,7 +31,8 @@ import com.mysema.query.types.template.BooleanTemplate;
  */
 public class CollQueryMixin<T> extends QueryMixin<T> {
     
-    private static final Predicate ANY = BooleanTemplate.create("any");
+    // marker for the join conditions of any() paths
+    static final Predicate ANY = BooleanTemplate.create("any");
 
     public CollQueryMixin() {}
 
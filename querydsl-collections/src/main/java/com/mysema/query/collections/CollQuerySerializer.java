@@ -40,6 +40,7 @@ import com.mysema.query.types.Path;
 import com.mysema.query.types.PathType;
 import com.mysema.query.types.SubQueryExpression;
 import com.mysema.query.types.Template;
+import com.mysema.util.ReflectionUtils;
 
 /**
  * CollQuerySerializer is a {@link Serializer} implementation for the Java language
@@ -106,7 +107,15 @@ public final class CollQuerySerializer extends SerializerBase<CollQuerySerialize
                         append(CollQueryFunctions.class.getName() + ".<");
                         append(((Class)path.getType()).getName()).append(">get(");
                         handle(parent);
-                        append(", \""+property+"\")");
+                        Field declared = getDeclaredField(parentType, property);
+                        if (declared != null) {
+                            // resolved once and bound as a constant of the evaluator
+                            append(", ");
+                            visitConstant(declared);
+                            append(")");
+                        } else {
+                            append(", \""+property+"\")");
+                        }
                     }
                 }                
             } catch (Exception e) {
@@ -164,6 +173,18 @@ public final class CollQuerySerializer extends SerializerBase<CollQuerySerialize
         }
     }
     
+    private Field getDeclaredField(Class<?> owner, String property) {
+        Field field = ReflectionUtils.getFieldOrNull(owner, property);
+        if (field != null) {
+            try {
+                field.setAccessible(true);
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+        return field;
+    }
+
     @Override
     public Void visit(SubQueryExpression<?> expr, Void context) {
         throw new IllegalArgumentException("Not supported");
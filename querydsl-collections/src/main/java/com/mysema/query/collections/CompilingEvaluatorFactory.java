@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.collections;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.mysema.codegen.AbstractEvaluatorFactory;
+import com.mysema.codegen.model.ClassType;
+import com.mysema.codegen.model.Type;
+
+/**
+ * CompilingEvaluatorFactory is an {@link com.mysema.codegen.EvaluatorFactory} implementation
+ * which compiles evaluator sources with a pluggable {@link EvaluatorCompiler} backend.
+ *
+ * <p>If a cache directory is given, the compiled classes are stored in it as jar files named
+ * after the hash of the generated source, so that evaluators don't need to be compiled again
+ * after a restart. The cache directory must be cleared when the classes used in queries change
+ * in incompatible ways.</p>
+ *
+ * @author tiwe
+ *
+ */
+public class CompilingEvaluatorFactory extends AbstractEvaluatorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompilingEvaluatorFactory.class);
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String FILE_SUFFIX = ".jar";
+
+    private final EvaluatorCompiler compiler;
+
+    private final EvaluatorClassLoader classLoader;
+
+    @Nullable
+    private final File cacheDirectory;
+
+    private int compilations;
+
+    /**
+     * Create a new CompilingEvaluatorFactory instance without persistent caching
+     *
+     * @param compiler compilation backend
+     * @param parent parent class loader of the evaluator classes
+     */
+    public CompilingEvaluatorFactory(EvaluatorCompiler compiler, ClassLoader parent) {
+        this(compiler, parent, null);
+    }
+
+    /**
+     * Create a new CompilingEvaluatorFactory instance
+     *
+     * @param compiler compilation backend
+     * @param parent parent class loader of the evaluator classes
+     * @param cacheDirectory directory for compiled classes or null for no persistent caching
+     */
+    public CompilingEvaluatorFactory(EvaluatorCompiler compiler, ClassLoader parent,
+            @Nullable File cacheDirectory) {
+        this.compiler = compiler;
+        this.classLoader = new EvaluatorClassLoader(parent);
+        this.cacheDirectory = cacheDirectory;
+        this.loader = classLoader;
+    }
+
+    @Override
+    protected synchronized void compile(String source, ClassType projectionType, String[] names,
+            Type[] types, String id, Map<String, Object> constants) throws IOException {
+        String classSource = createSource(source, projectionType, names, types, id, constants);
+        File file = null;
+        Map<String, byte[]> classes = null;
+        if (cacheDirectory != null) {
+            // the class files depend also on the Java version of the compiler
+            String key = System.getProperty("java.specification.version") + "\n" + classSource;
+            file = new File(cacheDirectory, Hashing.md5().hashString(key, Charsets.UTF_8) + FILE_SUFFIX);
+            classes = read(file);
+        }
+        if (classes == null || !classes.containsKey(id)) {
+            classes = compiler.compile(id, classSource);
+            compilations++;
+            if (file != null) {
+                write(file, classes);
+            }
+        }
+        classLoader.addClasses(classes);
+    }
+
+    /**
+     * @return the number of compilations, which excludes classes read from the cache directory
+     */
+    public synchronized int getCompilations() {
+        return compilations;
+    }
+
+    @Nullable
+    private Map<String, byte[]> read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            Map<String, byte[]> classes = new HashMap<String, byte[]>();
+            JarInputStream in = new JarInputStream(new FileInputStream(file));
+            try {
+                JarEntry entry;
+                while ((entry = in.getNextJarEntry()) != null) {
+                    String name = entry.getName();
+                    if (name.endsWith(CLASS_SUFFIX)) {
+                        name = name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.');
+                        classes.put(name, ByteStreams.toByteArray(in));
+                    }
+                }
+            } finally {
+                in.close();
+            }
+            return classes;
+        } catch (IOException e) {
+            logger.warn("Reading of " + file.getPath() + " failed", e);
+            return null;
+        }
+    }
+
+    private void write(File file, Map<String, byte[]> classes) {
+        try {
+            if (!cacheDirectory.exists() && !cacheDirectory.mkdirs()) {
+                throw new IOException("Creation of " + cacheDirectory.getPath() + " failed");
+            }
+            // write to a temporary file first, so that other processes don't see partial files
+            File tmp = File.createTempFile("evaluator", ".tmp", cacheDirectory);
+            JarOutputStream out = new JarOutputStream(new FileOutputStream(tmp));
+            try {
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + CLASS_SUFFIX));
+                    out.write(entry.getValue());
+                    out.closeEntry();
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            logger.warn("Writing of " + file.getPath() + " failed", e);
+        }
+    }
+
+    private static final class EvaluatorClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classes = new ConcurrentHashMap<String, byte[]>();
+
+        EvaluatorClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        void addClasses(Map<String, byte[]> classes) {
+            this.classes.putAll(classes);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.remove(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+    }
+
+}
@@ -13,6 +13,7 @@
  */
 package com.mysema.query.collections;
 
+import java.io.File;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -67,6 +68,20 @@ public class DefaultEvaluatorFactory {
         this.factory = factory;
     }
 
+    /**
+     * Create a new DefaultEvaluatorFactory instance which compiles evaluators with the given
+     * backend
+     *
+     * @param templates
+     * @param compiler compilation backend
+     * @param cacheDirectory directory for compiled classes or null for no persistent caching
+     */
+    public DefaultEvaluatorFactory(CollQueryTemplates templates, EvaluatorCompiler compiler,
+            @Nullable File cacheDirectory) {
+        this(templates, new CompilingEvaluatorFactory(compiler,
+                Thread.currentThread().getContextClassLoader(), cacheDirectory));
+    }
+
     protected DefaultEvaluatorFactory(CollQueryTemplates templates,
             URLClassLoader classLoader, JavaCompiler compiler) {
         this.templates = templates;
@@ -14,11 +14,17 @@
 package com.mysema.query.collections;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
@@ -35,16 +41,34 @@ import com.mysema.query.types.Operator;
 import com.mysema.query.types.Ops;
 import com.mysema.query.types.Order;
 import com.mysema.query.types.OrderSpecifier;
+import com.mysema.query.types.Predicate;
 
 /**
  * Default implementation of the {@link QueryEngine} interface
  *
+ * <p>By default all queries are compiled. If an {@link InterpretingEvaluatorFactory} is given,
+ * queries are interpreted until their shape has been used more often than the compilation
+ * threshold or the number of source rows reaches the compilation size. After that compiled
+ * evaluators are used.</p>
+ *
+ * <p>Interpretation is opt-in. The engine of {@link #getDefault()}, which is used by queries and
+ * clauses created without an explicit engine, compiles all queries. The shared engine of
+ * {@link #getAdaptive()} uses the default thresholds. It can be given to the constructors of
+ * {@link CollQuery} and to {@link CollQueryFactory}.</p>
+ *
  * @author tiwe
  *
  */
 @SuppressWarnings("unchecked")
 public class DefaultQueryEngine implements QueryEngine {
 
+    public static final int DEFAULT_COMPILATION_THRESHOLD = 3;
+
+    public static final long DEFAULT_COMPILATION_SIZE = 10000;
+
+    // upper bound for the amount of tracked query shapes
+    private static final int MAX_SHAPES = 1024;
+
     private static volatile QueryEngine DEFAULT;
 
     public static QueryEngine getDefault() {
@@ -54,10 +78,70 @@ public class DefaultQueryEngine implements QueryEngine {
         return DEFAULT;
     }
 
+    private static volatile QueryEngine ADAPTIVE;
+
+    /**
+     * Get the shared engine which interprets queries with the default thresholds before
+     * compiling them
+     *
+     * @return
+     */
+    public static QueryEngine getAdaptive() {
+        if (ADAPTIVE == null) {
+            ADAPTIVE = new DefaultQueryEngine(new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT),
+                    new InterpretingEvaluatorFactory());
+        }
+        return ADAPTIVE;
+    }
+
     private final DefaultEvaluatorFactory evaluatorFactory;
 
+    @Nullable
+    private final InterpretingEvaluatorFactory interpreter;
+
+    private final int compilationThreshold;
+
+    private final long compilationSize;
+
+    private final ConcurrentMap<Long, AtomicInteger> usages = new ConcurrentHashMap<Long, AtomicInteger>();
+
+    /**
+     * Create a new DefaultQueryEngine instance which uses only compiled evaluators
+     *
+     * @param evaluatorFactory
+     */
     public DefaultQueryEngine(DefaultEvaluatorFactory evaluatorFactory) {
+        this(evaluatorFactory, null, 0, 0);
+    }
+
+    /**
+     * Create a new DefaultQueryEngine instance which chooses between interpreted and compiled
+     * evaluators with the default thresholds
+     *
+     * @param evaluatorFactory
+     * @param interpreter
+     */
+    public DefaultQueryEngine(DefaultEvaluatorFactory evaluatorFactory,
+            InterpretingEvaluatorFactory interpreter) {
+        this(evaluatorFactory, interpreter, DEFAULT_COMPILATION_THRESHOLD, DEFAULT_COMPILATION_SIZE);
+    }
+
+    /**
+     * Create a new DefaultQueryEngine instance which chooses between interpreted and compiled
+     * evaluators
+     *
+     * @param evaluatorFactory factory for compiled evaluators
+     * @param interpreter factory for interpreted evaluators or null for compilation only
+     * @param compilationThreshold amount of interpreted executions of a query shape
+     * @param compilationSize amount of source rows from which on queries are compiled
+     */
+    public DefaultQueryEngine(DefaultEvaluatorFactory evaluatorFactory,
+            @Nullable InterpretingEvaluatorFactory interpreter, int compilationThreshold,
+            long compilationSize) {
         this.evaluatorFactory = evaluatorFactory;
+        this.interpreter = interpreter;
+        this.compilationThreshold = compilationThreshold;
+        this.compilationSize = compilationSize;
     }
 
     @Override
@@ -116,14 +200,24 @@ public class DefaultQueryEngine implements QueryEngine {
 
     private List evaluateMultipleSources(QueryMetadata metadata, Map<Expression<?>,
             Iterable<?>> iterables, boolean count) {
-        // from where
-        Evaluator<List<Object[]>> ev = evaluatorFactory.createEvaluator(metadata, metadata.getJoins(), metadata.getWhere());
         List<Iterable<?>> iterableList = new ArrayList<Iterable<?>>(metadata.getJoins().size());
+        long size = 1;
         for (JoinExpression join : metadata.getJoins()) {
             if (join.getType() == JoinType.DEFAULT) {
-                iterableList.add(iterables.get(join.getTarget()));
+                Iterable<?> iterable = iterables.get(join.getTarget());
+                iterableList.add(iterable);
+                int rows = iterable instanceof Collection ? ((Collection<?>)iterable).size() : -1;
+                if (rows >= 0 && (rows == 0 || size <= Long.MAX_VALUE / rows)) {
+                    size *= rows;
+                } else {
+                    size = Long.MAX_VALUE;
+                }
             }
         }
+        boolean interpret = isInterpreted(metadata, size);
+
+        // from where
+        Evaluator<List<Object[]>> ev = createEvaluator(metadata, metadata.getJoins(), metadata.getWhere(), interpret);
         List<?> list = ev.evaluate(iterableList.toArray());
 
         if (!count && !list.isEmpty()) {
@@ -138,10 +232,10 @@ public class DefaultQueryEngine implements QueryEngine {
             }
             // ordered
             if (!metadata.getOrderBy().isEmpty()) {
-                order(metadata, sources, list);
+                order(metadata, sources, list, interpret);
             }
             // projection
-            list = project(metadata, sources, list);
+            list = project(metadata, sources, list, interpret);
             // limit + offset
             if (metadata.getModifiers().isRestricting()) {
                 list = metadata.getModifiers().subList(list);
@@ -170,11 +264,12 @@ public class DefaultQueryEngine implements QueryEngine {
         } else {
             list = IteratorAdapter.asList(iterable.iterator());
         }
+        boolean interpret = isInterpreted(metadata, list.size());
 
         // from & where
         if (metadata.getWhere() != null) {
-            Evaluator<List<?>> evaluator = (Evaluator)evaluatorFactory
-                    .createEvaluator(metadata, source, metadata.getWhere());
+            Evaluator<List<?>> evaluator = (Evaluator)createEvaluator(metadata, source,
+                    metadata.getWhere(), interpret);
             list = evaluator.evaluate(list);
         }
 
@@ -185,11 +280,11 @@ public class DefaultQueryEngine implements QueryEngine {
                 if (list == iterable) {
                     list = new ArrayList(list);
                 }
-                order(metadata, sources, list);
+                order(metadata, sources, list, interpret);
             }
             // projection
             if (metadata.getProjection().size() > 1 || !metadata.getProjection().get(0).equals(source)) {
-                list = project(metadata, sources, list);
+                list = project(metadata, sources, list, interpret);
             }
             // limit + offset
             if (metadata.getModifiers().isRestricting()) {
@@ -209,7 +304,8 @@ public class DefaultQueryEngine implements QueryEngine {
 
     }
 
-    private void order(QueryMetadata metadata, List<Expression<?>> sources, List<?> list) {
+    private void order(QueryMetadata metadata, List<Expression<?>> sources, List<?> list,
+            boolean interpret) {
         // create a projection for the order
         List<OrderSpecifier<?>> orderBy = metadata.getOrderBy();
         Expression<Object>[] orderByExpr = new Expression[orderBy.size()];
@@ -219,11 +315,12 @@ public class DefaultQueryEngine implements QueryEngine {
             directions[i] = orderBy.get(i).getOrder() == Order.ASC;
         }
         Expression<?> expr = new ArrayConstructorExpression<Object>(Object[].class, orderByExpr);
-        Evaluator orderEvaluator = evaluatorFactory.create(metadata, sources, expr);
+        Evaluator orderEvaluator = create(metadata, sources, expr, interpret);
         Collections.sort(list, new MultiComparator(orderEvaluator, directions));
     }
 
-    private List<?> project(QueryMetadata metadata, List<Expression<?>> sources, List<?> list) {
+    private List<?> project(QueryMetadata metadata, List<Expression<?>> sources, List<?> list,
+            boolean interpret) {
         Expression<?> projection = metadata.getProjection().get(0);
         Operator<?> aggregator = null;
         if (projection instanceof Operation && Ops.aggOps.contains(((Operation)projection).getOperator())) {
@@ -231,7 +328,7 @@ public class DefaultQueryEngine implements QueryEngine {
             aggregator = aggregation.getOperator();
             projection = aggregation.getArg(0);
         }
-        Evaluator projectionEvaluator = evaluatorFactory.create(metadata, sources, projection);
+        Evaluator projectionEvaluator = create(metadata, sources, projection, interpret);
         EvaluatorFunction transformer = new EvaluatorFunction(projectionEvaluator);
         List target = new ArrayList();
         Iterators.addAll(target, Iterators.transform(list.iterator(), transformer));
@@ -242,6 +339,52 @@ public class DefaultQueryEngine implements QueryEngine {
         }
     }
 
+    private boolean isInterpreted(QueryMetadata metadata, long size) {
+        if (interpreter == null || size >= compilationSize) {
+            return false;
+        }
+        Long shape = metadata.getFingerprint();
+        AtomicInteger counter = usages.get(shape);
+        if (counter == null) {
+            if (usages.size() >= MAX_SHAPES) {
+                usages.clear();
+            }
+            counter = new AtomicInteger();
+            AtomicInteger existing = usages.putIfAbsent(shape, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        return counter.incrementAndGet() <= compilationThreshold;
+    }
+
+    private <T> Evaluator<T> create(QueryMetadata metadata, List<? extends Expression<?>> sources,
+            Expression<T> projection, boolean interpret) {
+        Evaluator<T> evaluator = interpret ? interpreter.create(metadata, sources, projection) : null;
+        if (evaluator == null) {
+            evaluator = evaluatorFactory.create(metadata, sources, projection);
+        }
+        return evaluator;
+    }
 
+    private <T> Evaluator<List<T>> createEvaluator(QueryMetadata metadata,
+            Expression<? extends T> source, Predicate filter, boolean interpret) {
+        Evaluator<List<T>> evaluator = interpret ?
+                interpreter.<T>createEvaluator(metadata, source, filter) : null;
+        if (evaluator == null) {
+            evaluator = evaluatorFactory.createEvaluator(metadata, source, filter);
+        }
+        return evaluator;
+    }
+
+    private Evaluator<List<Object[]>> createEvaluator(QueryMetadata metadata,
+            List<JoinExpression> joins, @Nullable Predicate filter, boolean interpret) {
+        Evaluator<List<Object[]>> evaluator = interpret ?
+                interpreter.createEvaluator(metadata, joins, filter) : null;
+        if (evaluator == null) {
+            evaluator = evaluatorFactory.createEvaluator(metadata, joins, filter);
+        }
+        return evaluator;
+    }
 
 }
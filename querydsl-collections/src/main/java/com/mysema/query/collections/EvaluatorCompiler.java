@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.collections;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * EvaluatorCompiler is the compilation backend of {@link CompilingEvaluatorFactory}
+ *
+ * @author tiwe
+ *
+ */
+public interface EvaluatorCompiler {
+
+    /**
+     * Compile the given source of the class with the given name
+     *
+     * @param className binary name of the class
+     * @param source Java source of the class
+     * @return class file contents by binary class name, including the given class
+     * @throws IOException
+     */
+    Map<String, byte[]> compile(String className, String source) throws IOException;
+
+}
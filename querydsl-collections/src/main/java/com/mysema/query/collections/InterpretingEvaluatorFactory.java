@@ -0,0 +1,1069 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.collections;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Primitives;
+import com.mysema.codegen.Evaluator;
+import com.mysema.query.JoinExpression;
+import com.mysema.query.JoinType;
+import com.mysema.query.QueryException;
+import com.mysema.query.QueryMetadata;
+import com.mysema.query.types.Constant;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.FactoryExpression;
+import com.mysema.query.types.Operation;
+import com.mysema.query.types.Operator;
+import com.mysema.query.types.Ops;
+import com.mysema.query.types.ParamExpression;
+import com.mysema.query.types.ParamNotSetException;
+import com.mysema.query.types.Path;
+import com.mysema.query.types.PathType;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.SubQueryExpression;
+import com.mysema.query.types.TemplateExpression;
+import com.mysema.query.types.Visitor;
+import com.mysema.util.MathUtils;
+import com.mysema.util.ReflectionUtils;
+
+/**
+ * InterpretingEvaluatorFactory creates {@link Evaluator} instances which evaluate query expressions
+ * without compilation.
+ *
+ * <p>Each expression is converted into a tree of closures with the accessors, constants and
+ * parameter values bound at creation time. Expressions which are not supported by the interpreter
+ * yield null, in which case compiled evaluators of {@link DefaultEvaluatorFactory} should be
+ * used instead.</p>
+ *
+ * <p>Operators are evaluated like in the Java source of the compiled evaluators. Comparisons and
+ * arithmetic of primitive and wrapper typed operands follow the Java operators, other operands
+ * are compared via equals and compareTo. Operations whose result depends on types which are
+ * only known to the compiler are not supported.</p>
+ *
+ * @author tiwe
+ *
+ */
+public class InterpretingEvaluatorFactory {
+
+    private interface Closure {
+
+        Object evaluate(Object[] row);
+    }
+
+    private interface UnaryFunction {
+
+        Object apply(Object arg);
+    }
+
+    private interface BinaryFunction {
+
+        Object apply(Object arg1, Object arg2);
+    }
+
+    private static final class UnsupportedExpressionException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+    private static final Set<Class<?>> CAST_TYPES = ImmutableSet.<Class<?>>of(Byte.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class);
+
+    private static final Set<Operator<?>> ARITHMETIC_OPS = ImmutableSet.<Operator<?>>of(
+            Ops.ADD, Ops.SUB, Ops.MULT, Ops.DIV);
+
+    // operators which CollQuerySerializer renders as Java operators for primitive operands
+    private static final Set<Operator<?>> SYMBOL_OPS = ImmutableSet.<Operator<?>>of(
+            Ops.EQ, Ops.NE, Ops.GT, Ops.LT, Ops.GOE, Ops.LOE, Ops.ADD, Ops.SUB, Ops.MULT, Ops.DIV);
+
+    private static final Map<Operator<?>, UnaryFunction> UNARY_FUNCTIONS = Maps.newIdentityHashMap();
+
+    private static final Map<Operator<?>, BinaryFunction> BINARY_FUNCTIONS = Maps.newIdentityHashMap();
+
+    static {
+        UNARY_FUNCTIONS.put(Ops.IS_NULL, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return arg == null;
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.IS_NOT_NULL, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return arg != null;
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.ORDINAL, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((Enum<?>)arg).ordinal();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.STRING_CAST, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return String.valueOf(arg);
+            }
+        });
+
+        // collection, array and map
+        UNARY_FUNCTIONS.put(Ops.COL_IS_EMPTY, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((Collection<?>)arg).isEmpty();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.COL_SIZE, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((Collection<?>)arg).size();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.ARRAY_SIZE, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return Array.getLength(arg);
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.MAP_IS_EMPTY, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((Map<?,?>)arg).isEmpty();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.MAP_SIZE, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((Map<?,?>)arg).size();
+            }
+        });
+
+        // String
+        UNARY_FUNCTIONS.put(Ops.LOWER, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((String)arg).toLowerCase();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.UPPER, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((String)arg).toUpperCase();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.TRIM, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((String)arg).trim();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.STRING_LENGTH, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((String)arg).length();
+            }
+        });
+        UNARY_FUNCTIONS.put(Ops.STRING_IS_EMPTY, new UnaryFunction() {
+            @Override
+            public Object apply(Object arg) {
+                return ((String)arg).isEmpty();
+            }
+        });
+
+        BINARY_FUNCTIONS.put(Ops.EQ, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return arg1.equals(arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.NE, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return !arg1.equals(arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.INSTANCE_OF, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((Class<?>)arg2).isInstance(arg1);
+            }
+        });
+
+        // Comparable
+        BINARY_FUNCTIONS.put(Ops.GT, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return compareTo(arg1, arg2) > 0;
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.LT, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return compareTo(arg1, arg2) < 0;
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.GOE, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return compareTo(arg1, arg2) >= 0;
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.LOE, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return compareTo(arg1, arg2) <= 0;
+            }
+        });
+
+        // collection and map
+        BINARY_FUNCTIONS.put(Ops.IN, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((Collection<?>)arg2).contains(arg1);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.NOT_IN, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return !((Collection<?>)arg2).contains(arg1);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.CONTAINS_KEY, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((Map<?,?>)arg1).containsKey(arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.CONTAINS_VALUE, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((Map<?,?>)arg1).containsValue(arg2);
+            }
+        });
+
+        // String
+        BINARY_FUNCTIONS.put(Ops.CONCAT, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return String.valueOf(arg1) + String.valueOf(arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.CHAR_AT, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).charAt(((Number)arg2).intValue());
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.SUBSTR_1ARG, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).substring(((Number)arg2).intValue());
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.INDEX_OF, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).indexOf((String)arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.EQ_IGNORE_CASE, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).equalsIgnoreCase((String)arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.STARTS_WITH, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).startsWith((String)arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.STARTS_WITH_IC, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).toLowerCase().startsWith(((String)arg2).toLowerCase());
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.ENDS_WITH, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).endsWith((String)arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.ENDS_WITH_IC, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).toLowerCase().endsWith(((String)arg2).toLowerCase());
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.STRING_CONTAINS, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).contains((String)arg2);
+            }
+        });
+        BINARY_FUNCTIONS.put(Ops.STRING_CONTAINS_IC, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).toLowerCase().contains(((String)arg2).toLowerCase());
+            }
+        });
+        BinaryFunction matches = new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return ((String)arg1).matches((String)arg2);
+            }
+        };
+        BINARY_FUNCTIONS.put(Ops.MATCHES, matches);
+        BINARY_FUNCTIONS.put(Ops.MATCHES_IC, matches);
+        BINARY_FUNCTIONS.put(Ops.LIKE, new BinaryFunction() {
+            @Override
+            public Object apply(Object arg1, Object arg2) {
+                return CollQueryFunctions.like((String)arg1, (String)arg2);
+            }
+        });
+    }
+
+    private static boolean isPrimitive(Class<?> type) {
+        return type.isPrimitive() || Primitives.isWrapperType(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareTo(Object arg1, Object arg2) {
+        return ((Comparable<Object>)arg1).compareTo(arg2);
+    }
+
+    private static Number unbox(Object arg) {
+        return arg instanceof Character ? Integer.valueOf((Character)arg) : (Number)arg;
+    }
+
+    /**
+     * Get the type of the operands after binary numeric promotion
+     */
+    private static Class<?> promote(Number num1, Number num2) {
+        if (num1 instanceof Double || num2 instanceof Double) {
+            return Double.class;
+        } else if (num1 instanceof Float || num2 instanceof Float) {
+            return Float.class;
+        } else if (num1 instanceof Long || num2 instanceof Long) {
+            return Long.class;
+        } else {
+            return Integer.class;
+        }
+    }
+
+    /**
+     * Compare the given operands like the Java comparison operators on primitive values
+     */
+    private static boolean compare(Operator<?> operator, Object arg1, Object arg2) {
+        int rv;
+        if (arg1 instanceof Boolean || arg2 instanceof Boolean) {
+            rv = ((Boolean)arg1).booleanValue() == ((Boolean)arg2).booleanValue() ? 0 : 1;
+        } else {
+            Number num1 = unbox(arg1), num2 = unbox(arg2);
+            Class<?> type = promote(num1, num2);
+            if (type.equals(Double.class)) {
+                double d1 = num1.doubleValue(), d2 = num2.doubleValue();
+                // NaN is neither less, equal nor greater
+                rv = d1 < d2 ? -1 : (d1 == d2 ? 0 : (d1 > d2 ? 1 : 2));
+            } else if (type.equals(Float.class)) {
+                float f1 = num1.floatValue(), f2 = num2.floatValue();
+                rv = f1 < f2 ? -1 : (f1 == f2 ? 0 : (f1 > f2 ? 1 : 2));
+            } else {
+                long l1 = num1.longValue(), l2 = num2.longValue();
+                rv = l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+            }
+        }
+        if (operator == Ops.EQ) {
+            return rv == 0;
+        } else if (operator == Ops.NE) {
+            return rv != 0;
+        } else if (operator == Ops.GT) {
+            return rv == 1;
+        } else if (operator == Ops.LT) {
+            return rv == -1;
+        } else if (operator == Ops.GOE) {
+            return rv == 0 || rv == 1;
+        } else {
+            return rv == 0 || rv == -1;
+        }
+    }
+
+    /**
+     * Apply the given operator like the Java arithmetic operators on primitive values
+     */
+    private static Number arithmetic(Operator<?> operator, Object arg1, Object arg2) {
+        Number num1 = unbox(arg1), num2 = unbox(arg2);
+        Class<?> type = promote(num1, num2);
+        if (type.equals(Double.class)) {
+            double d1 = num1.doubleValue(), d2 = num2.doubleValue();
+            if (operator == Ops.ADD) {
+                return d1 + d2;
+            } else if (operator == Ops.SUB) {
+                return d1 - d2;
+            } else if (operator == Ops.MULT) {
+                return d1 * d2;
+            } else {
+                return d1 / d2;
+            }
+        } else if (type.equals(Float.class)) {
+            float f1 = num1.floatValue(), f2 = num2.floatValue();
+            if (operator == Ops.ADD) {
+                return f1 + f2;
+            } else if (operator == Ops.SUB) {
+                return f1 - f2;
+            } else if (operator == Ops.MULT) {
+                return f1 * f2;
+            } else {
+                return f1 / f2;
+            }
+        } else if (type.equals(Long.class)) {
+            long l1 = num1.longValue(), l2 = num2.longValue();
+            if (operator == Ops.ADD) {
+                return l1 + l2;
+            } else if (operator == Ops.SUB) {
+                return l1 - l2;
+            } else if (operator == Ops.MULT) {
+                return l1 * l2;
+            } else {
+                return l1 / l2;
+            }
+        } else {
+            int i1 = num1.intValue(), i2 = num2.intValue();
+            if (operator == Ops.ADD) {
+                return i1 + i2;
+            } else if (operator == Ops.SUB) {
+                return i1 - i2;
+            } else if (operator == Ops.MULT) {
+                return i1 * i2;
+            } else {
+                return i1 / i2;
+            }
+        }
+    }
+
+    /**
+     * Apply the given operator via the methods of BigDecimal and BigInteger
+     */
+    private static Number arithmetic(Operator<?> operator, Number num1, Number num2) {
+        if (num1 instanceof BigDecimal) {
+            BigDecimal b1 = (BigDecimal)num1, b2 = (BigDecimal)num2;
+            if (operator == Ops.ADD) {
+                return b1.add(b2);
+            } else if (operator == Ops.SUB) {
+                return b1.subtract(b2);
+            } else if (operator == Ops.MULT) {
+                return b1.multiply(b2);
+            } else {
+                return b1.divide(b2);
+            }
+        } else {
+            BigInteger b1 = (BigInteger)num1, b2 = (BigInteger)num2;
+            if (operator == Ops.ADD) {
+                return b1.add(b2);
+            } else if (operator == Ops.SUB) {
+                return b1.subtract(b2);
+            } else if (operator == Ops.MULT) {
+                return b1.multiply(b2);
+            } else {
+                return b1.divide(b2);
+            }
+        }
+    }
+
+    private static boolean matches(Closure filter, Object[] row) {
+        try {
+            return Boolean.TRUE.equals(filter.evaluate(row));
+        } catch (NullPointerException e) {
+            // null values in paths exclude rows, like in compiled evaluators
+            return false;
+        }
+    }
+
+    /**
+     * Create an Evaluator for the given query sources and projection
+     *
+     * @param <T>
+     * @param sources
+     * @param projection
+     * @return evaluator or null, if the projection is not supported
+     */
+    @Nullable
+    public <T> Evaluator<T> create(QueryMetadata metadata, List<? extends Expression<?>> sources,
+            final Expression<T> projection) {
+        final Closure closure = convert(metadata, sources, projection);
+        if (closure == null) {
+            return null;
+        }
+        return new Evaluator<T>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public T evaluate(Object... args) {
+                return (T) closure.evaluate(args);
+            }
+            @Override
+            public Class<? extends T> getType() {
+                return projection.getType();
+            }
+        };
+    }
+
+    /**
+     * Create an Evaluator for the given source and filter
+     *
+     * @param <T>
+     * @param source
+     * @param filter
+     * @return evaluator or null, if the filter is not supported
+     */
+    @Nullable
+    public <T> Evaluator<List<T>> createEvaluator(QueryMetadata metadata,
+            Expression<? extends T> source, Predicate filter) {
+        final Closure closure = convert(metadata, Collections.singletonList(source), filter);
+        if (closure == null) {
+            return null;
+        }
+        return new Evaluator<List<T>>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public List<T> evaluate(Object... args) {
+                List<T> rv = new ArrayList<T>();
+                Object[] row = new Object[1];
+                for (Object obj : (Iterable<?>)args[0]) {
+                    row[0] = obj;
+                    if (matches(closure, row)) {
+                        rv.add((T)obj);
+                    }
+                }
+                return rv;
+            }
+            @SuppressWarnings("unchecked")
+            @Override
+            public Class<? extends List<T>> getType() {
+                return (Class)List.class;
+            }
+        };
+    }
+
+    /**
+     * Create an Evaluator for the given sources and the given optional filter
+     *
+     * @param joins
+     * @param filter
+     * @return evaluator or null, if the joins or the filter are not supported
+     */
+    @Nullable
+    public Evaluator<List<Object[]>> createEvaluator(QueryMetadata metadata,
+            List<JoinExpression> joins, @Nullable Predicate filter) {
+        final int size = joins.size();
+        final boolean[] leftJoins = new boolean[size];
+        final boolean[] mapJoins = new boolean[size];
+        final Closure[] targets = new Closure[size];
+        List<Expression<?>> sources = new ArrayList<Expression<?>>(size);
+        for (JoinExpression join : joins) {
+            if (join.getType() == JoinType.DEFAULT) {
+                sources.add(join.getTarget());
+            } else if (join.getType() == JoinType.INNERJOIN || join.getType() == JoinType.LEFTJOIN) {
+                if (CollQueryMixin.ANY.equals(join.getCondition())) {
+                    return null;
+                }
+                sources.add(((Operation<?>)join.getTarget()).getArg(1));
+            } else {
+                throw new IllegalArgumentException("Illegal join expression " + join);
+            }
+        }
+        int defaultJoins = 0;
+        final int[] argIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            JoinExpression join = joins.get(i);
+            if (join.getType() == JoinType.DEFAULT) {
+                argIndices[i] = defaultJoins++;
+            } else {
+                Expression<?> collection = ((Operation<?>)join.getTarget()).getArg(0);
+                targets[i] = convert(metadata, sources, collection);
+                if (targets[i] == null) {
+                    return null;
+                }
+                leftJoins[i] = join.getType() == JoinType.LEFTJOIN;
+                mapJoins[i] = collection.getType().equals(Map.class);
+            }
+        }
+        final Closure closure = filter != null ? convert(metadata, sources, filter) : null;
+        if (filter != null && closure == null) {
+            return null;
+        }
+
+        return new Evaluator<List<Object[]>>() {
+            @Override
+            public List<Object[]> evaluate(Object... args) {
+                List<Object[]> rv = new ArrayList<Object[]>();
+                join(0, args, new Object[size], rv);
+                return rv;
+            }
+
+            private void join(int i, Object[] args, Object[] row, List<Object[]> rv) {
+                if (i == size) {
+                    if (closure == null || matches(closure, row)) {
+                        rv.add(row.clone());
+                    }
+                    return;
+                }
+                Iterable<?> iterable;
+                if (targets[i] == null) {
+                    iterable = (Iterable<?>)args[argIndices[i]];
+                } else {
+                    Object value = targets[i].evaluate(row);
+                    Collection<?> collection = mapJoins[i] ? ((Map<?,?>)value).values() : (Collection<?>)value;
+                    iterable = leftJoins[i] ? CollQueryFunctions.leftJoin(collection) : collection;
+                }
+                for (Object obj : iterable) {
+                    row[i] = obj;
+                    join(i + 1, args, row, rv);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Class<? extends List<Object[]>> getType() {
+                return (Class)List.class;
+            }
+        };
+    }
+
+    @Nullable
+    private Closure convert(QueryMetadata metadata, List<? extends Expression<?>> sources,
+            Expression<?> expr) {
+        try {
+            return expr.accept(new ClosureVisitor(metadata, sources), null);
+        } catch (UnsupportedExpressionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * ClosureVisitor converts expressions into closures over the rows of the query sources
+     */
+    private static final class ClosureVisitor implements Visitor<Closure, Void> {
+
+        private final QueryMetadata metadata;
+
+        private final List<? extends Expression<?>> sources;
+
+        ClosureVisitor(QueryMetadata metadata, List<? extends Expression<?>> sources) {
+            this.metadata = metadata;
+            this.sources = sources;
+        }
+
+        private Closure value(final Object value) {
+            return new Closure() {
+                @Override
+                public Object evaluate(Object[] row) {
+                    return value;
+                }
+            };
+        }
+
+        private Closure[] convert(List<Expression<?>> args) {
+            Closure[] rv = new Closure[args.size()];
+            for (int i = 0; i < rv.length; i++) {
+                rv[i] = args.get(i).accept(this, null);
+            }
+            return rv;
+        }
+
+        @Override
+        public Closure visit(Constant<?> expr, Void context) {
+            return value(expr.getConstant());
+        }
+
+        @Override
+        public Closure visit(final FactoryExpression<?> expr, Void context) {
+            final Closure[] args = convert(expr.getArgs());
+            return new Closure() {
+                @Override
+                public Object evaluate(Object[] row) {
+                    Object[] values = new Object[args.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = args[i].evaluate(row);
+                    }
+                    return expr.newInstance(values);
+                }
+            };
+        }
+
+        @Override
+        public Closure visit(Operation<?> expr, Void context) {
+            final Operator<?> operator = expr.getOperator();
+            final Closure[] args = convert(expr.getArgs());
+            if (operator == Ops.AND) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        for (Closure arg : args) {
+                            if (!(Boolean)arg.evaluate(row)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                };
+            } else if (operator == Ops.OR) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        for (Closure arg : args) {
+                            if ((Boolean)arg.evaluate(row)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+                };
+            } else if (operator == Ops.NOT) {
+                final Closure arg = args[0];
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return !(Boolean)arg.evaluate(row);
+                    }
+                };
+            } else if (operator == Ops.BETWEEN) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        Object value = args[0].evaluate(row);
+                        return compareTo(value, args[1].evaluate(row)) >= 0
+                            && compareTo(value, args[2].evaluate(row)) <= 0;
+                    }
+                };
+            } else if (operator == Ops.SUBSTR_2ARGS) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return ((String)args[0].evaluate(row)).substring(
+                                ((Number)args[1].evaluate(row)).intValue(),
+                                ((Number)args[2].evaluate(row)).intValue());
+                    }
+                };
+            } else if (operator == Ops.NUMCAST) {
+                final Class<?> type = Primitives.wrap((Class<?>) ((Constant<?>)expr.getArg(1)).getConstant());
+                if (!CAST_TYPES.contains(type)) {
+                    throw new UnsupportedExpressionException();
+                }
+                final Closure arg = args[0];
+                return new Closure() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return MathUtils.cast((Number)arg.evaluate(row), (Class)type);
+                    }
+                };
+            } else if (SYMBOL_OPS.contains(operator) && isPrimitive(expr.getArg(0).getType())
+                    && isPrimitive(expr.getArg(1).getType())) {
+                return primitiveOperation(expr, args[0], args[1]);
+            } else if (ARITHMETIC_OPS.contains(operator)) {
+                Class<?> type = expr.getArg(0).getType();
+                if (!type.equals(expr.getArg(1).getType())
+                    || !(type.equals(BigDecimal.class) || type.equals(BigInteger.class))) {
+                    throw new UnsupportedExpressionException();
+                }
+                final Closure arg1 = args[0], arg2 = args[1];
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return arithmetic(operator, (Number)arg1.evaluate(row), (Number)arg2.evaluate(row));
+                    }
+                };
+            } else if (args.length == 1 && UNARY_FUNCTIONS.containsKey(operator)) {
+                final UnaryFunction function = UNARY_FUNCTIONS.get(operator);
+                final Closure arg = args[0];
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return function.apply(arg.evaluate(row));
+                    }
+                };
+            } else if (args.length == 2 && BINARY_FUNCTIONS.containsKey(operator)) {
+                final BinaryFunction function = BINARY_FUNCTIONS.get(operator);
+                final Closure arg1 = args[0], arg2 = args[1];
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return function.apply(arg1.evaluate(row), arg2.evaluate(row));
+                    }
+                };
+            } else {
+                throw new UnsupportedExpressionException();
+            }
+        }
+
+        /**
+         * Create a closure for an operation which CollQuerySerializer renders as a Java operator
+         */
+        private Closure primitiveOperation(Operation<?> expr, final Closure arg1, final Closure arg2) {
+            final Operator<?> operator = expr.getOperator();
+            if (ARITHMETIC_OPS.contains(operator)) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return arithmetic(operator, arg1.evaluate(row), arg2.evaluate(row));
+                    }
+                };
+            } else if ((operator == Ops.EQ || operator == Ops.NE)
+                    && !isUnboxed(expr.getArg(0), 0) && !isUnboxed(expr.getArg(1), 1)) {
+                // == and != compare references, if neither operand is primitive
+                if (!isBoxed(expr.getArg(0)) || !isBoxed(expr.getArg(1))) {
+                    throw new UnsupportedExpressionException();
+                }
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return (arg1.evaluate(row) == arg2.evaluate(row)) == (operator == Ops.EQ);
+                    }
+                };
+            } else {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return compare(operator, arg1.evaluate(row), arg2.evaluate(row));
+                    }
+                };
+            }
+        }
+
+        /**
+         * Get whether the given operand has a primitive type in the compiled source
+         */
+        private boolean isUnboxed(Expression<?> expr, int index) {
+            if (expr instanceof Constant) {
+                // constants as right hand operands are unboxed
+                return index == 1;
+            } else if (expr instanceof Operation) {
+                Operation<?> operation = (Operation<?>)expr;
+                return operation.getOperator() == Ops.NUMCAST
+                    || (SYMBOL_OPS.contains(operation.getOperator())
+                        && isPrimitive(operation.getArg(0).getType())
+                        && isPrimitive(operation.getArg(1).getType()));
+            } else {
+                Class<?> type = getCompiledType(expr);
+                return type != null && type.isPrimitive();
+            }
+        }
+
+        /**
+         * Get whether the given operand has a reference type in the compiled source
+         */
+        private boolean isBoxed(Expression<?> expr) {
+            Class<?> type = getCompiledType(expr);
+            return type != null && !type.isPrimitive();
+        }
+
+        /**
+         * Get the type of the property access in the compiled source or null, if unknown
+         */
+        @Nullable
+        private Class<?> getCompiledType(Expression<?> expr) {
+            if (!(expr instanceof Path) || ((Path<?>)expr).getMetadata().getPathType() != PathType.PROPERTY) {
+                return null;
+            }
+            Class<?> owner = ((Path<?>)expr).getMetadata().getParent().getType();
+            String property = ((Path<?>)expr).getMetadata().getName();
+            Method getter = getAccessor(owner, property);
+            if (getter != null && Modifier.isPublic(getter.getModifiers())) {
+                return getter.getReturnType();
+            }
+            try {
+                return owner.getField(property).getType();
+            } catch (NoSuchFieldException e) {
+                // accessed via reflection
+                return Object.class;
+            }
+        }
+
+        @Override
+        public Closure visit(ParamExpression<?> expr, Void context) {
+            Object value = metadata.getParams().get(expr);
+            if (value == null) {
+                throw new ParamNotSetException(expr);
+            }
+            return value(value);
+        }
+
+        @Override
+        public Closure visit(Path<?> expr, Void context) {
+            final PathType pathType = expr.getMetadata().getPathType();
+            final Path<?> parentPath = expr.getMetadata().getParent();
+            if (parentPath == null) {
+                final int index = sources.indexOf(expr);
+                if (index == -1) {
+                    throw new UnsupportedExpressionException();
+                }
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return row[index];
+                    }
+                };
+            }
+
+            final Closure parent = parentPath.accept(this, null);
+            final Object element = expr.getMetadata().getElement();
+            final Closure key = element instanceof Expression ?
+                    ((Expression<?>)element).accept(this, null) : value(element);
+            switch (pathType) {
+            case PROPERTY:
+                return property(parent, parentPath.getType(), (String)element);
+            case DELEGATE:
+                return parent;
+            case LISTVALUE:
+            case LISTVALUE_CONSTANT:
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return ((List<?>)parent.evaluate(row)).get(((Number)key.evaluate(row)).intValue());
+                    }
+                };
+            case MAPVALUE:
+            case MAPVALUE_CONSTANT:
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return ((Map<?,?>)parent.evaluate(row)).get(key.evaluate(row));
+                    }
+                };
+            case ARRAYVALUE:
+            case ARRAYVALUE_CONSTANT:
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        return Array.get(parent.evaluate(row), ((Number)key.evaluate(row)).intValue());
+                    }
+                };
+            default:
+                throw new UnsupportedExpressionException();
+            }
+        }
+
+        private Closure property(final Closure parent, Class<?> parentType, String property) {
+            final Method getter = getAccessor(parentType, property);
+            if (getter != null) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        Object obj = parent.evaluate(row);
+                        if (obj == null) {
+                            throw new NullPointerException();
+                        }
+                        try {
+                            return getter.invoke(obj);
+                        } catch (InvocationTargetException e) {
+                            if (e.getCause() instanceof RuntimeException) {
+                                throw (RuntimeException)e.getCause();
+                            }
+                            throw new QueryException(e.getCause());
+                        } catch (IllegalAccessException e) {
+                            throw new QueryException(e);
+                        }
+                    }
+                };
+            }
+            final Field field = getField(parentType, property);
+            if (field != null) {
+                return new Closure() {
+                    @Override
+                    public Object evaluate(Object[] row) {
+                        Object obj = parent.evaluate(row);
+                        if (obj == null) {
+                            throw new NullPointerException();
+                        }
+                        try {
+                            return field.get(obj);
+                        } catch (IllegalAccessException e) {
+                            throw new QueryException(e);
+                        }
+                    }
+                };
+            }
+            throw new UnsupportedExpressionException();
+        }
+
+        @Nullable
+        private Method getAccessor(Class<?> owner, String property) {
+            try {
+                BeanInfo beanInfo = Introspector.getBeanInfo(owner);
+                for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                    if (pd.getName().equals(property) && pd.getReadMethod() != null) {
+                        Method method = pd.getReadMethod();
+                        if (!Modifier.isPublic(method.getModifiers())
+                         || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                            method.setAccessible(true);
+                        }
+                        return method;
+                    }
+                }
+                return null;
+            } catch (IntrospectionException e) {
+                return null;
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+
+        @Nullable
+        private Field getField(Class<?> owner, String property) {
+            Field field = ReflectionUtils.getFieldOrNull(owner, property);
+            if (field != null) {
+                try {
+                    field.setAccessible(true);
+                } catch (SecurityException e) {
+                    return null;
+                }
+            }
+            return field;
+        }
+
+        @Override
+        public Closure visit(SubQueryExpression<?> expr, Void context) {
+            throw new UnsupportedExpressionException();
+        }
+
+        @Override
+        public Closure visit(TemplateExpression<?> expr, Void context) {
+            throw new UnsupportedExpressionException();
+        }
+
+    }
+
+}
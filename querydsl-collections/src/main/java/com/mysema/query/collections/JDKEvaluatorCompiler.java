@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.collections;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.mysema.codegen.CodegenException;
+import com.mysema.codegen.MemSourceFileObject;
+import com.mysema.codegen.SimpleCompiler;
+
+/**
+ * JDKEvaluatorCompiler is an {@link EvaluatorCompiler} which uses the javax.tools compiler
+ * of the running JDK and keeps the compiled classes in memory
+ *
+ * @author tiwe
+ *
+ */
+public class JDKEvaluatorCompiler implements EvaluatorCompiler {
+
+    private final JavaCompiler compiler;
+
+    private final StandardJavaFileManager fileManager;
+
+    private final List<String> compilationOptions;
+
+    public JDKEvaluatorCompiler(ClassLoader classLoader) {
+        this(classLoader, ToolProvider.getSystemJavaCompiler());
+    }
+
+    public JDKEvaluatorCompiler(ClassLoader classLoader, JavaCompiler compiler) {
+        if (compiler == null) {
+            throw new IllegalArgumentException("No Java compiler available");
+        }
+        String classpath;
+        if (classLoader instanceof URLClassLoader) {
+            classpath = SimpleCompiler.getClassPath((URLClassLoader) classLoader);
+        } else {
+            classpath = System.getProperty("java.class.path");
+        }
+        this.compiler = compiler;
+        this.fileManager = compiler.getStandardFileManager(null, null, null);
+        this.compilationOptions = Arrays.asList("-classpath", classpath, "-g:none");
+    }
+
+    @Override
+    public synchronized Map<String, byte[]> compile(String className, String source) throws IOException {
+        final Map<String, ByteArrayOutputStream> classes = new HashMap<String, ByteArrayOutputStream>();
+        JavaFileManager outputManager = new ForwardingJavaFileManager<JavaFileManager>(fileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, final String name,
+                    Kind kind, FileObject sibling) throws IOException {
+                URI uri = URI.create("mem:///" + name.replace('.', '/') + kind.extension);
+                return new SimpleJavaFileObject(uri, kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        classes.put(name, out);
+                        return out;
+                    }
+                };
+            }
+        };
+
+        StringWriter out = new StringWriter();
+        JavaFileObject file = new MemSourceFileObject(className, source);
+        if (!compiler.getTask(out, outputManager, null, compilationOptions, null,
+                Collections.singletonList(file)).call()) {
+            throw new CodegenException("Compilation of " + source + " failed.\n" + out.toString());
+        }
+
+        Map<String, byte[]> rv = new HashMap<String, byte[]>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : classes.entrySet()) {
+            rv.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return rv;
+    }
+
+}
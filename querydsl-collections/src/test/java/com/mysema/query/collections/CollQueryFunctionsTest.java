@@ -17,6 +17,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Field;
+import java.util.Date;
+
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -56,4 +59,16 @@ public class CollQueryFunctionsTest {
         assertTrue(CollQueryFunctions.like("$DOG", "$DOG"));
         assertTrue(CollQueryFunctions.like("$DOGabc", "$DOG%"));
     }
+
+    @Test
+    public void Get_Field() throws Exception {
+        Field field = StateHistory.class.getDeclaredField("changedAt");
+        field.setAccessible(true);
+        StateHistory history = new StateHistory();
+        assertNull(CollQueryFunctions.get(history, field));
+        Date date = new Date();
+        field.set(history, date);
+        assertEquals(date, CollQueryFunctions.get(history, field));
+        assertEquals(date, CollQueryFunctions.get(history, "changedAt"));
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mysema.codegen.Evaluator;
+import com.mysema.query.DefaultQueryMetadata;
+import com.mysema.query.QueryMetadata;
+import com.mysema.util.FileUtils;
+
+public class CompilingEvaluatorFactoryTest {
+
+    private final QueryMetadata metadata = new DefaultQueryMetadata();
+
+    private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+    private final File cacheDirectory = new File("target/evaluators");
+
+    private final QCat cat = QCat.cat;
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.delete(cacheDirectory);
+    }
+
+    @Test
+    public void Compile() {
+        CompilingEvaluatorFactory factory = new CompilingEvaluatorFactory(
+                new JDKEvaluatorCompiler(classLoader), classLoader);
+        assertEquals("Kitty", evaluate(factory, new Cat("Kitty")));
+        assertEquals("Bob", evaluate(factory, new Cat("Bob")));
+        assertEquals(1, factory.getCompilations());
+        assertTrue(!cacheDirectory.exists());
+    }
+
+    @Test
+    public void Compile_With_Cache() {
+        CompilingEvaluatorFactory factory = new CompilingEvaluatorFactory(
+                new JDKEvaluatorCompiler(classLoader), classLoader, cacheDirectory);
+        assertEquals("Kitty", evaluate(factory, new Cat("Kitty")));
+        assertEquals(1, factory.getCompilations());
+        assertEquals(1, cacheDirectory.list().length);
+        assertTrue(cacheDirectory.list()[0].endsWith(".jar"));
+
+        // classes are read from the cache directory
+        factory = new CompilingEvaluatorFactory(
+                new JDKEvaluatorCompiler(classLoader), classLoader, cacheDirectory);
+        assertEquals("Bob", evaluate(factory, new Cat("Bob")));
+        assertEquals(0, factory.getCompilations());
+    }
+
+    @Test
+    public void Query_With_Cache() {
+        List<Cat> cats = Arrays.asList(new Cat("Kitty"), new Cat("Bob"), new Cat("Alex"));
+        for (int i = 0; i < 2; i++) {
+            CompilingEvaluatorFactory factory = new CompilingEvaluatorFactory(
+                    new JDKEvaluatorCompiler(classLoader), classLoader, cacheDirectory);
+            QueryEngine queryEngine = new DefaultQueryEngine(
+                    new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT, factory));
+            List<String> names = new CollQuery(queryEngine).from(cat, cats)
+                    .where(cat.name.startsWith("A").or(cat.name.startsWith("B")))
+                    .orderBy(cat.name.asc())
+                    .list(cat.name);
+            assertEquals(Arrays.asList("Alex", "Bob"), names);
+            if (i == 0) {
+                assertTrue(factory.getCompilations() > 0);
+            } else {
+                // all classes are read from the cache directory
+                assertEquals(0, factory.getCompilations());
+            }
+        }
+    }
+
+    private Object evaluate(CompilingEvaluatorFactory factory, Cat c) {
+        DefaultEvaluatorFactory evaluatorFactory = new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT, factory);
+        Evaluator<String> evaluator = evaluatorFactory.create(metadata, Collections.singletonList(cat), cat.name);
+        return evaluator.evaluate(c);
+    }
+
+}
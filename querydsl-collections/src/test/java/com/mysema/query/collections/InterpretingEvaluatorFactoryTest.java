@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mysema.codegen.Evaluator;
+import com.mysema.query.DefaultQueryMetadata;
+import com.mysema.query.QueryMetadata;
+import com.mysema.query.Tuple;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.QTuple;
+import com.mysema.query.types.expr.BooleanExpression;
+import com.mysema.query.types.expr.Param;
+import com.mysema.query.types.template.BooleanTemplate;
+
+public class InterpretingEvaluatorFactoryTest {
+
+    private final QueryMetadata metadata = new DefaultQueryMetadata();
+
+    private final InterpretingEvaluatorFactory factory = new InterpretingEvaluatorFactory();
+
+    private final QCat cat = QCat.cat;
+
+    private final List<Cat> cats = Arrays.asList(new Cat("Bob", 1), new Cat("Kitty", 2),
+            new Cat("Alex", 3), new Cat(null, 4));
+
+    @Test
+    public void Filters() {
+        assertEquals(Arrays.asList("Bob"), filter(cat.name.eq("Bob")));
+        assertEquals(Arrays.asList("Kitty", "Alex"), filter(cat.name.ne("Bob")));
+        assertEquals(Arrays.asList("Bob", "Alex"), filter(cat.name.startsWith("A").or(cat.name.endsWith("b"))));
+        assertEquals(Arrays.asList("Kitty"), filter(cat.name.containsIgnoreCase("TT").and(cat.id.gt(1))));
+        assertEquals(Arrays.asList("Bob", "Kitty"), filter(cat.id.between(1, 2)));
+        assertEquals(Arrays.asList("Kitty", "Alex"), filter(cat.id.add(1).between(3, 4)));
+        assertEquals(Arrays.asList("Alex"), filter(cat.name.in("Alex", "Ann").and(cat.name.like("A%"))));
+        assertEquals(Arrays.asList("Bob", "Kitty", "Alex"), filter(cat.name.isNull().not()));
+        assertEquals(Arrays.asList("Bob"), filter(cat.name.length().eq(3).and(cat.name.lower().eq("bob"))));
+    }
+
+    @Test
+    public void Params() {
+        Param<String> name = new Param<String>(String.class, "name");
+        QueryMetadata md = new DefaultQueryMetadata();
+        md.setParam(name, "Kitty");
+        Evaluator<List<Cat>> evaluator = factory.createEvaluator(md, cat, cat.name.eq(name));
+        assertEquals(1, evaluator.evaluate(cats).size());
+    }
+
+    @Test
+    public void Projections() {
+        assertEquals("Bob!", project(cat.name.concat("!"), cats.get(0)));
+        assertEquals(6, project(cat.id.multiply(2), cats.get(2)));
+        Tuple tuple = (Tuple) project(new QTuple(cat.name, cat.id), cats.get(1));
+        assertEquals("Kitty", tuple.get(cat.name));
+        assertEquals(Integer.valueOf(2), tuple.get(cat.id));
+    }
+
+    @Test
+    public void Joins() {
+        Cat cat1 = new Cat("Bob");
+        cat1.setKittens(Arrays.asList(new Cat("Kitty"), new Cat("Alex")));
+        Cat cat2 = new Cat("Ann");
+        QCat kitten = new QCat("kitten");
+        QueryEngine queryEngine = new DefaultQueryEngine(
+                new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT), factory);
+        List<Tuple> rows = new CollQuery(queryEngine).from(cat, Arrays.asList(cat1, cat2))
+                .leftJoin(cat.kittens, kitten)
+                .list(cat.name, kitten.name);
+        assertEquals(3, rows.size());
+        assertEquals("Ann", rows.get(2).get(cat.name));
+        assertNull(rows.get(2).get(kitten.name));
+    }
+
+    @Test
+    public void Unsupported() {
+        Predicate template = BooleanTemplate.create("{0}.isEmpty()", cat.name);
+        assertNull(factory.createEvaluator(metadata, cat, template));
+        Expression<Boolean> any = cat.kittens.any().name.eq("Bob");
+        assertNull(factory.createEvaluator(metadata, cat, (Predicate)any));
+        assertNull(factory.createEvaluator(metadata, cat, cat.birthdate.year().eq(2000)));
+        // compiled as == on values of unknown static types
+        assertNull(factory.createEvaluator(metadata, cat, cat.name.length().eq(cat.name.length())));
+    }
+
+    @Test
+    public void Adaptive_Compilation() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        CompilingEvaluatorFactory compilingFactory = new CompilingEvaluatorFactory(
+                new JDKEvaluatorCompiler(classLoader), classLoader);
+        QueryEngine queryEngine = new DefaultQueryEngine(
+                new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT, compilingFactory), factory, 2, 100);
+        for (int i = 0; i < 3; i++) {
+            BooleanExpression filter = cat.name.startsWith(i % 2 == 0 ? "B" : "K");
+            assertEquals(1, new CollQuery(queryEngine).from(cat, cats).where(filter).count());
+            // the shape is compiled after two interpreted executions
+            assertEquals(i < 2 ? 0 : 1, compilingFactory.getCompilations());
+        }
+
+        // large sources are compiled right away
+        List<Cat> large = Collections.nCopies(100, cats.get(0));
+        assertEquals(100, new CollQuery(queryEngine).from(cat, large).where(cat.id.eq(1)).count());
+        assertEquals(2, compilingFactory.getCompilations());
+    }
+
+    @Test
+    public void Adaptive_Engine() {
+        assertSame(DefaultQueryEngine.getAdaptive(), DefaultQueryEngine.getAdaptive());
+        assertEquals(1, CollQueryFactory.from(DefaultQueryEngine.getAdaptive(), cat, cats)
+                .where(cat.name.startsWith("B")).count());
+    }
+
+    @Test
+    public void Mixed_Types() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        CompilingEvaluatorFactory compilingFactory = new CompilingEvaluatorFactory(
+                new JDKEvaluatorCompiler(classLoader), classLoader);
+        QueryEngine queryEngine = new DefaultQueryEngine(
+                new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT, compilingFactory), factory, 1, 100);
+        // long division of the int id, compared to an int constant
+        Predicate filter = cat.id.divide(2l).eq(1).and(cat.id.multiply(2l).gt(cat.id.add(1)));
+        List<String> interpreted = new CollQuery(queryEngine).from(cat, cats).where(filter).list(cat.name);
+        assertEquals(0, compilingFactory.getCompilations());
+        List<String> compiled = new CollQuery(queryEngine).from(cat, cats).where(filter).list(cat.name);
+        assertTrue(compilingFactory.getCompilations() > 0);
+        assertEquals(Arrays.asList("Kitty", "Alex"), compiled);
+        assertEquals(compiled, interpreted);
+    }
+
+    private List<String> filter(Predicate filter) {
+        Evaluator<List<Cat>> evaluator = factory.createEvaluator(metadata, cat, filter);
+        List<String> names = new ArrayList<String>();
+        for (Cat c : evaluator.evaluate(cats)) {
+            names.add(c.getName());
+        }
+        return names;
+    }
+
+    private Object project(Expression<?> projection, Cat c) {
+        Evaluator<?> evaluator = factory.create(metadata, Collections.singletonList(cat), projection);
+        return evaluator.evaluate(c);
+    }
+
+}
@@ -13,10 +13,15 @@
  */
 package com.mysema.query;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nullable;
 
 import com.google.common.base.Objects;
 import com.mysema.query.types.ExpressionUtils;
+import com.mysema.query.types.Operator;
+import com.mysema.query.types.Ops;
 import com.mysema.query.types.Predicate;
 import com.mysema.query.types.Visitor;
 
@@ -42,6 +47,13 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
     @Nullable
     private Predicate predicate;
 
+    // operator and args of a junction which is created lazily
+    @Nullable
+    private Operator<Boolean> junction;
+
+    @Nullable
+    private List<Predicate> args;
+
     /**
      * Create an empty BooleanBuilder
      */
@@ -58,8 +70,9 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
 
     @Override
     public <R,C> R accept(Visitor<R,C> v, C context) {
-        if (predicate != null) {
-            return predicate.accept(v, context);
+        Predicate value = getValue();
+        if (value != null) {
+            return value.accept(v, context);
         } else {
             return null;
         }
@@ -72,14 +85,7 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
      * @return
      */
     public BooleanBuilder and(@Nullable Predicate right) {
-        if (right != null) {
-            if (predicate == null) {
-                predicate = right;
-            } else {
-                predicate = ExpressionUtils.and(predicate, right);
-            }
-        }
-        return this;
+        return append(Ops.AND, right);
     }
 
     /**
@@ -106,9 +112,45 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
         return and(right.not());
     }
 
+    /**
+     * Append the given predicate to the junction of the given operator. Consecutive calls with
+     * the same operator only collect the arguments, the junction is created on access.
+     *
+     * @param operator AND or OR
+     * @param right
+     * @return
+     */
+    private BooleanBuilder append(Operator<Boolean> operator, @Nullable Predicate right) {
+        if (right != null) {
+            if (operator.equals(junction)) {
+                Predicate extracted = (Predicate)ExpressionUtils.extract(right);
+                if (extracted != null) {
+                    args.add(extracted);
+                    predicate = null;
+                }
+            } else {
+                Predicate value = getValue();
+                if (value == null) {
+                    predicate = right;
+                } else {
+                    junction = operator;
+                    args = new ArrayList<Predicate>();
+                    args.add(value);
+                    predicate = null;
+                    append(operator, right);
+                }
+            }
+        }
+        return this;
+    }
+
     @Override
     public BooleanBuilder clone() throws CloneNotSupportedException{
-        return (BooleanBuilder) super.clone();
+        BooleanBuilder clone = (BooleanBuilder) super.clone();
+        if (args != null) {
+            clone.args = new ArrayList<Predicate>(args);
+        }
+        return clone;
     }
 
     @Override
@@ -116,7 +158,7 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
         if (o == this) {
             return true;
         } else if (o instanceof BooleanBuilder) {
-            return Objects.equal(((BooleanBuilder)o).getValue(), predicate);
+            return Objects.equal(((BooleanBuilder)o).getValue(), getValue());
         } else {
             return false;
         }
@@ -124,12 +166,17 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
 
     @Nullable
     public Predicate getValue() {
+        if (predicate == null && junction != null) {
+            predicate = Ops.AND.equals(junction)
+                    ? ExpressionUtils.allOf(args) : ExpressionUtils.anyOf(args);
+        }
         return predicate;
     }
 
     @Override
     public int hashCode() {
-        return predicate != null ? predicate.hashCode() : 0;
+        Predicate value = getValue();
+        return value != null ? value.hashCode() : 0;
     }
 
     /**
@@ -138,14 +185,17 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
      * @return
      */
     public boolean hasValue() {
-        return predicate != null;
+        return getValue() != null;
     }
 
     @Override
     public BooleanBuilder not() {
-        if (predicate != null) {
-            predicate = predicate.not();
+        Predicate value = getValue();
+        if (value != null) {
+            predicate = value.not();
         }
+        junction = null;
+        args = null;
         return this;
     }
 
@@ -156,14 +206,7 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
      * @return
      */
     public BooleanBuilder or(@Nullable Predicate right) {
-        if (right != null) {
-            if (predicate == null) {
-                predicate = right;
-            } else {
-                predicate = ExpressionUtils.or(predicate, right);
-            }
-        }
-        return this;
+        return append(Ops.OR, right);
     }
 
     /**
@@ -197,7 +240,8 @@ public final class BooleanBuilder implements Predicate, Cloneable  {
 
     @Override
     public String toString() {
-        return predicate != null ? predicate.toString() : super.toString();
+        Predicate value = getValue();
+        return value != null ? value.toString() : super.toString();
     }
 
 }
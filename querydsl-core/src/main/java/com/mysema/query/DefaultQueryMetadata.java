@@ -15,10 +15,13 @@ package com.mysema.query;
 
 import static com.mysema.query.util.CollectionUtils.add;
 import static com.mysema.query.util.CollectionUtils.addSorted;
-import static com.mysema.query.util.CollectionUtils.copyOf;
-import static com.mysema.query.util.CollectionUtils.copyOfSorted;
 import static com.mysema.query.util.CollectionUtils.put;
+import static com.mysema.query.util.CollectionUtils.unmodifiableList;
+import static com.mysema.query.util.CollectionUtils.unmodifiableMap;
+import static com.mysema.query.util.CollectionUtils.unmodifiableSet;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +34,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.ExpressionUtils;
+import com.mysema.query.types.FingerprintVisitor;
+import com.mysema.query.types.Operation;
+import com.mysema.query.types.Ops;
 import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.ParamExpression;
 import com.mysema.query.types.ParamsVisitor;
@@ -88,6 +94,10 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
     
     private boolean validate = true;
     
+    // fingerprints of the clauses, maintained incrementally
+    private long joinsFingerprint, groupByFingerprint, havingFingerprint, orderByFingerprint,
+            projectionFingerprint, whereFingerprint, flagsFingerprint;
+    
     private static Predicate and(Predicate lhs, Predicate rhs) {
         if (lhs == null) {
             return rhs;
@@ -96,6 +106,46 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         }
     }
     
+    /**
+     * Mix the conjuncts of the given predicate into the fingerprint. Nested intersections are
+     * flattened, so that the fingerprint doesn't depend on how a filter was split into calls.
+     */
+    private static long and(long fingerprint, Predicate e) {
+        Deque<Expression<?>> stack = new ArrayDeque<Expression<?>>();
+        stack.push(e);
+        while (!stack.isEmpty()) {
+            Expression<?> arg = ExpressionUtils.extract(stack.pop());
+            if (arg == null) {
+                continue;
+            } else if (arg instanceof Operation<?> && ((Operation<?>)arg).getOperator() == Ops.AND) {
+                List<Expression<?>> nested = ((Operation<?>)arg).getArgs();
+                for (int i = nested.size() - 1; i >= 0; i--) {
+                    stack.push(nested.get(i));
+                }
+            } else {
+                fingerprint = FingerprintVisitor.mix(fingerprint, FingerprintVisitor.fingerprint(arg));
+            }
+        }
+        return fingerprint;
+    }
+    
+    private static long fingerprint(JoinExpression join) {
+        long hash = FingerprintVisitor.mix(FingerprintVisitor.fingerprint(join.getTarget()), 
+                join.getType().name());
+        hash = FingerprintVisitor.mix(hash, FingerprintVisitor.fingerprint(join.getCondition()));
+        for (JoinFlag flag : join.getFlags()) {
+            hash = FingerprintVisitor.mix(hash, flag.getPosition().name());
+            hash = FingerprintVisitor.mix(hash, FingerprintVisitor.fingerprint(flag.getFlag()));
+        }
+        return hash;
+    }
+    
+    private static long fingerprint(OrderSpecifier<?> order) {
+        long hash = FingerprintVisitor.fingerprint(order.getTarget());
+        hash = FingerprintVisitor.mix(hash, order.getOrder().name());
+        return FingerprintVisitor.mix(hash, order.getNullHandling().name());
+    }
+    
     /**
      * Create an empty DefaultQueryMetadata instance
      */
@@ -114,7 +164,13 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
 
     @Override
     public void addFlag(QueryFlag flag) {
-        flags = addSorted(flags, flag);        
+        final int size = flags.size();
+        flags = addSorted(flags, flag);
+        if (flags.size() > size) {
+            flagsFingerprint = FingerprintVisitor.mix(flagsFingerprint, flag.getPosition().name());
+            flagsFingerprint = FingerprintVisitor.mix(flagsFingerprint, 
+                    FingerprintVisitor.fingerprint(flag.getFlag()));
+        }
     }
     
     @Override
@@ -127,6 +183,7 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         addLastJoin();
         validate(o);
         groupBy = add(groupBy, o);
+        groupByFingerprint = FingerprintVisitor.mix(groupByFingerprint, FingerprintVisitor.fingerprint(o));
     }
 
     @Override
@@ -138,6 +195,7 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         e = (Predicate)ExpressionUtils.extract(e);
         if (e != null) {
             validate(e);
+            havingFingerprint = and(havingFingerprint, e);
             having = and(having, e);
         }
     }
@@ -146,7 +204,9 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         if (joinTarget == null) {
             return;
         }                             
-        joins = add(joins, new JoinExpression(joinType, joinTarget, joinCondition, joinFlags));
+        JoinExpression join = new JoinExpression(joinType, joinTarget, joinCondition, joinFlags);
+        joins = add(joins, join);
+        joinsFingerprint = FingerprintVisitor.mix(joinsFingerprint, fingerprint(join));
         
         joinType = null;
         joinTarget = null;
@@ -182,6 +242,7 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         // order specifiers can't be validated, since they can refer to projection elements
         // that are declared later
         orderBy = add(orderBy, o);
+        orderByFingerprint = FingerprintVisitor.mix(orderByFingerprint, fingerprint(o));
     }
 
     @Override
@@ -189,6 +250,7 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         addLastJoin();
         validate(o);
         projection = add(projection, o);
+        projectionFingerprint = FingerprintVisitor.mix(projectionFingerprint, FingerprintVisitor.fingerprint(o));
     }
 
     @Override
@@ -200,37 +262,43 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         e = (Predicate)ExpressionUtils.extract(e);
         if (e != null) {
             validate(e);
+            whereFingerprint = and(whereFingerprint, e);
             where = and(where, e);
         }
     }
 
     public void clearOrderBy() {
         orderBy = ImmutableList.of();
+        orderByFingerprint = 0l;
     }
 
     public void clearProjection() {
         projection = ImmutableList.of();
+        projectionFingerprint = 0l;
     }
 
     public void clearWhere() {
-        where = new BooleanBuilder();
+        where = null;
+        whereFingerprint = 0l;
     }
 
+    /**
+     * Create a clone of this instance. The collections of this instance are made unmodifiable
+     * and shared with the clone, they are copied by either of the instances only when modified.
+     * Repeated cloning of the same instance doesn't copy any collections.
+     */
     @Override
     public QueryMetadata clone() {
         try {
-            DefaultQueryMetadata clone = (DefaultQueryMetadata) super.clone();
-            clone.exprInJoins = copyOf(exprInJoins);
-            clone.groupBy = copyOf(groupBy);
-            clone.having = having;
-            clone.joins = copyOf(joins);
-            clone.modifiers = modifiers;
-            clone.orderBy = copyOf(orderBy);
-            clone.projection = copyOf(projection);
-            clone.params = copyOf(params);
-            clone.where = where;
-            clone.flags = copyOfSorted(flags);
-            return clone;
+            exprInJoins = unmodifiableSet(exprInJoins);
+            groupBy = unmodifiableList(groupBy);
+            joins = unmodifiableList(joins);
+            joinFlags = unmodifiableSet(joinFlags);
+            orderBy = unmodifiableList(orderBy);
+            projection = unmodifiableList(projection);
+            params = unmodifiableMap(params);
+            flags = unmodifiableSet(flags);
+            return (DefaultQueryMetadata) super.clone();
         } catch (CloneNotSupportedException e) {
             throw new QueryException(e);
         }
@@ -241,6 +309,22 @@ public class DefaultQueryMetadata implements QueryMetadata, Cloneable {
         return groupBy;
     }
 
+    @Override
+    public long getFingerprint() {
+        addLastJoin();
+        long hash = FingerprintVisitor.mix(joinsFingerprint, whereFingerprint);
+        hash = FingerprintVisitor.mix(hash, groupByFingerprint);
+        hash = FingerprintVisitor.mix(hash, havingFingerprint);
+        hash = FingerprintVisitor.mix(hash, orderByFingerprint);
+        hash = FingerprintVisitor.mix(hash, projectionFingerprint);
+        hash = FingerprintVisitor.mix(hash, flagsFingerprint);
+        int bits = (distinct ? 1 : 0) | (unique ? 2 : 0);
+        if (modifiers != null) {
+            bits |= (modifiers.getLimit() != null ? 4 : 0) | (modifiers.getOffset() != null ? 8 : 0);
+        }
+        return FingerprintVisitor.mix(hash, bits);
+    }
+
     @Override
     public Predicate getHaving() {
         return having;
@@ -200,4 +200,9 @@ public final class EmptyMetadata implements QueryMetadata {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public long getFingerprint() {
+        return 0l;
+    }
+
 }
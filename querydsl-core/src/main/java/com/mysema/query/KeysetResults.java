@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * KeysetResults bundles a page of keyset paginated results with the cursor for the next page
+ *
+ * @author tiwe
+ *
+ * @param <T> result type
+ */
+public final class KeysetResults<T> {
+
+    private static final KeysetResults<Object> EMPTY = new KeysetResults<Object>(
+            ImmutableList.of(), null);
+
+    @SuppressWarnings("unchecked")
+    public static <T> KeysetResults<T> emptyResults() {
+        return (KeysetResults<T>)EMPTY;
+    }
+
+    private final List<T> results;
+
+    @Nullable
+    private final Tuple next;
+
+    /**
+     * Create a new KeysetResults instance
+     *
+     * @param results paged results
+     * @param next order target values of the last row or null, if this is the last page
+     */
+    public KeysetResults(List<T> results, @Nullable Tuple next) {
+        this.results = results;
+        this.next = next;
+    }
+
+    /**
+     * Get the results in List form
+     *
+     * An empty list is returned for no results.
+     *
+     * @return
+     */
+    public List<T> getResults() {
+        return results;
+    }
+
+    /**
+     * Get the cursor for the next page
+     *
+     * @return order target values of the last row or null, if this is the last page
+     */
+    @Nullable
+    public Tuple getNext() {
+        return next;
+    }
+
+    /**
+     * @return
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isEmpty() {
+        return results.isEmpty();
+    }
+
+}
@@ -241,4 +241,13 @@ public interface QueryMetadata extends Serializable {
      * @param v
      */
     void setValidate(boolean v);
+
+    /**
+     * Get a stable 64-bit hash of the structure of this query. Constant values are replaced
+     * by placeholders of their type, so queries which differ only in constant values have
+     * the same fingerprint.
+     *
+     * @return
+     */
+    long getFingerprint();
 }
@@ -39,6 +39,14 @@ public @interface Config {
      */
     boolean entityAccessors() default false;
 
+    /**
+     * Create lazily initialized accessors for entity and collection paths. Properties whose
+     * accessor would clash with a path method, such as count or isNull, stay fields.
+     *
+     * @return
+     */
+    boolean lazyInit() default false;
+
     /**
      * Create accessors for indexed list access
      *
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.mysema.query.KeysetResults;
+import com.mysema.query.Projectable;
+import com.mysema.query.Query;
+import com.mysema.query.Tuple;
+import com.mysema.query.types.ConstantImpl;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.ExpressionUtils;
+import com.mysema.query.types.Ops;
+import com.mysema.query.types.OrderSpecifier;
+import com.mysema.query.types.OrderSpecifier.NullHandling;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.PredicateOperation;
+import com.mysema.query.types.QTuple;
+import com.mysema.query.types.template.BooleanTemplate;
+
+/**
+ * Keyset provides keyset (seek) pagination support. Instead of skipping rows via an offset, the
+ * next page is restricted to the rows ordered after the last seen row.
+ *
+ * <p>The last seen row is given as a {@link Tuple} of the order target values in the order of the
+ * order specifiers. NULL values are ordered as declared via {@link OrderSpecifier#nullsFirst()} and
+ * {@link OrderSpecifier#nullsLast()}. For the default null handling the ordering of NULLs in
+ * ascending and descending order needs to be given, since it differs between databases. Without it
+ * NULLs are treated as greater than other values.</p>
+ *
+ * @author tiwe
+ *
+ */
+public final class Keyset {
+
+    private static final Predicate NONE = BooleanTemplate.create("1 = 2");
+
+    /**
+     * Create a predicate for the rows ordered after the given row
+     *
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row
+     * @return
+     */
+    public static Predicate after(List<? extends OrderSpecifier<?>> order, Tuple lastSeen) {
+        return after(order, lastSeen, false);
+    }
+
+    /**
+     * Create a predicate for the rows ordered after the given row
+     *
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row
+     * @param rowValues true, if row value comparisons such as {@code (a, b) > (?, ?)} may be used
+     * @return
+     */
+    public static Predicate after(List<? extends OrderSpecifier<?>> order, Tuple lastSeen,
+            boolean rowValues) {
+        return after(order, lastSeen, rowValues, false, true);
+    }
+
+    /**
+     * Create a predicate for the rows ordered after the given row
+     *
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row
+     * @param rowValues true, if row value comparisons such as {@code (a, b) > (?, ?)} may be used
+     * @param nullsFirstAsc true, if NULLs are ordered first in ascending order by default
+     * @param nullsFirstDesc true, if NULLs are ordered first in descending order by default
+     * @return
+     */
+    public static Predicate after(List<? extends OrderSpecifier<?>> order, Tuple lastSeen,
+            boolean rowValues, boolean nullsFirstAsc, boolean nullsFirstDesc) {
+        Predicate predicate = createPredicate(order, lastSeen, rowValues, nullsFirstAsc,
+                nullsFirstDesc);
+        return predicate != null ? predicate : NONE;
+    }
+
+    /**
+     * Get the page of the given projection following the given row
+     *
+     * @param query query to be paged
+     * @param projection projection
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row or null for the first page
+     * @param limit page size
+     * @return
+     */
+    public static <Q extends Query<Q> & Projectable, T> KeysetResults<T> list(Q query,
+            Expression<T> projection, List<? extends OrderSpecifier<?>> order,
+            @Nullable Tuple lastSeen, int limit) {
+        return list(query, projection, order, lastSeen, limit, false);
+    }
+
+    /**
+     * Get the page of the given projection following the given row
+     *
+     * @param query query to be paged
+     * @param projection projection
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row or null for the first page
+     * @param limit page size
+     * @param rowValues true, if row value comparisons such as {@code (a, b) > (?, ?)} may be used
+     * @return
+     */
+    public static <Q extends Query<Q> & Projectable, T> KeysetResults<T> list(Q query,
+            Expression<T> projection, List<? extends OrderSpecifier<?>> order,
+            @Nullable Tuple lastSeen, int limit, boolean rowValues) {
+        return list(query, projection, order, lastSeen, limit, rowValues, false, true);
+    }
+
+    /**
+     * Get the page of the given projection following the given row
+     *
+     * @param query query to be paged
+     * @param projection projection
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row or null for the first page
+     * @param limit page size
+     * @param rowValues true, if row value comparisons such as {@code (a, b) > (?, ?)} may be used
+     * @param nullsFirstAsc true, if NULLs are ordered first in ascending order by default
+     * @param nullsFirstDesc true, if NULLs are ordered first in descending order by default
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <Q extends Query<Q> & Projectable, T> KeysetResults<T> list(Q query,
+            Expression<T> projection, List<? extends OrderSpecifier<?>> order,
+            @Nullable Tuple lastSeen, int limit, boolean rowValues, boolean nullsFirstAsc,
+            boolean nullsFirstDesc) {
+        if (order.isEmpty()) {
+            throw new IllegalArgumentException("No order specifiers given");
+        }
+        if (lastSeen != null) {
+            Predicate predicate = createPredicate(order, lastSeen, rowValues, nullsFirstAsc,
+                    nullsFirstDesc);
+            if (predicate == null) {
+                return KeysetResults.emptyResults();
+            }
+            query.where(predicate);
+        }
+        ImmutableList.Builder<Expression<?>> args = ImmutableList.builder();
+        args.add(projection);
+        for (OrderSpecifier<?> os : order) {
+            args.add(os.getTarget());
+        }
+        ImmutableList<Expression<?>> exprs = args.build();
+        query.orderBy(order.toArray(new OrderSpecifier<?>[order.size()]));
+        query.limit(limit);
+
+        List<Tuple> rows = query.list(new QTuple(exprs));
+        List<T> results = new ArrayList<T>(rows.size());
+        for (Tuple row : rows) {
+            results.add((T) row.toArray()[0]);
+        }
+        Tuple next = null;
+        if (!rows.isEmpty() && rows.size() == limit) {
+            Object[] last = rows.get(rows.size() - 1).toArray();
+            Object[] values = new Object[order.size()];
+            System.arraycopy(last, 1, values, 0, values.length);
+            next = new QTuple(exprs.subList(1, last.length)).newInstance(values);
+        }
+        return new KeysetResults<T>(Collections.unmodifiableList(results), next);
+    }
+
+    @Nullable
+    private static Predicate createPredicate(List<? extends OrderSpecifier<?>> order, Tuple lastSeen,
+            boolean rowValues, boolean nullsFirstAsc, boolean nullsFirstDesc) {
+        if (order.size() != lastSeen.size()) {
+            throw new IllegalArgumentException("Expected " + order.size() + " values, got " +
+                    lastSeen.size());
+        }
+        if (rowValues && order.size() > 1
+                && isRowValueComparable(order, lastSeen, nullsFirstAsc, nullsFirstDesc)) {
+            Expression<?>[] targets = new Expression<?>[order.size()];
+            Expression<?>[] values = new Expression<?>[order.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = order.get(i).getTarget();
+                values[i] = new ConstantImpl<Object>(lastSeen.get(i, Object.class));
+            }
+            return PredicateOperation.create(order.get(0).isAscending() ? Ops.GT : Ops.LT,
+                    ExpressionUtils.list(Object.class, targets),
+                    ExpressionUtils.list(Object.class, values));
+        }
+
+        // expanded form : a > ? or (a = ? and (b > ? or (b = ? and ...)))
+        Predicate rest = null;
+        for (int i = order.size() - 1; i >= 0; i--) {
+            OrderSpecifier<?> os = order.get(i);
+            Expression<?> target = os.getTarget();
+            Object value = lastSeen.get(i, Object.class);
+            Predicate after, same;
+            if (value != null) {
+                after = PredicateOperation.create(os.isAscending() ? Ops.GT : Ops.LT, target,
+                        new ConstantImpl<Object>(value));
+                if (!isNullsFirst(os, nullsFirstAsc, nullsFirstDesc)) {
+                    after = ExpressionUtils.or(after, ExpressionUtils.isNull(target));
+                }
+                same = PredicateOperation.create(Ops.EQ, target, new ConstantImpl<Object>(value));
+            } else {
+                after = isNullsFirst(os, nullsFirstAsc, nullsFirstDesc) ? ExpressionUtils.isNotNull(target) : null;
+                same = ExpressionUtils.isNull(target);
+            }
+            if (rest != null) {
+                Predicate next = ExpressionUtils.and(same, rest);
+                rest = after != null ? ExpressionUtils.or(after, next) : next;
+            } else {
+                rest = after;
+            }
+        }
+        return rest;
+    }
+
+    private static boolean isRowValueComparable(List<? extends OrderSpecifier<?>> order, Tuple lastSeen,
+            boolean nullsFirstAsc, boolean nullsFirstDesc) {
+        // NULL keys are excluded by row value comparisons, so they need to be ordered first
+        boolean asc = order.get(0).isAscending();
+        for (int i = 0; i < order.size(); i++) {
+            OrderSpecifier<?> os = order.get(i);
+            if (os.isAscending() != asc || !isNullsFirst(os, nullsFirstAsc, nullsFirstDesc) || lastSeen.get(i, Object.class) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNullsFirst(OrderSpecifier<?> os, boolean nullsFirstAsc,
+            boolean nullsFirstDesc) {
+        if (os.getNullHandling() == NullHandling.Default) {
+            return os.isAscending() ? nullsFirstAsc : nullsFirstDesc;
+        } else {
+            return os.getNullHandling() == NullHandling.NullsFirst;
+        }
+    }
+
+    private Keyset() {}
+
+}
@@ -81,7 +81,7 @@ public final class Normalization {
         }        
     }    
     
-    private static final boolean hasOperators(String queryString) {
+    static final boolean hasOperators(CharSequence queryString) {
         for (int i = 0; i < queryString.length(); i++) {
             char ch = queryString.charAt(i);
             if (ch == '+' || ch == '-' || ch == '*' || ch == '/') {
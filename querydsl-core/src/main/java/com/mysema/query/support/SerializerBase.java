@@ -13,6 +13,7 @@
  */
 package com.mysema.query.support;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,7 @@ import com.mysema.query.types.Expression;
 import com.mysema.query.types.FactoryExpression;
 import com.mysema.query.types.Operation;
 import com.mysema.query.types.Operator;
+import com.mysema.query.types.Ops;
 import com.mysema.query.types.ParamExpression;
 import com.mysema.query.types.Path;
 import com.mysema.query.types.PathType;
@@ -94,6 +96,38 @@ public abstract class SerializerBase<S extends SerializerBase<S>> implements Vis
         return builder.length();
     }
 
+    /**
+     * Ensure that the serialized content can grow to the given length without copying
+     *
+     * @param length expected length of the serialized content
+     * @return
+     */
+    public final S ensureCapacity(int length) {
+        builder.ensureCapacity(length);
+        return self;
+    }
+
+    /**
+     * Clear the serialized content and the constant labels, so that this serializer can be
+     * reused. The capacity of the buffer is retained.
+     */
+    public void reset() {
+        builder.setLength(0);
+        if (constantToLabel != null) {
+            constantToLabel.clear();
+        }
+    }
+
+    /**
+     * Get the serialized content from the given position on
+     *
+     * @param start
+     * @return
+     */
+    protected final String substring(int start) {
+        return builder.substring(start);
+    }
+
     protected final Template getTemplate(Operator<?> op) {
         return templates.getTemplate(op);
     }
@@ -191,6 +225,21 @@ public abstract class SerializerBase<S extends SerializerBase<S>> implements Vis
         this.strict = strict;
     }
 
+    /**
+     * Write the serialized content to the given Appendable. Unlike {@link #toString()} this
+     * doesn't create an intermediate String, unless the content needs to be normalized.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if (normalize && Normalization.hasOperators(builder)) {
+            out.append(Normalization.normalize(builder.toString()));
+        } else {
+            out.append(builder);
+        }
+    }
+
     @Override
     public String toString() {
         if (normalize) {
@@ -201,7 +250,7 @@ public abstract class SerializerBase<S extends SerializerBase<S>> implements Vis
     }
 
     @Override
-    public final Void visit(Constant<?> expr, Void context) {
+    public Void visit(Constant<?> expr, Void context) {
         visitConstant(expr.getConstant());
         return null;
     }
@@ -262,9 +311,51 @@ public abstract class SerializerBase<S extends SerializerBase<S>> implements Vis
         return null;
     }
     
+    /**
+     * Serialize the n-ary AND or OR operation with the given binary template as if it were
+     * a left-deep chain of binary operations
+     *
+     * @param template binary template
+     * @param precedence precedence of the operation
+     * @param args arguments
+     */
+    private void visitJunction(Template template, int precedence, List<? extends Expression<?>> args) {
+        final List<Template.Element> elements = template.getElements();
+        final int first = template.indexOfArgument(0), second = template.indexOfArgument(1);
+        if (first < 0 || second < first) {
+            throw new IllegalArgumentException("Unsupported template " + template);
+        }
+        for (int i = 1; i < args.size(); i++) {
+            appendElements(elements, 0, first, args);
+        }
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0) {
+                appendElements(elements, first + 1, second, args);
+            }
+            final Expression<?> expr = args.get(i);
+            if (precedence > -1 && expr instanceof Operation
+             && precedence < templates.getPrecedence(((Operation<?>) expr).getOperator())) {
+                append("(").handle(expr).append(")");
+            } else {
+                handle(expr);
+            }
+            if (i > 0) {
+                appendElements(elements, second + 1, elements.size(), args);
+            }
+        }
+    }
+
+    private void appendElements(List<Template.Element> elements, int from, int to, List<?> args) {
+        for (int i = from; i < to; i++) {
+            append(elements.get(i).convert(args).toString());
+        }
+    }
+
     protected void visitOperation(Class<?> type, Operator<?> operator, final List<? extends Expression<?>> args) {
         final Template template = templates.getTemplate(operator);
-        if (template != null) {
+        if (template != null && args.size() > 2 && (operator == Ops.AND || operator == Ops.OR)) {
+            visitJunction(template, templates.getPrecedence(operator), args);
+        } else if (template != null) {
             final int precedence = templates.getPrecedence(operator);        
             for (final Template.Element element : template.getElements()) {
                 final Object rv = element.convert(args);
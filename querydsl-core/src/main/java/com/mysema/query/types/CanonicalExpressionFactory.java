@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.types;
+
+import java.util.List;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * CanonicalExpressionFactory is an opt-in factory for canonical {@link Constant}, {@link Operation}
+ * and {@link Predicate} instances. Equal expressions created or interned via the same factory are
+ * the same instance, so repeated sub-expressions are shared and equality checks of canonical
+ * expressions mostly resolve to identity checks.
+ *
+ * <p>Canonical instances are weakly referenced and are released once they are no longer used.</p>
+ *
+ * @author tiwe
+ *
+ */
+@ThreadSafe
+@SuppressWarnings("unchecked")
+public final class CanonicalExpressionFactory {
+
+    /**
+     * Default instance
+     */
+    public static final CanonicalExpressionFactory DEFAULT = new CanonicalExpressionFactory();
+
+    private final Interner<Constant<?>> constants = Interners.newWeakInterner();
+
+    private final Interner<Operation<?>> operations = Interners.newWeakInterner();
+
+    private final Interner<Predicate> predicates = Interners.newWeakInterner();
+
+    /**
+     * Get the canonical constant for the given value
+     *
+     * @param value
+     * @return
+     */
+    public <T> Constant<T> constant(T value) {
+        return (Constant<T>) constants.intern(new ConstantImpl<T>(value));
+    }
+
+    /**
+     * Get the canonical operation for the given type, operator and arguments
+     *
+     * @param type
+     * @param operator
+     * @param args
+     * @return
+     */
+    public <T> Operation<T> operation(Class<? extends T> type, Operator<? super T> operator,
+            Expression<?>... args) {
+        return (Operation<T>) operations.intern(
+                new OperationImpl<T>(type, operator, internAll(ImmutableList.copyOf(args))));
+    }
+
+    /**
+     * Get the canonical predicate for the given operator and arguments
+     *
+     * @param operator
+     * @param args
+     * @return
+     */
+    public Predicate predicate(Operator<Boolean> operator, Expression<?>... args) {
+        return predicates.intern(
+                new PredicateOperation(operator, internAll(ImmutableList.copyOf(args))));
+    }
+
+    /**
+     * Get the canonical form of the given predicate
+     *
+     * @param predicate
+     * @return
+     */
+    public Predicate intern(Predicate predicate) {
+        if (predicate instanceof Operation<?>) {
+            Operation<Boolean> operation = (Operation<Boolean>)predicate;
+            ImmutableList<Expression<?>> args = internAll(operation.getArgs());
+            if (predicate.getClass() != PredicateOperation.class || args != operation.getArgs()) {
+                predicate = new PredicateOperation((Operator<Boolean>)operation.getOperator(), args);
+            }
+            return predicates.intern(predicate);
+        } else {
+            return predicate;
+        }
+    }
+
+    /**
+     * Get the canonical form of the given expression. Constants and operations are interned
+     * including their arguments, other expressions are returned as such.
+     *
+     * @param expr
+     * @return
+     */
+    public <T> Expression<T> intern(Expression<T> expr) {
+        if (expr instanceof Predicate) {
+            return (Expression<T>) intern((Predicate)expr);
+        } else if (expr instanceof Operation<?>) {
+            Operation<T> operation = (Operation<T>)expr;
+            ImmutableList<Expression<?>> args = internAll(operation.getArgs());
+            if (expr.getClass() != OperationImpl.class || args != operation.getArgs()) {
+                expr = new OperationImpl<T>(operation.getType(), operation.getOperator(), args);
+            }
+            return (Expression<T>) operations.intern((Operation<?>)expr);
+        } else if (expr instanceof ConstantImpl<?>
+                && expr.getType().equals(((Constant<?>)expr).getConstant().getClass())) {
+            return (Expression<T>) constants.intern((Constant<?>)expr);
+        } else {
+            return expr;
+        }
+    }
+
+    private ImmutableList<Expression<?>> internAll(List<Expression<?>> args) {
+        Expression<?>[] interned = null;
+        for (int i = 0; i < args.size(); i++) {
+            Expression<?> arg = args.get(i);
+            Expression<?> canonical = intern(arg);
+            if (canonical != arg && interned == null) {
+                interned = args.toArray(new Expression<?>[args.size()]);
+            }
+            if (interned != null) {
+                interned[i] = canonical;
+            }
+        }
+        if (interned != null) {
+            return ImmutableList.copyOf(interned);
+        } else if (args instanceof ImmutableList) {
+            return (ImmutableList<Expression<?>>)args;
+        } else {
+            return ImmutableList.copyOf(args);
+        }
+    }
+
+}
@@ -13,7 +13,11 @@
  */
 package com.mysema.query.types;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -53,37 +57,27 @@ public final class ExpressionUtils {
     }
             
     /**
-     * Create the intersection of the given arguments
+     * Create the intersection of the given arguments. Nested intersections are flattened
+     * into a single n-ary operation.
      * 
      * @param exprs
      * @return
      */
     @Nullable
     public static Predicate allOf(Collection<Predicate> exprs) {
-        Predicate rv = null;
-        for (Predicate b : exprs) {
-            if (b != null) {
-                rv = rv == null ? b : ExpressionUtils.and(rv,b);    
-            }            
-        }
-        return rv;
+        return junction(Ops.AND, exprs);
     }
     
     /**
-     * Create the intersection of the given arguments
+     * Create the intersection of the given arguments. Nested intersections are flattened
+     * into a single n-ary operation.
      * 
      * @param exprs
      * @return
      */
     @Nullable
     public static Predicate allOf(Predicate... exprs) {
-        Predicate rv = null;
-        for (Predicate b : exprs) {
-            if (b != null) {
-                rv = rv == null ? b : ExpressionUtils.and(rv,b);    
-            }            
-        }
-        return rv;
+        return junction(Ops.AND, Arrays.asList(exprs));
     }
 
     /**
@@ -99,37 +93,27 @@ public final class ExpressionUtils {
     
 
     /**
-     * Create the union of the given arguments
+     * Create the union of the given arguments. Nested unions are flattened into a single
+     * n-ary operation.
      * 
      * @param exprs
      * @return
      */
     @Nullable
     public static Predicate anyOf(Collection<Predicate> exprs) {
-        Predicate rv = null;
-        for (Predicate b : exprs) {
-            if (b != null) {
-                rv = rv == null ? b : ExpressionUtils.or(rv,b);    
-            }            
-        }
-        return rv;
+        return junction(Ops.OR, exprs);
     }
     
     /**
-     * Create the union of the given arguments
+     * Create the union of the given arguments. Nested unions are flattened into a single
+     * n-ary operation.
      * 
      * @param exprs
      * @return
      */
     @Nullable
     public static Predicate anyOf(Predicate... exprs) {
-        Predicate rv = null;
-        for (Predicate b : exprs) {
-            if (b != null) {
-                rv = rv == null ? b : ExpressionUtils.or(rv,b);    
-            }            
-        }
-        return rv;
+        return junction(Ops.OR, Arrays.asList(exprs));
     }
         
     /**
@@ -432,6 +416,43 @@ public final class ExpressionUtils {
         }        
     }
     
+    @Nullable
+    private static Predicate junction(Operator<Boolean> operator, Collection<Predicate> exprs) {
+        List<Expression<?>> args = new ArrayList<Expression<?>>(exprs.size());
+        Deque<Expression<?>> stack = new ArrayDeque<Expression<?>>();
+        for (Predicate expr : exprs) {
+            if (expr == null) {
+                continue;
+            }
+            stack.push(expr);
+            while (!stack.isEmpty()) {
+                Expression<?> arg = stack.pop();
+                if (arg instanceof Operation<?> && ((Operation<?>)arg).getOperator() == operator) {
+                    List<Expression<?>> nested = ((Operation<?>)arg).getArgs();
+                    for (int i = nested.size() - 1; i >= 0; i--) {
+                        stack.push(nested.get(i));
+                    }
+                } else if (arg instanceof Predicate) {
+                    Expression<?> extracted = extract(arg);
+                    if (extracted != null && extracted != arg) {
+                        stack.push(extracted);
+                    } else if (extracted != null) {
+                        args.add(arg);
+                    }
+                } else {
+                    args.add(arg);
+                }
+            }
+        }
+        if (args.isEmpty()) {
+            return null;
+        } else if (args.size() == 1) {
+            return (Predicate) args.get(0);
+        } else {
+            return new PredicateOperation(operator, ImmutableList.copyOf(args));
+        }
+    }
+
     private ExpressionUtils() {}
     
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.types;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * FingerprintVisitor computes stable 64-bit hashes of the structure of {@link Expression} instances.
+ *
+ * <p>Constants are replaced by placeholders of their type, so expressions which differ only in
+ * constant values get the same fingerprint. The size of collection constants is taken into account,
+ * since it affects the serialized form. Arguments of {@link TemplateExpression} instances are
+ * hashed by value, since templates may inline them.</p>
+ *
+ * @author tiwe
+ */
+public final class FingerprintVisitor implements Visitor<Long,Void> {
+
+    public static final FingerprintVisitor DEFAULT = new FingerprintVisitor();
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final long CONSTANT = 1, FACTORY = 2, OPERATION = 3, PARAM = 4, PATH = 5,
+            SUBQUERY = 6, TEMPLATE = 7;
+
+    /**
+     * Mix the given value into the given hash
+     *
+     * @param hash
+     * @param value
+     * @return
+     */
+    public static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Mix the given string into the given hash
+     *
+     * @param hash
+     * @param str
+     * @return
+     */
+    public static long mix(long hash, String str) {
+        for (int i = 0; i < str.length(); i++) {
+            hash ^= str.charAt(i);
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Get the fingerprint of the given expression
+     *
+     * @param expr
+     * @return
+     */
+    public static long fingerprint(@Nullable Expression<?> expr) {
+        if (expr != null) {
+            Long rv = expr.accept(DEFAULT, null);
+            return rv != null ? rv.longValue() : 0l;
+        } else {
+            return 0l;
+        }
+    }
+
+    /**
+     * Get the fingerprint of an operation with the given operator, type and argument fingerprints
+     *
+     * @param operator
+     * @param type
+     * @param args
+     * @return
+     */
+    public static long operation(Operator<?> operator, Class<?> type, long... args) {
+        long hash = mix(mix(mix(OFFSET, OPERATION), operator.getId()), type.getName());
+        for (long arg : args) {
+            hash = mix(hash, arg);
+        }
+        return hash;
+    }
+
+    private FingerprintVisitor() {}
+
+    private long mix(long hash, List<?> args) {
+        hash = mix(hash, args.size());
+        for (Object arg : args) {
+            hash = mix(hash, fingerprint((Expression<?>)arg));
+        }
+        return hash;
+    }
+
+    @Override
+    public Long visit(Constant<?> expr, Void context) {
+        long hash = mix(mix(OFFSET, CONSTANT), expr.getType().getName());
+        if (expr.getConstant() instanceof Collection) {
+            hash = mix(hash, ((Collection<?>)expr.getConstant()).size());
+        }
+        return hash;
+    }
+
+    @Override
+    public Long visit(FactoryExpression<?> expr, Void context) {
+        long hash = mix(mix(OFFSET, FACTORY), expr.getType().getName());
+        return mix(hash, expr.getArgs());
+    }
+
+    @Override
+    public Long visit(Operation<?> expr, Void context) {
+        long hash = mix(mix(mix(OFFSET, OPERATION), expr.getOperator().getId()), expr.getType().getName());
+        for (Expression<?> arg : expr.getArgs()) {
+            hash = mix(hash, fingerprint(arg));
+        }
+        return hash;
+    }
+
+    @Override
+    public Long visit(ParamExpression<?> expr, Void context) {
+        return mix(mix(mix(OFFSET, PARAM), expr.getName()), expr.getType().getName());
+    }
+
+    @Override
+    public Long visit(Path<?> expr, Void context) {
+        PathMetadata<?> metadata = expr.getMetadata();
+        long hash = mix(mix(mix(OFFSET, PATH), metadata.getPathType().name()), expr.getType().getName());
+        if (metadata.getParent() != null) {
+            hash = mix(hash, fingerprint(metadata.getParent()));
+        }
+        Object element = metadata.getElement();
+        if (element instanceof Expression<?>) {
+            return mix(hash, fingerprint((Expression<?>)element));
+        } else {
+            return mix(hash, String.valueOf(element));
+        }
+    }
+
+    @Override
+    public Long visit(SubQueryExpression<?> expr, Void context) {
+        return mix(mix(OFFSET, SUBQUERY), expr.getMetadata().getFingerprint());
+    }
+
+    @Override
+    public Long visit(TemplateExpression<?> expr, Void context) {
+        long hash = mix(mix(mix(OFFSET, TEMPLATE), expr.getTemplate().toString()), expr.getType().getName());
+        for (Object arg : expr.getArgs()) {
+            if (arg instanceof Constant<?>) {
+                hash = mix(hash, String.valueOf(((Constant<?>)arg).getConstant()));
+            } else if (arg instanceof Expression<?>) {
+                hash = mix(hash, fingerprint((Expression<?>)arg));
+            } else {
+                hash = mix(hash, String.valueOf(arg));
+            }
+        }
+        return hash;
+    }
+
+}
@@ -189,6 +189,22 @@ public final class Template implements Serializable {
         return elements;
     }
 
+    /**
+     * Get the position of the element which refers to the argument with the given index
+     *
+     * @param index argument index
+     * @return element position or -1, if the argument is not referred to by index
+     */
+    public int indexOfArgument(int index) {
+        for (int i = 0; i < elements.size(); i++) {
+            Element element = elements.get(i);
+            if (element instanceof ByIndex && ((ByIndex)element).getIndex() == index) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public String toString() {
         return template;
@@ -51,7 +51,10 @@ public final class ToStringVisitor implements Visitor<String,Templates> {
     @Override
     public String visit(Operation<?> o, Templates templates) {
         final Template template = templates.getTemplate(o.getOperator());
-        if (template != null) {
+        if (template != null && o.getArgs().size() > 2
+         && (o.getOperator() == Ops.AND || o.getOperator() == Ops.OR)) {
+            return visitJunction(o, template, templates);
+        } else if (template != null) {
             final StringBuilder builder = new StringBuilder();
             for (Template.Element element : template.getElements()) {
                 final Object rv = element.convert(o.getArgs());
@@ -67,6 +70,31 @@ public final class ToStringVisitor implements Visitor<String,Templates> {
         }                  
     }
 
+    private String visitJunction(Operation<?> o, Template template, Templates templates) {
+        final List<Template.Element> elements = template.getElements();
+        final int first = template.indexOfArgument(0), second = template.indexOfArgument(1);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 1; i < o.getArgs().size(); i++) {
+            append(builder, elements.subList(0, first), o.getArgs());
+        }
+        for (int i = 0; i < o.getArgs().size(); i++) {
+            if (i > 0) {
+                append(builder, elements.subList(first + 1, second), o.getArgs());
+            }
+            builder.append(o.getArg(i).accept(this, templates));
+            if (i > 0) {
+                append(builder, elements.subList(second + 1, elements.size()), o.getArgs());
+            }
+        }
+        return builder.toString();
+    }
+
+    private void append(StringBuilder builder, List<Template.Element> elements, List<?> args) {
+        for (Template.Element element : elements) {
+            builder.append(element.convert(args).toString());
+        }
+    }
+
     @Override
     public String visit(ParamExpression<?> param, Templates templates) {
         return "{" + param.getName() + "}";
@@ -306,6 +306,20 @@ public class BeanPath<T> extends SimpleExpression<T> implements Path<T> {
         return add(new TimePath<A>((Class) type, forProperty(property)));
     }
 
+    /**
+     * Get the inits for the given property, used by lazily initialized entity paths
+     *
+     * @param property
+     * @return
+     */
+    protected PathInits getInits(String property) {
+        if (inits != null && inits.isInitialized(property)) {
+            return inits.get(property);
+        } else {
+            return PathInits.DEFAULT;
+        }
+    }
+
     protected PathMetadata<?> forProperty(String property) {
         return PathMetadataFactory.forProperty(this, property);
     }
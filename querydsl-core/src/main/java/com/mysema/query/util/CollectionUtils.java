@@ -13,6 +13,7 @@
  */
 package com.mysema.query.util;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +34,10 @@ import com.google.common.collect.Sets;
  */
 public final class CollectionUtils {
 
+    @SuppressWarnings("rawtypes")
+    private static final Class<? extends Map> UNMODIFIABLE_MAP = Collections.unmodifiableMap(
+            Collections.emptyMap()).getClass();
+
     public static <T> List<T> add(List<T> list, T element) {
         final int size = list.size();
         if (size == 0) {
@@ -58,6 +63,14 @@ public final class CollectionUtils {
         }
     }
     
+    public static <T> List<T> unmodifiableList(List<T> list) {
+        if (list instanceof ImmutableList) {
+            return list;
+        } else {
+            return ImmutableList.copyOf(list);
+        }
+    }
+    
     public static <T> Set<T> add(Set<T> set, T element) {
         final int size = set.size();
         if (size == 0) {
@@ -83,6 +96,14 @@ public final class CollectionUtils {
         }
     }
     
+    public static <T> Set<T> unmodifiableSet(Set<T> set) {
+        if (set instanceof ImmutableSet) {
+            return set;
+        } else {
+            return ImmutableSet.copyOf(set);
+        }
+    }
+    
     public static <T> Set<T> addSorted(Set<T> set, T element) {
         final int size = set.size();
         if (size == 0) {
@@ -110,9 +131,9 @@ public final class CollectionUtils {
     
     public static <K,V> Map<K,V> put(Map<K,V> map, K key, V value) {
         final int size = map.size();
-        if (size == 0) {
+        if (size == 0 && value != null) {
             return ImmutableMap.of(key, value);
-        } else if (map instanceof ImmutableMap) {
+        } else if (map instanceof ImmutableMap || map.getClass() == UNMODIFIABLE_MAP) {
             map = Maps.newHashMap(map);
         }
         map.put(key, value);
@@ -127,6 +148,17 @@ public final class CollectionUtils {
         }
     }
     
+    public static <K,V> Map<K,V> unmodifiableMap(Map<K,V> map) {
+        if (map instanceof ImmutableMap) {
+            return map;
+        } else if (map.containsValue(null)) {
+            // ImmutableMap doesn't accept null values
+            return Collections.unmodifiableMap(Maps.newHashMap(map));
+        } else {
+            return ImmutableMap.copyOf(map);
+        }
+    }
+    
     private CollectionUtils() {}
     
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * ClassFileInfo provides the name, the superclass name and the runtime visible annotations of a
+ * class, read from the class file without loading the class
+ *
+ * @author tiwe
+ *
+ */
+public final class ClassFileInfo {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final String CONSTRUCTOR = "<init>";
+
+    /**
+     * Read the class file from the given stream
+     *
+     * @param in class file contents
+     * @return
+     * @throws IOException if the stream doesn't contain a valid class file
+     */
+    public static ClassFileInfo read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(ByteStreams.toByteArray(in)));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Invalid class file");
+        }
+        skip(data, 4); // version
+
+        // constant pool
+        int count = data.readUnsignedShort();
+        String[] strings = new String[count];
+        int[] classes = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+            case 1:  strings[i] = data.readUTF(); break;                 // Utf8
+            case 7:  classes[i] = data.readUnsignedShort(); break;       // Class
+            case 8:                                                      // String
+            case 16:                                                     // MethodType
+            case 19:                                                     // Module
+            case 20: skip(data, 2); break;                               // Package
+            case 15: skip(data, 3); break;                               // MethodHandle
+            case 3:                                                      // Integer
+            case 4:                                                      // Float
+            case 9:                                                      // Fieldref
+            case 10:                                                     // Methodref
+            case 11:                                                     // InterfaceMethodref
+            case 12:                                                     // NameAndType
+            case 17:                                                     // Dynamic
+            case 18: skip(data, 4); break;                               // InvokeDynamic
+            case 5:                                                      // Long
+            case 6:  skip(data, 8); i++; break;                          // Double
+            default: throw new IOException("Invalid constant pool tag " + tag);
+            }
+        }
+
+        skip(data, 2); // access flags
+        String name = toClassName(strings[classes[data.readUnsignedShort()]]);
+        int superClass = data.readUnsignedShort();
+        String superName = superClass != 0 ? toClassName(strings[classes[superClass]]) : null;
+        skip(data, 2 * data.readUnsignedShort()); // interfaces
+
+        // fields
+        int fields = data.readUnsignedShort();
+        for (int i = 0; i < fields; i++) {
+            skip(data, 6);
+            readAnnotations(data, strings, null);
+        }
+
+        // methods
+        Set<String> constructorAnnotations = new HashSet<String>();
+        int methods = data.readUnsignedShort();
+        for (int i = 0; i < methods; i++) {
+            skip(data, 2);
+            boolean constructor = CONSTRUCTOR.equals(strings[data.readUnsignedShort()]);
+            skip(data, 2);
+            readAnnotations(data, strings, constructor ? constructorAnnotations : null);
+        }
+
+        // class
+        Set<String> annotations = new HashSet<String>();
+        readAnnotations(data, strings, annotations);
+
+        return new ClassFileInfo(name, superName, annotations, constructorAnnotations);
+    }
+
+    private static void readAnnotations(DataInputStream data, String[] strings,
+            @Nullable Set<String> annotations) throws IOException {
+        int attributes = data.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            String attribute = strings[data.readUnsignedShort()];
+            int length = data.readInt();
+            if (annotations != null && RUNTIME_VISIBLE_ANNOTATIONS.equals(attribute)) {
+                int count = data.readUnsignedShort();
+                for (int j = 0; j < count; j++) {
+                    annotations.add(toTypeName(strings[data.readUnsignedShort()]));
+                    skipElementValuePairs(data);
+                }
+            } else {
+                skip(data, length);
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream data) throws IOException {
+        int pairs = data.readUnsignedShort();
+        for (int i = 0; i < pairs; i++) {
+            skip(data, 2);
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        switch (tag) {
+        case 'e': skip(data, 4); break;
+        case '@': skip(data, 2); skipElementValuePairs(data); break;
+        case '[':
+            int values = data.readUnsignedShort();
+            for (int i = 0; i < values; i++) {
+                skipElementValue(data);
+            }
+            break;
+        default: skip(data, 2);
+        }
+    }
+
+    private static void skip(DataInputStream data, int bytes) throws IOException {
+        if (data.skipBytes(bytes) != bytes) {
+            throw new EOFException();
+        }
+    }
+
+    private static String toClassName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static String toTypeName(String descriptor) {
+        return toClassName(descriptor.substring(1, descriptor.length() - 1));
+    }
+
+    private final String name;
+
+    @Nullable
+    private final String superName;
+
+    private final Set<String> annotations, constructorAnnotations;
+
+    private ClassFileInfo(String name, @Nullable String superName, Set<String> annotations,
+            Set<String> constructorAnnotations) {
+        this.name = name;
+        this.superName = superName;
+        this.annotations = Collections.unmodifiableSet(annotations);
+        this.constructorAnnotations = Collections.unmodifiableSet(constructorAnnotations);
+    }
+
+    /**
+     * @return the binary name of the class
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the binary name of the superclass or null for java.lang.Object
+     */
+    @Nullable
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * @return the names of the runtime visible annotations of the class
+     */
+    public Set<String> getAnnotations() {
+        return annotations;
+    }
+
+    /**
+     * @return the names of the runtime visible annotations of the constructors of the class
+     */
+    public Set<String> getConstructorAnnotations() {
+        return constructorAnnotations;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -14,18 +14,24 @@
 package com.mysema.util;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import javax.annotation.Nullable;
+
 /**
  * ClassPathUtils provides classpath scanning functionality
  *
@@ -39,26 +45,56 @@ public final class ClassPathUtils {
     }
 
     public static Set<Class<?>> scanPackage(ClassLoader classLoader, String pkg) throws IOException {
+        Set<Class<?>> classes = new HashSet<Class<?>>();
+        for (String className : scan(classLoader, pkg, null)) {
+            Class<?> cl = safeClassForName(classLoader, className);
+            if (cl != null) {
+                classes.add(cl);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Read the class files of the given package and its subpackages without loading the classes
+     *
+     * <p>Class files which can't be read are mapped to null.</p>
+     *
+     * @param classLoader
+     * @param pkg
+     * @return class files by class name
+     * @throws IOException
+     */
+    public static Map<String, ClassFileInfo> scanClassFiles(ClassLoader classLoader, String pkg)
+            throws IOException {
+        Map<String, ClassFileInfo> classFiles = new HashMap<String, ClassFileInfo>();
+        scan(classLoader, pkg, classFiles);
+        return classFiles;
+    }
+
+    private static Set<String> scan(ClassLoader classLoader, String pkg,
+            @Nullable Map<String, ClassFileInfo> classFiles) throws IOException {
         String packagePath = pkg.replace('.', '/');
         Enumeration<URL> urls = classLoader.getResources(packagePath);
-        Set<Class<?>> classes = new HashSet<Class<?>>();
+        Set<String> classNames = new HashSet<String>();
         while (urls.hasMoreElements()) {
             URL url = urls.nextElement();
             if (url.getProtocol().equals("jar")) {
-                scanJar(classLoader, classes, url, packagePath);
+                scanJar(classNames, classFiles, url, packagePath);
 
             } else if (url.getProtocol().equals("file")) {
-                scanDirectory(classLoader, pkg, classes, url, pkg);
+                scanDirectory(pkg, classNames, classFiles, url, pkg);
 
             } else {
                 throw new IllegalArgumentException("Illegal url : " + url);
             }
         }
-        return classes;
+        return classNames;
     }
 
-    private static void scanDirectory(ClassLoader classLoader, String pkg, Set<Class<?>> classes,
-            URL url, String packageName) throws IOException {
+    private static void scanDirectory(String pkg, Set<String> classNames,
+            @Nullable Map<String, ClassFileInfo> classFiles, URL url, String packageName)
+            throws IOException {
         Deque<File> files = new ArrayDeque<File>();
         String packagePath;
         try {
@@ -74,10 +110,13 @@ public final class ClassPathUtils {
                 if (child.getName().endsWith(".class")) {
                     String fileName = child.getPath().substring(packagePath.length()+1).replace(File.separatorChar, '.');
                     String className = pkg + "." + fileName.substring(0, fileName.length()-6);
-                    if (className.startsWith(packageName)) {
-                        Class<?> cl = safeClassForName(classLoader, className);
-                        if (cl != null) {
-                            classes.add(cl);
+                    if (className.startsWith(packageName) && classNames.add(className)
+                            && classFiles != null) {
+                        InputStream in = new FileInputStream(child);
+                        try {
+                            classFiles.put(className, safeRead(in));
+                        } finally {
+                            in.close();
                         }
                     }
                 } else if (child.isDirectory()) {
@@ -87,8 +126,8 @@ public final class ClassPathUtils {
         }
     }
 
-    private static void scanJar(ClassLoader classLoader, Set<Class<?>> classes, URL url,
-            String packagePath) throws IOException {
+    private static void scanJar(Set<String> classNames, @Nullable Map<String, ClassFileInfo> classFiles,
+            URL url, String packagePath) throws IOException {
         // See http://stackoverflow.com/a/402771/14731
         JarURLConnection connection = (JarURLConnection) url.openConnection();
         JarFile jarFile = connection.getJarFile();
@@ -99,9 +138,13 @@ public final class ClassPathUtils {
                 if (entry.getName().endsWith(".class") && entry.getName().startsWith(packagePath)
                         && entry.getName().startsWith(connection.getEntryName())) {
                     String className = entry.getName().substring(0, entry.getName().length()-6).replace('/', '.');
-                    Class<?> cl = safeClassForName(classLoader, className);
-                    if (cl != null) {
-                        classes.add(cl);
+                    if (classNames.add(className) && classFiles != null) {
+                        InputStream in = jarFile.getInputStream(entry);
+                        try {
+                            classFiles.put(className, safeRead(in));
+                        } finally {
+                            in.close();
+                        }
                     }
                 }
             }
@@ -110,12 +153,37 @@ public final class ClassPathUtils {
         }
     }
 
+    @Nullable
+    private static ClassFileInfo safeRead(InputStream in) {
+        try {
+            return ClassFileInfo.read(in);
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
     public static Class<?> safeClassForName(ClassLoader classLoader, String className) {
+        return safeClassForName(classLoader, className, true);
+    }
+
+    /**
+     * Load the given class, returning null if it can't be loaded
+     *
+     * @param classLoader
+     * @param className
+     * @param initialize whether the class should be initialized
+     * @return
+     */
+    @Nullable
+    public static Class<?> safeClassForName(ClassLoader classLoader, String className,
+            boolean initialize) {
         try {
             if (className.startsWith("com.sun")) {
                 return null;
             } else {
-                return Class.forName(className, true, classLoader);
+                return Class.forName(className, initialize, classLoader);
             }
         } catch (ClassNotFoundException e) {
             return null;
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertFalse;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.mysema.query.types.Operation;
 import com.mysema.query.types.Templates;
 import com.mysema.query.types.ToStringVisitor;
 import com.mysema.query.types.expr.BooleanExpression;
@@ -168,5 +169,52 @@ public class BooleanBuilderTest {
         builder.or(new BooleanPath("condition"));
         assertEquals("true || condition", builder.accept(ToStringVisitor.DEFAULT, Templates.DEFAULT));
     }
+
+    @Test
+    public void And_Chain_Is_Flat() {
+        BooleanBuilder builder = new BooleanBuilder();
+        for (int i = 0; i < 5000; i++) {
+            builder.and(new BooleanPath("b" + i));
+        }
+        assertEquals(5000, ((Operation<?>)builder.getValue()).getArgs().size());
+        builder.toString();
+    }
+
+    @Test
+    public void Or_Chain_Is_Flat() {
+        BooleanBuilder builder = new BooleanBuilder();
+        builder.or(new BooleanPath("a")).or(new BooleanPath("b")).or(new BooleanPath("c"));
+        assertEquals(3, ((Operation<?>)builder.getValue()).getArgs().size());
+        assertEquals("a || b || c", builder.toString());
+    }
+
+    @Test
+    public void Mixed_Chain() {
+        BooleanPath a = new BooleanPath("a"), b = new BooleanPath("b");
+        BooleanPath c = new BooleanPath("c"), d = new BooleanPath("d");
+        BooleanBuilder builder = new BooleanBuilder(a).and(b);
+        assertEquals(a.and(b), builder.getValue());
+        builder.or(c).and(d);
+        assertEquals(a.and(b).or(c).and(d), builder.getValue());
+    }
+
+    @Test
+    public void Clone_Is_Independent() throws CloneNotSupportedException {
+        BooleanPath a = new BooleanPath("a"), b = new BooleanPath("b"), c = new BooleanPath("c");
+        BooleanBuilder builder = new BooleanBuilder(a).and(b);
+        BooleanBuilder clone = builder.clone();
+        clone.and(c);
+        assertEquals("a && b", builder.toString());
+        assertEquals("a && b && c", clone.toString());
+    }
+
+    @Test
+    public void Nested_Builder_Is_Read_On_Append() {
+        BooleanPath a = new BooleanPath("a"), b = new BooleanPath("b"), c = new BooleanPath("c");
+        BooleanBuilder nested = new BooleanBuilder(b);
+        BooleanBuilder builder = new BooleanBuilder(a).and(c).and(nested);
+        nested.or(a);
+        assertEquals("a && c && b", builder.toString());
+    }
     
 }
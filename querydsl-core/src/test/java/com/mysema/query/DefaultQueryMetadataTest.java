@@ -15,6 +15,7 @@ package com.mysema.query;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -177,6 +178,59 @@ public class DefaultQueryMetadataTest {
         assertEquals(metadata.getWhere(), clone.getWhere());
     }
     
+    @Test
+    public void Clone_Shares_Collections() {
+        metadata.addJoin(JoinType.DEFAULT, str);
+        metadata.addJoin(JoinType.DEFAULT, str2);
+        metadata.addProjection(str);
+        metadata.addProjection(str2);
+        
+        QueryMetadata clone = metadata.clone();
+        assertSame(metadata.getJoins(), clone.getJoins());
+        assertSame(metadata.getProjection(), clone.getProjection());
+        assertSame(clone.getProjection(), metadata.clone().getProjection());
+    }
+    
+    @Test
+    public void Clone_Is_Independent() {
+        metadata.addJoin(JoinType.DEFAULT, str);
+        metadata.addJoin(JoinType.DEFAULT, str2);
+        metadata.addProjection(str);
+        metadata.addProjection(str2);
+        metadata.addOrderBy(str.asc());
+        
+        QueryMetadata clone = metadata.clone();
+        clone.addProjection(str.append("abc"));
+        clone.addOrderBy(str2.desc());
+        clone.addFlag(new QueryFlag(Position.END, "abc"));
+        metadata.addGroupBy(str);
+        
+        assertEquals(2, metadata.getProjection().size());
+        assertEquals(3, clone.getProjection().size());
+        assertEquals(1, metadata.getOrderBy().size());
+        assertEquals(2, clone.getOrderBy().size());
+        assertTrue(metadata.getFlags().isEmpty());
+        assertTrue(clone.getGroupBy().isEmpty());
+    }
+    
+    @Test
+    public void Clone_With_Null_Param() {
+        Param<String> param = new Param<String>(String.class, "param");
+        Param<String> param2 = new Param<String>(String.class, "param2");
+        metadata.setParam(param, "X");
+        metadata.setParam(param2, null);
+        
+        QueryMetadata clone = metadata.clone();
+        clone.setParam(param, "Y");
+        metadata.setParam(param2, "Z");
+        
+        assertEquals("X", metadata.getParams().get(param));
+        assertEquals("Y", clone.getParams().get(param));
+        assertEquals("Z", metadata.getParams().get(param2));
+        assertTrue(clone.getParams().containsKey(param2));
+        assertEquals(null, clone.getParams().get(param2));
+    }
+    
     @SuppressWarnings("unchecked")
     @Test
     public void SetParam() {
@@ -248,4 +302,80 @@ public class DefaultQueryMetadataTest {
     public void HashCode_Empty_Metadata() {
         metadata.hashCode();
     }
+    
+    @Test
+    public void Fingerprint() {
+        QueryMetadata metadata2 = new DefaultQueryMetadata();
+        for (QueryMetadata md : Arrays.asList(metadata, metadata2)) {
+            md.addJoin(JoinType.DEFAULT, str);
+            md.addJoin(JoinType.DEFAULT, str2);
+            md.addOrderBy(str.asc());
+            md.addProjection(str);
+            md.setLimit(10l);
+        }
+        metadata.addWhere(str.eq("a"));
+        metadata.addWhere(str2.startsWith("b"));
+        metadata2.addWhere(str.eq("c"));
+        metadata2.addWhere(str2.startsWith("d"));
+        assertFalse(metadata.equals(metadata2));
+        assertEquals(metadata.getFingerprint(), metadata2.getFingerprint());
+        
+        metadata2.addWhere(str.isNull());
+        assertFalse(metadata.getFingerprint() == metadata2.getFingerprint());
+    }
+    
+    @Test
+    public void Fingerprint_Is_Structural() {
+        QueryMetadata metadata2 = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, str);
+        metadata.addWhere(str.eq("a"));
+        metadata.addWhere(str.isNotNull());
+        metadata2.addJoin(JoinType.DEFAULT, str);
+        metadata2.addWhere(str.eq("b").and(str.isNotNull()));
+        assertEquals(metadata.getFingerprint(), metadata2.getFingerprint());
+        assertEquals(metadata.getFingerprint(), metadata.clone().getFingerprint());
+    }
+    
+    @Test
+    public void Fingerprint_Of_Flattened_Where() {
+        Predicate a = str.eq("a"), b = str.isNotNull(), c = str2.startsWith("c");
+        QueryMetadata metadata2 = new DefaultQueryMetadata();
+        QueryMetadata metadata3 = new DefaultQueryMetadata();
+        for (QueryMetadata md : Arrays.asList(metadata, metadata2, metadata3)) {
+            md.addJoin(JoinType.DEFAULT, str);
+            md.addJoin(JoinType.DEFAULT, str2);
+        }
+        metadata.addWhere(a);
+        metadata.addWhere(b);
+        metadata.addWhere(c);
+        metadata2.addWhere(str.eq("x").and(str.isNotNull()).and(str2.startsWith("y")));
+        metadata3.addWhere(new BooleanBuilder(a).and(b).and(c));
+        assertEquals(metadata.getFingerprint(), metadata2.getFingerprint());
+        assertEquals(metadata.getFingerprint(), metadata3.getFingerprint());
+    }
+    
+    @Test
+    public void Fingerprint_After_ClearWhere() {
+        DefaultQueryMetadata metadata2 = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, str);
+        metadata2.addJoin(JoinType.DEFAULT, str);
+        long empty = metadata.getFingerprint();
+        metadata.addWhere(str.eq("a"));
+        metadata2.addWhere(str.isNull());
+        metadata2.clearWhere();
+        assertEquals(empty, metadata2.getFingerprint());
+        metadata2.addWhere(str.eq("b"));
+        assertEquals(metadata.getFingerprint(), metadata2.getFingerprint());
+        assertEquals(str.eq("b"), metadata2.getWhere());
+    }
+    
+    @Test
+    public void Fingerprint_Differs_By_Clause() {
+        QueryMetadata metadata2 = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, str);
+        metadata.addProjection(str);
+        metadata2.addJoin(JoinType.DEFAULT, str);
+        metadata2.addGroupBy(str);
+        assertFalse(metadata.getFingerprint() == metadata2.getFingerprint());
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mysema.query.types.Operation;
+import com.mysema.query.types.Ops;
+import com.mysema.query.types.OrderSpecifier;
+import com.mysema.query.types.QTuple;
+import com.mysema.query.types.path.NumberPath;
+import com.mysema.query.types.path.StringPath;
+
+public class KeysetTest {
+
+    private static final NumberPath<Integer> id = new NumberPath<Integer>(Integer.class, "id");
+
+    private static final StringPath name = new StringPath("name");
+
+    private static final QTuple keys = new QTuple(name, id);
+
+    private static List<OrderSpecifier<?>> order(OrderSpecifier<?>... order) {
+        return Arrays.<OrderSpecifier<?>>asList(order);
+    }
+
+    @Test
+    public void Single_Key() {
+        assertEquals("id > 5", Keyset.after(order(id.asc().nullsFirst()),
+                new QTuple(id).newInstance(5)).toString());
+        assertEquals("id < 5", Keyset.after(order(id.desc()),
+                new QTuple(id).newInstance(5)).toString());
+    }
+
+    @Test
+    public void Mixed_Directions() {
+        assertEquals("name > x || name = x && id < 5",
+                Keyset.after(order(name.asc().nullsFirst(), id.desc()),
+                        keys.newInstance("x", 5)).toString());
+    }
+
+    @Test
+    public void Nulls_Last() {
+        assertEquals(name.gt("x").or(name.isNull()).or(name.eq("x").and(id.gt(5).or(id.isNull()))),
+                Keyset.after(order(name.asc(), id.asc()), keys.newInstance("x", 5)));
+    }
+
+    @Test
+    public void Default_Nulls_First() {
+        assertEquals("name > x || name = x && id > 5",
+                Keyset.after(order(name.asc(), id.asc()), keys.newInstance("x", 5), false, true, false).toString());
+        assertEquals(name.isNotNull().or(name.isNull().and(id.lt(5).or(id.isNull()))),
+                Keyset.after(order(name.asc(), id.desc()), keys.newInstance(null, 5), false, true, false));
+    }
+
+    @Test
+    public void Default_Nulls_First_In_Both_Directions() {
+        assertEquals(name.isNotNull().or(name.isNull().and(id.lt(5))),
+                Keyset.after(order(name.asc(), id.desc()), keys.newInstance(null, 5), false, true, true));
+        assertEquals(name.lt("x").or(name.eq("x").and(id.lt(5))),
+                Keyset.after(order(name.desc(), id.desc()), keys.newInstance("x", 5), false, true, true));
+    }
+
+    @Test
+    public void Null_Value() {
+        assertEquals("name is not null || name is null && id > 5",
+                Keyset.after(order(name.asc().nullsFirst(), id.asc().nullsFirst()),
+                        keys.newInstance(null, 5)).toString());
+        assertEquals("name is null && id > 5",
+                Keyset.after(order(name.asc().nullsLast(), id.asc().nullsFirst()),
+                        keys.newInstance(null, 5)).toString());
+    }
+
+    @Test
+    public void No_More_Rows() {
+        assertEquals("1 = 2", Keyset.after(order(name.asc().nullsLast()),
+                new QTuple(name).newInstance(new Object[]{null})).toString());
+    }
+
+    @Test
+    public void Row_Values() {
+        Operation<?> predicate = (Operation<?>) Keyset.after(
+                order(name.asc().nullsFirst(), id.asc().nullsFirst()), keys.newInstance("x", 5), true);
+        assertEquals(Ops.GT, predicate.getOperator());
+        assertEquals(Ops.LIST, ((Operation<?>)predicate.getArg(0)).getOperator());
+        assertEquals(Ops.LIST, ((Operation<?>)predicate.getArg(1)).getOperator());
+        // mixed directions can't be expressed as row value comparison
+        assertEquals("name > x || name = x && id < 5",
+                Keyset.after(order(name.asc().nullsFirst(), id.desc()),
+                        keys.newInstance("x", 5), true).toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void Wrong_Tuple_Size() {
+        Keyset.after(order(name.asc(), id.asc()), new QTuple(id).newInstance(5));
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.mysema.query.types.path.NumberPath;
+import com.mysema.query.types.path.StringPath;
+
+public class CanonicalExpressionFactoryTest {
+
+    private final CanonicalExpressionFactory factory = new CanonicalExpressionFactory();
+
+    private final StringPath str = new StringPath("str");
+
+    private final NumberPath<Integer> num = new NumberPath<Integer>(Integer.class, "num");
+
+    @Test
+    public void Constant() {
+        assertSame(factory.constant("abc"), factory.constant("abc"));
+        assertNotSame(factory.constant(1), factory.constant(1l));
+    }
+
+    @Test
+    public void Operation() {
+        Operation<String> op1 = factory.operation(String.class, Ops.LOWER, str);
+        Operation<String> op2 = factory.operation(String.class, Ops.LOWER, str);
+        assertSame(op1, op2);
+    }
+
+    @Test
+    public void Predicate() {
+        Predicate p1 = factory.predicate(Ops.EQ, str, factory.constant("abc"));
+        Predicate p2 = factory.predicate(Ops.EQ, str, ConstantImpl.create("abc"));
+        assertSame(p1, p2);
+        assertSame(p1.getClass(), PredicateOperation.class);
+    }
+
+    @Test
+    public void Intern_Predicate() {
+        Predicate p1 = str.eq("abc").and(num.gt(3));
+        Predicate p2 = str.eq("abc").and(num.gt(3));
+        assertNotSame(p1, p2);
+        Predicate c1 = factory.intern(p1);
+        assertSame(c1, factory.intern(p2));
+        assertEquals(p1, c1);
+        assertTrue(c1 instanceof PredicateOperation);
+    }
+
+    @Test
+    public void Intern_Shares_SubExpressions() {
+        Operation<?> p1 = (Operation<?>) factory.intern(str.eq("abc").and(num.gt(3)));
+        Operation<?> p2 = (Operation<?>) factory.intern(str.eq("abc").or(num.lt(1)));
+        assertSame(p1.getArg(0), p2.getArg(0));
+        assertSame(factory.intern(str.eq("abc")), p1.getArg(0));
+    }
+
+    @Test
+    public void Intern_Expression() {
+        Expression<String> e1 = factory.intern(str.lower().concat("x"));
+        Expression<String> e2 = factory.intern(str.lower().concat("x"));
+        assertSame(e1, e2);
+        assertEquals(str.lower().concat("x"), e1);
+    }
+
+    @Test
+    public void Intern_Path() {
+        assertSame(str, factory.intern(str));
+    }
+
+}
@@ -14,8 +14,11 @@
 package com.mysema.query.types;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -164,4 +167,48 @@ public class ExpressionUtilsTest {
         assertEquals("str != str2", ExpressionUtils.ne(str, str2).toString());
     }
 
+    @Test
+    public void AllOf() {
+        Predicate p = ExpressionUtils.allOf(str.isNull(), str2.isNull(), str.eq("a"));
+        assertEquals(3, ((Operation<?>)p).getArgs().size());
+        assertEquals("str is null && str2 is null && str = a", p.toString());
+    }
+
+    @Test
+    public void AllOf_Flattens_Nested() {
+        Predicate p = ExpressionUtils.allOf(
+                ExpressionUtils.and(str.isNull(), str2.isNull()), null,
+                ExpressionUtils.allOf(str.eq("a"), str2.eq("b")));
+        Operation<?> op = (Operation<?>)p;
+        assertSame(Ops.AND, op.getOperator());
+        assertEquals(4, op.getArgs().size());
+        assertEquals("str is null && str2 is null && str = a && str2 = b", p.toString());
+    }
+
+    @Test
+    public void AnyOf_Keeps_Nested_Intersections() {
+        Predicate p = ExpressionUtils.anyOf(str.isNull(),
+                ExpressionUtils.allOf(str.eq("a"), str2.eq("b")), str2.isNull());
+        assertEquals(3, ((Operation<?>)p).getArgs().size());
+        assertEquals("str is null || str = a && str2 = b || str2 is null", p.toString());
+    }
+
+    @Test
+    public void AnyOf_Single() {
+        Predicate p = str.isNull();
+        assertEquals(p, ExpressionUtils.anyOf(null, p));
+    }
+
+    @Test
+    public void AnyOf_Large() {
+        List<Predicate> predicates = new ArrayList<Predicate>();
+        for (int i = 0; i < 5000; i++) {
+            predicates.add(str.eq(String.valueOf(i)));
+        }
+        Predicate p = ExpressionUtils.anyOf(predicates);
+        assertEquals(5000, ((Operation<?>)p).getArgs().size());
+        assertEquals(p, ExpressionUtils.anyOf(predicates));
+        p.toString();
+    }
+
 }
@@ -63,6 +63,15 @@ public class BeanPathTest {
         assertTrue(otherPath.getMetadata().isRoot());
     }
     
+    @Test
+    public void GetInits() {
+        assertTrue(beanPath.getInits("x") == PathInits.DEFAULT);
+        beanPath = new BeanPath<BeanPathTest>(BeanPathTest.class,
+                PathMetadataFactory.forVariable("p"), new PathInits("x.y"));
+        assertTrue(beanPath.getInits("x").isInitialized("y"));
+        assertTrue(beanPath.getInits("z") == PathInits.DEFAULT);
+    }
+    
     @Test
     public void As_Class_Cached() {       
         MyBeanPath otherPath = beanPath.as(MyBeanPath.class);
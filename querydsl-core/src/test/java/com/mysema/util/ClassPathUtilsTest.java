@@ -15,13 +15,20 @@ package com.mysema.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Test;
 
 import com.SomeClass;
+import com.mysema.query.annotations.QueryEntity;
+import com.mysema.query.annotations.QueryProjection;
+import com.mysema.query.annotations.QuerySupertype;
+import com.mysema.query.domain2.ABase;
+import com.mysema.query.domain2.AImpl;
 
 
 public class ClassPathUtilsTest {
@@ -41,4 +48,38 @@ public class ClassPathUtilsTest {
         assertEquals("XXX", SomeOtherClass2.property);
     }
 
+    @Test
+    public void ScanClassFiles() throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Map<String, ClassFileInfo> classFiles = ClassPathUtils.scanClassFiles(classLoader,
+                AImpl.class.getPackage().getName());
+        ClassFileInfo aImpl = classFiles.get(AImpl.class.getName());
+        assertEquals(AImpl.class.getName(), aImpl.getName());
+        assertEquals(ABase.class.getName(), aImpl.getSuperName());
+        assertTrue(aImpl.getAnnotations().contains(QueryEntity.class.getName()));
+        assertTrue(classFiles.get(ABase.class.getName()).getAnnotations()
+                .contains(QuerySupertype.class.getName()));
+    }
+
+    @Test
+    public void ScanClassFiles_Constructor_Annotations() throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Map<String, ClassFileInfo> classFiles = ClassPathUtils.scanClassFiles(classLoader,
+                getClass().getPackage().getName());
+        ClassFileInfo info = classFiles.get(ProjectionClass.class.getName());
+        assertTrue(info.getAnnotations().isEmpty());
+        assertTrue(info.getConstructorAnnotations().contains(QueryProjection.class.getName()));
+        assertEquals(Object.class.getName(), info.getSuperName());
+    }
+
+    public static class ProjectionClass {
+
+        @QueryProjection
+        public ProjectionClass(@Deprecated String name, long id) {}
+
+        @Deprecated
+        public void method() {}
+
+    }
+
 }
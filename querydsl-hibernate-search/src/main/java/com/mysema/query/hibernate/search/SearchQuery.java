@@ -13,28 +13,34 @@
  */
 package com.mysema.query.hibernate.search;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.search.FullTextQuery;
 import org.hibernate.search.FullTextSession;
 import org.hibernate.search.Search;
 
 import com.mysema.commons.lang.CloseableIterator;
-import com.mysema.commons.lang.IteratorAdapter;
 import com.mysema.query.NonUniqueResultException;
 import com.mysema.query.QueryMetadata;
 import com.mysema.query.QueryModifiers;
 import com.mysema.query.SearchResults;
 import com.mysema.query.SimpleProjectable;
 import com.mysema.query.SimpleQuery;
-import com.mysema.query.lucene.LuceneSerializer;
+import com.mysema.query.Tuple;
 import com.mysema.query.support.QueryMixin;
 import com.mysema.query.types.EntityPath;
 import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.ParamExpression;
+import com.mysema.query.types.Path;
 import com.mysema.query.types.Predicate;
+import com.mysema.query.types.QTuple;
 
 /**
  * SearchQuery is a Query implementation for Hibernate Search
@@ -49,10 +55,15 @@ public class SearchQuery<T> implements SimpleQuery<SearchQuery<T>>, SimpleProjec
 
     private final QueryMixin<SearchQuery<T>> queryMixin;
 
-    private final LuceneSerializer serializer;
+    private final SearchSerializer serializer;
 
     private final FullTextSession session;
 
+    private int fetchSize = 0;
+
+    @Nullable
+    private Criteria criteria;
+
     /**
      * Create a new SearchQuery instance
      * 
@@ -102,6 +113,14 @@ public class SearchQuery<T> implements SimpleQuery<SearchQuery<T>>, SimpleProjec
             fullTextQuery.setSort(serializer.toSort(metadata.getOrderBy()));
         }
 
+        // loading
+        if (fetchSize > 0) {
+            fullTextQuery.setFetchSize(fetchSize);
+        }
+        if (criteria != null && !forCount) {
+            fullTextQuery.setCriteriaQuery(criteria);
+        }
+
         // paging
         QueryModifiers modifiers = metadata.getModifiers();
         if (modifiers != null && modifiers.isRestricting() && !forCount) {
@@ -125,9 +144,80 @@ public class SearchQuery<T> implements SimpleQuery<SearchQuery<T>>, SimpleProjec
     }
 
 
-    @SuppressWarnings("unchecked")
+    private String[] toFields(Path<?>... paths) {
+        String[] fields = new String[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            if (paths[i].equals(path)) {
+                fields[i] = FullTextQuery.THIS;
+            } else {
+                fields[i] = serializer.toField(paths[i]);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Set the amount of entities to be loaded at once from the database during iteration
+     *
+     * @param fetchSize
+     * @return
+     */
+    public SearchQuery<T> setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Set the Criteria to be used for loading the matched entities. The Criteria can be used
+     * to fetch associations of the matched entities in the same select.
+     *
+     * @param criteria
+     * @return
+     */
+    public SearchQuery<T> setCriteriaQuery(@Nullable Criteria criteria) {
+        this.criteria = criteria;
+        return this;
+    }
+
+    /**
+     * Iterate over the matched entities. The entities are loaded in batches of the fetch size.
+     *
+     * @return
+     */
     public CloseableIterator<T> iterate() {
-        return new IteratorAdapter<T>(createQuery(false).iterate());
+        return new ScrollableResultsIterator<T>(createQuery(false).scroll(ScrollMode.FORWARD_ONLY));
+    }
+
+    /**
+     * Iterate over the stored index fields of the given paths. The entity path itself can be
+     * used to load the entity.
+     *
+     * @param paths
+     * @return
+     */
+    public CloseableIterator<Tuple> iterate(Path<?>... paths) {
+        final QTuple projection = new QTuple(paths);
+        FullTextQuery query = createQuery(false).setProjection(toFields(paths));
+        final CloseableIterator<Object[]> rows = new ScrollableResultsIterator<Object[]>(
+                query.scroll(ScrollMode.FORWARD_ONLY), true);
+        return new CloseableIterator<Tuple>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+            @Override
+            public Tuple next() {
+                return projection.newInstance(rows.next());
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public void close() {
+                rows.close();
+            }
+        };
     }
 
     public CloseableIterator<T> iterateDistinct() {
@@ -145,6 +235,24 @@ public class SearchQuery<T> implements SimpleQuery<SearchQuery<T>>, SimpleProjec
         return createQuery(false).list();
     }
 
+    /**
+     * Get the stored index fields of the given paths without loading the entities from the
+     * database. The entity path itself can be used to load the entity.
+     *
+     * @param paths
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public List<Tuple> list(Path<?>... paths) {
+        QTuple projection = new QTuple(paths);
+        List<Object[]> rows = createQuery(false).setProjection(toFields(paths)).list();
+        List<Tuple> rv = new ArrayList<Tuple>(rows.size());
+        for (Object[] row : rows) {
+            rv.add(projection.newInstance(row));
+        }
+        return rv;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public SearchResults<T> listResults() {
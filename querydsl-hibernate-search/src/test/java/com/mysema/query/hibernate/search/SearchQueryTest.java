@@ -26,8 +26,10 @@ import org.hibernate.Session;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.mysema.query.NonUniqueResultException;
 import com.mysema.query.SearchResults;
+import com.mysema.query.Tuple;
 import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.expr.BooleanExpression;
 
@@ -141,6 +143,46 @@ public class SearchQueryTest extends AbstractQueryTest {
         assertEquals(4, users.getTotal());
     }
     
+    @Test
+    public void Iterate() {
+        CloseableIterator<User> users = query().where(user.middleName.eq("X"))
+                .setFetchSize(2).iterate();
+        int count = 0;
+        try {
+            while (users.hasNext()) {
+                assertEquals("X", users.next().getMiddleName());
+                count++;
+            }
+        } finally {
+            users.close();
+        }
+        assertEquals(4, count);
+    }
+
+    @Test
+    public void List_Projection() {
+        List<Tuple> rows = query().where(user.middleName.eq("X"))
+                .orderBy(user.firstName.asc()).list(user.firstName, user.emailAddress);
+        assertEquals(4, rows.size());
+        assertEquals("Anton", rows.get(0).get(user.firstName));
+        assertEquals("anton@b.com", rows.get(0).get(user.emailAddress));
+    }
+
+    @Test
+    public void Iterate_Projection() {
+        CloseableIterator<Tuple> rows = query().where(user.emailAddress.eq("bob@example.com"))
+                .iterate(user, user.lastName);
+        try {
+            assertTrue(rows.hasNext());
+            Tuple row = rows.next();
+            assertEquals("Smith", row.get(user.lastName));
+            assertEquals("bob@example.com", row.get(user).getEmailAddress());
+            assertFalse(rows.hasNext());
+        } finally {
+            rows.close();
+        }
+    }
+
     @Test
     public void No_Where() {
         assertEquals(5, query().list().size());
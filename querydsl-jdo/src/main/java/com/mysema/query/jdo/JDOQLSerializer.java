@@ -76,8 +76,12 @@ public final class JDOQLSerializer extends SerializerBase<JDOQLSerializer> {
 
     private static final String SELECT_UNIQUE = "SELECT UNIQUE ";
 
+    private static final String SET = "\nSET ";
+
     private static final String THIS = "this";
 
+    private static final String UPDATE = "UPDATE ";
+
     private static final String VARIABLES = "\nVARIABLES ";
 
     private static final String WHERE = "\nWHERE ";
@@ -221,6 +225,33 @@ public final class JDOQLSerializer extends SerializerBase<JDOQLSerializer> {
         
     }
 
+    /**
+     * Serialize the given bulk update of the candidate
+     *
+     * @param metadata metadata with the filter
+     * @param updates updated paths and their new values
+     */
+    public void serializeForUpdate(QueryMetadata metadata, Map<Path<?>, Expression<?>> updates) {
+        constantToLabel.push(new HashMap<Object,String>());
+        append(UPDATE).append(candidatePath.getType().getName());
+        append(SET);
+        boolean first = true;
+        for (Map.Entry<Path<?>, Expression<?>> entry : updates.entrySet()) {
+            if (!first) {
+                append(COMMA);
+            }
+            handle(entry.getKey()).append(" = ").handle(entry.getValue());
+            first = false;
+        }
+        if (metadata.getWhere() != null) {
+            append(WHERE).handle(metadata.getWhere());
+        }
+        if (!getConstantToLabel().isEmpty()) {
+            append(serializeParameters(metadata.getParams()));
+        }
+        constantToLabel.pop();
+    }
+
     private void serializeModifiers(@Nullable Long limit, @Nullable Long offset) {
         append(RANGE);
         if (offset != null) {
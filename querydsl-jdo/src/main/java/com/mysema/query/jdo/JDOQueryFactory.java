@@ -18,6 +18,7 @@ import javax.jdo.PersistenceManager;
 
 import com.mysema.query.QueryFactory;
 import com.mysema.query.jdo.dml.JDODeleteClause;
+import com.mysema.query.jdo.dml.JDOUpdateClause;
 import com.mysema.query.types.EntityPath;
 
 /**
@@ -50,4 +51,8 @@ public class JDOQueryFactory implements QueryFactory<JDOQuery, JDOSubQuery> {
         return new JDOSubQuery();
     }
 
+    public JDOUpdateClause update(EntityPath<?> path) {
+        return new JDOUpdateClause(persistenceManager.get(), path);
+    }
+
 }
\ No newline at end of file
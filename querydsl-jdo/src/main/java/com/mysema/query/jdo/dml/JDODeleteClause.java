@@ -57,6 +57,30 @@ public class JDODeleteClause implements DeleteClause<JDODeleteClause> {
         metadata.addJoin(JoinType.DEFAULT, entity);
     }
 
+    /**
+     * Declare the parameters of the given constants to the query
+     *
+     * @param query query
+     * @param constToLabel constants and their labels
+     * @return constants in declaration order
+     */
+    static Object[] declareParameters(Query query, Map<Object,String> constToLabel) {
+        List<Object> constants = new ArrayList<Object>(constToLabel.size());
+        if (!constToLabel.isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<Object, String> entry : constToLabel.entrySet()) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(entry.getKey().getClass().getName()).append(" ");
+                builder.append(entry.getValue());
+                constants.add(entry.getKey());
+            }
+            query.declareParameters(builder.toString());
+        }
+        return constants.toArray();
+    }
+
     @Override
     public long execute() {
         Query query = persistenceManager.newQuery(entity.getType());
@@ -64,22 +88,10 @@ public class JDODeleteClause implements DeleteClause<JDODeleteClause> {
             JDOQLSerializer serializer = new JDOQLSerializer(templates, entity);
             serializer.handle(metadata.getWhere());
             query.setFilter(serializer.toString());
-            Map<Object,String> constToLabel = serializer.getConstantToLabel();
-
+            Object[] constants = declareParameters(query, serializer.getConstantToLabel());
             try{
-                if (!constToLabel.isEmpty()) {
-                    List<Object> constants = new ArrayList<Object>(constToLabel.size());
-                    StringBuilder builder = new StringBuilder();
-                    for (Map.Entry<Object, String> entry : constToLabel.entrySet()) {
-                        if (builder.length() > 0) {
-                            builder.append(", ");
-                        }
-                        builder.append(entry.getKey().getClass().getName()).append(" ");
-                        builder.append(entry.getValue());
-                        constants.add(entry.getKey());
-                    }
-                    query.declareParameters(builder.toString());
-                    return query.deletePersistentAll(constants.toArray());
+                if (constants.length > 0) {
+                    return query.deletePersistentAll(constants);
                 } else {
                     return query.deletePersistentAll();
                 }
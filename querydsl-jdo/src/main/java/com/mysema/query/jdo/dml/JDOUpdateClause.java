@@ -13,42 +13,193 @@
  */
 package com.mysema.query.jdo.dml;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
 
 import com.mysema.query.DefaultQueryMetadata;
+import com.mysema.query.JoinType;
+import com.mysema.query.QueryException;
 import com.mysema.query.QueryMetadata;
 import com.mysema.query.dml.UpdateClause;
+import com.mysema.query.jdo.JDOQLSerializer;
+import com.mysema.query.jdo.JDOQLTemplates;
+import com.mysema.query.types.Constant;
+import com.mysema.query.types.ConstantImpl;
+import com.mysema.query.types.EntityPath;
 import com.mysema.query.types.Expression;
-import com.mysema.query.types.ExpressionUtils;
 import com.mysema.query.types.NullExpression;
 import com.mysema.query.types.Path;
 import com.mysema.query.types.Predicate;
+import com.mysema.util.ReflectionUtils;
 
 /**
  * UpdateClause implementation for JDO
  *
+ * <p>If the JDO implementation supports JDOQL bulk updates (DataNucleus does), the update is
+ * executed as a single UPDATE statement. Otherwise the matching objects are loaded in batches
+ * and modified in memory. The fallback supports only constant values for direct properties of
+ * the candidate.</p>
+ *
  * @author tiwe
  *
  */
 public class JDOUpdateClause implements UpdateClause<JDOUpdateClause> {
 
+    private static final String ALLOW_ALL = "datanucleus.query.jdoql.allowAll";
+
     private final QueryMetadata metadata = new DefaultQueryMetadata();
 
+    private final Map<Path<?>, Expression<?>> updates = new LinkedHashMap<Path<?>, Expression<?>>();
+
+    private final PersistenceManager persistenceManager;
+
+    private final JDOQLTemplates templates;
+
+    private final EntityPath<?> entity;
+
+    private boolean bulkUpdate;
+
+    private int batchSize = 100;
+
+    public JDOUpdateClause(PersistenceManager pm, EntityPath<?> entity) {
+        this(pm, entity, JDOQLTemplates.DEFAULT);
+    }
+
+    public JDOUpdateClause(PersistenceManager persistenceManager, EntityPath<?> entity,
+            JDOQLTemplates templates) {
+        this.entity = entity;
+        this.persistenceManager = persistenceManager;
+        this.templates = templates;
+        this.bulkUpdate = persistenceManager.getClass().getName().startsWith("org.datanucleus.");
+        metadata.addJoin(JoinType.DEFAULT, entity);
+    }
+
+    /**
+     * Set whether JDOQL bulk updates are used. Defaults to true for DataNucleus.
+     *
+     * @param bulkUpdate
+     * @return
+     */
+    public JDOUpdateClause setBulkUpdate(boolean bulkUpdate) {
+        this.bulkUpdate = bulkUpdate;
+        return this;
+    }
+
+    /**
+     * Set the amount of objects to be loaded and flushed at once, if bulk updates are not used
+     *
+     * @param batchSize
+     * @return
+     */
+    public JDOUpdateClause setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
     @Override
     public long execute() {
-        // TODO : implement
-        throw new UnsupportedOperationException("Not yet implemented");
+        if (bulkUpdate) {
+            return executeBulkUpdate();
+        } else {
+            return executeBatchUpdate();
+        }
+    }
+
+    private long executeBulkUpdate() {
+        JDOQLSerializer serializer = new JDOQLSerializer(templates, entity);
+        serializer.serializeForUpdate(metadata, updates);
+        Query query = persistenceManager.newQuery(serializer.toString());
+        query.addExtension(ALLOW_ALL, "true");
+        try {
+            Object rv;
+            if (!serializer.getConstants().isEmpty()) {
+                rv = query.executeWithArray(serializer.getConstants().toArray());
+            } else {
+                rv = query.execute();
+            }
+            return ((Number)rv).longValue();
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    private long executeBatchUpdate() {
+        Map<Field, Object> values = new LinkedHashMap<Field, Object>();
+        for (Map.Entry<Path<?>, Expression<?>> entry : updates.entrySet()) {
+            Path<?> path = entry.getKey();
+            Field field = null;
+            if (entity.equals(path.getMetadata().getParent())) {
+                field = ReflectionUtils.getFieldOrNull(entity.getType(), path.getMetadata().getName());
+            }
+            if (field == null) {
+                throw new UnsupportedOperationException("Unsupported update target " + path);
+            }
+            field.setAccessible(true);
+            if (entry.getValue() instanceof Constant<?>) {
+                values.put(field, ((Constant<?>)entry.getValue()).getConstant());
+            } else if (entry.getValue() instanceof NullExpression<?>) {
+                values.put(field, null);
+            } else {
+                throw new UnsupportedOperationException("Unsupported update value " + entry.getValue());
+            }
+        }
+
+        Query query = persistenceManager.newQuery(entity.getType());
+        query.getFetchPlan().setFetchSize(batchSize);
+        Object[] constants = new Object[0];
+        if (metadata.getWhere() != null) {
+            JDOQLSerializer serializer = new JDOQLSerializer(templates, entity);
+            serializer.handle(metadata.getWhere());
+            query.setFilter(serializer.toString());
+            constants = JDODeleteClause.declareParameters(query, serializer.getConstantToLabel());
+        }
+        try {
+            Collection<?> results = (Collection<?>) query.executeWithArray(constants);
+            long rv = 0;
+            List<Object> batch = new ArrayList<Object>(batchSize);
+            for (Object result : results) {
+                for (Map.Entry<Field, Object> entry : values.entrySet()) {
+                    entry.getKey().set(result, entry.getValue());
+                    JDOHelper.makeDirty(result, entry.getKey().getName());
+                }
+                batch.add(result);
+                rv++;
+                if (batch.size() == batchSize) {
+                    flush(batch);
+                }
+            }
+            flush(batch);
+            return rv;
+        } catch (IllegalAccessException e) {
+            throw new QueryException(e);
+        } finally {
+            query.closeAll();
+        }
+    }
+
+    private void flush(List<Object> batch) {
+        if (!batch.isEmpty()) {
+            persistenceManager.flush();
+            persistenceManager.evictAll(batch);
+            batch.clear();
+        }
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public JDOUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
         for (int i = 0; i < paths.size(); i++) {
             if (values.get(i) != null) {
-                metadata.addProjection(ExpressionUtils.eqConst(((Expression)paths.get(i)), values.get(i)));
+                updates.put(paths.get(i), new ConstantImpl<Object>(values.get(i)));
             } else {
-                metadata.addProjection(ExpressionUtils.eq(((Expression)paths.get(i)), 
-                        new NullExpression(paths.get(i).getType())));
+                updates.put(paths.get(i), new NullExpression<Object>(Object.class));
             }
         }
         return this;
@@ -57,38 +208,47 @@ public class JDOUpdateClause implements UpdateClause<JDOUpdateClause> {
     @Override
     public <T> JDOUpdateClause set(Path<T> path, T value) {
         if (value != null) {
-            metadata.addProjection(ExpressionUtils.eqConst(path, value));
+            updates.put(path, new ConstantImpl<T>(value));
         } else {
-            metadata.addProjection(ExpressionUtils.eq(path, new NullExpression<T>(path.getType())));
+            setNull(path);
         }
         return this;
     }
 
-
     @Override
     public <T> JDOUpdateClause set(Path<T> path, Expression<? extends T> expression) {
-        metadata.addProjection(ExpressionUtils.eq(path, expression));
+        if (expression != null) {
+            updates.put(path, expression);
+        } else {
+            setNull(path);
+        }
         return this;
     }
-    
+
     @Override
     public <T> JDOUpdateClause setNull(Path<T> path) {
-        metadata.addProjection(ExpressionUtils.eq(path, new NullExpression<T>(path.getType())));
+        updates.put(path, new NullExpression<T>(path.getType()));
         return this;
     }
-    
+
     @Override
     public JDOUpdateClause where(Predicate... o) {
         for (Predicate p : o) {
-            metadata.addWhere(p);    
-        }        
+            metadata.addWhere(p);
+        }
         return this;
     }
 
     @Override
-    public boolean isEmpty() {
-        return metadata.getProjection().isEmpty();
+    public String toString() {
+        JDOQLSerializer serializer = new JDOQLSerializer(templates, entity);
+        serializer.serializeForUpdate(metadata, updates);
+        return serializer.toString();
     }
 
+    @Override
+    public boolean isEmpty() {
+        return updates.isEmpty();
+    }
 
 }
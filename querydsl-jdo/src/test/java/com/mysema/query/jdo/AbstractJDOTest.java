@@ -25,6 +25,7 @@ import org.junit.AfterClass;
 import org.junit.Before;
 
 import com.mysema.query.jdo.dml.JDODeleteClause;
+import com.mysema.query.jdo.dml.JDOUpdateClause;
 import com.mysema.query.jdo.test.domain.Book;
 import com.mysema.query.jdo.test.domain.Product;
 import com.mysema.query.jdo.test.domain.Store;
@@ -62,6 +63,10 @@ public abstract class AbstractJDOTest {
         return new JDODeleteClause(pm, entity, templates);
     }
 
+    protected JDOUpdateClause update(EntityPath<?> entity) {
+        return new JDOUpdateClause(pm, entity, templates);
+    }
+
     @Before
     public void setUp() {
         pm = pmf.getPersistenceManager();
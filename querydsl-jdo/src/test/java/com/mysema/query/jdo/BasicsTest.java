@@ -26,6 +26,7 @@ import org.junit.Test;
 
 import com.mysema.query.BooleanBuilder;
 import com.mysema.query.NonUniqueResultException;
+import com.mysema.query.jdo.dml.JDOUpdateClause;
 import com.mysema.query.jdo.test.domain.Book;
 import com.mysema.query.jdo.test.domain.Product;
 import com.mysema.query.jdo.test.domain.QBook;
@@ -73,6 +74,29 @@ public class BasicsTest extends AbstractJDOTest {
         assertEquals(count, delete(product).execute());
     }
 
+    @Test
+    public void Update_Serialization() {
+        assertEquals("UPDATE com.mysema.query.jdo.test.domain.Product\n" +
+                "SET this.name = a1\n" +
+                "WHERE this.name == a2\n" +
+                "PARAMETERS java.lang.String a1, java.lang.String a2",
+                update(product).set(product.name, "Sony").where(product.name.eq("Sony Discman")).toString());
+    }
+
+    @Test
+    public void Update() {
+        assertEquals(0, update(product).set(product.amount, 5).where(product.name.eq("XXX")).execute());
+        assertEquals(1, update(product).set(product.amount, 5).where(product.name.eq("Sony Discman")).execute());
+        assertEquals(5, query().from(product).where(product.name.eq("Sony Discman")).uniqueResult(product.amount).intValue());
+    }
+
+    @Test
+    public void Update_Without_Bulk_Support() {
+        JDOUpdateClause update = update(product).setBulkUpdate(false).setBatchSize(1);
+        assertEquals(2, update.set(product.amount, 7).execute());
+        assertEquals(2, query().from(product).where(product.amount.eq(7)).count());
+    }
+
     @Test
     public void CountTests() {
         assertEquals("count", 2, query().from(product).count());
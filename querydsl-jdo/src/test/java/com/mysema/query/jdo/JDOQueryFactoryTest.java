@@ -59,4 +59,9 @@ public class JDOQueryFactoryTest {
         assertNotNull(queryFactory.delete(QProduct.product));
     }
 
+    @Test
+    public void Update() {
+        assertNotNull(queryFactory.update(QProduct.product));
+    }
+
 }
@@ -30,17 +30,21 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.mysema.commons.lang.CloseableIterator;
 import com.mysema.query.DefaultQueryMetadata;
+import com.mysema.query.KeysetResults;
 import com.mysema.query.NonUniqueResultException;
 import com.mysema.query.QueryMetadata;
 import com.mysema.query.QueryModifiers;
 import com.mysema.query.SearchResults;
 import com.mysema.query.Tuple;
 import com.mysema.query.jpa.JPAQueryBase;
+import com.mysema.query.jpa.JPQLQuery;
 import com.mysema.query.jpa.JPQLTemplates;
 import com.mysema.query.jpa.QueryHandler;
+import com.mysema.query.support.Keyset;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.FactoryExpression;
 import com.mysema.query.types.FactoryExpressionUtils;
+import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.QTuple;
 
 /**
@@ -267,6 +271,20 @@ public abstract class AbstractJPAQuery<Q extends AbstractJPAQuery<Q>> extends JP
             return SearchResults.emptyResults();
         }
     }
+
+    /**
+     * Get the page of results following the given row using keyset pagination
+     *
+     * @param expr projection
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row or null for the first page
+     * @param limit page size
+     * @return
+     */
+    public <RT> KeysetResults<RT> listKeyset(Expression<RT> expr, List<? extends OrderSpecifier<?>> order,
+            @Nullable Tuple lastSeen, int limit) {
+        return Keyset.list((JPQLQuery)this, expr, order, lastSeen, limit);
+    }
     
     protected void logQuery(String queryString) {
         if (logger.isDebugEnabled()) {
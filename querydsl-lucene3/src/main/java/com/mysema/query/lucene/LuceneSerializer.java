@@ -100,9 +100,9 @@ public class LuceneSerializer {
     private Query toQuery(Operation<?> operation, QueryMetadata metadata) {
         Operator<?> op = operation.getOperator();
         if (op == Ops.OR) {
-            return toTwoHandSidedQuery(operation, Occur.SHOULD, metadata);
+            return toBooleanQuery(operation, Occur.SHOULD, metadata);
         } else if (op == Ops.AND) {
-            return toTwoHandSidedQuery(operation, Occur.MUST, metadata);
+            return toBooleanQuery(operation, Occur.MUST, metadata);
         } else if (op == Ops.NOT) {
             BooleanQuery bq = new BooleanQuery();
             bq.add(new BooleanClause(toQuery(operation.getArg(0), metadata), Occur.MUST_NOT));
@@ -148,12 +148,28 @@ public class LuceneSerializer {
         throw new UnsupportedOperationException("Illegal operation " + operation);
     }
 
-    private Query toTwoHandSidedQuery(Operation<?> operation, Occur occur, QueryMetadata metadata) {
-        Query lhs = toQuery(operation.getArg(0), metadata);
-        Query rhs = toQuery(operation.getArg(1), metadata);
+    private Query toBooleanQuery(Operation<?> operation, Occur occur, QueryMetadata metadata) {
+        List<Query> queries = new ArrayList<Query>(operation.getArgs().size());
+        for (Expression<?> arg : operation.getArgs()) {
+            queries.add(toQuery(arg, metadata));
+        }
+        // nest the clauses of large n-ary operations to stay within the clause limit
+        int max = BooleanQuery.getMaxClauseCount();
+        while (queries.size() > max) {
+            List<Query> grouped = new ArrayList<Query>(queries.size() / max + 1);
+            for (int i = 0; i < queries.size(); i += max) {
+                grouped.add(toBooleanQuery(queries.subList(i, Math.min(i + max, queries.size())), occur));
+            }
+            queries = grouped;
+        }
+        return toBooleanQuery(queries, occur);
+    }
+
+    private BooleanQuery toBooleanQuery(List<Query> queries, Occur occur) {
         BooleanQuery bq = new BooleanQuery();
-        bq.add(createBooleanClause(lhs, occur));
-        bq.add(createBooleanClause(rhs, occur));
+        for (Query query : queries) {
+            bq.add(createBooleanClause(query, occur));
+        }
         return bq;
     }
 
@@ -78,6 +78,16 @@ public abstract class AbstractExporterMojo extends AbstractMojo {
      * @parameter default-value=false
      */
     private boolean testClasspath;
+
+    /**
+     * @parameter default-value=false
+     */
+    private boolean incremental;
+
+    /**
+     * @parameter default-value=1
+     */
+    private int threads;
     
     /**
      * @component
@@ -128,6 +138,8 @@ public abstract class AbstractExporterMojo extends AbstractMojo {
     protected void configure(GenericExporter exporter) {
         exporter.setHandleFields(handleFields);
         exporter.setHandleMethods(handleMethods);
+        exporter.setIncremental(incremental);
+        exporter.setThreads(threads);
     }
 
     @SuppressWarnings("unchecked")
@@ -200,4 +212,12 @@ public abstract class AbstractExporterMojo extends AbstractMojo {
     public void setHandleMethods(boolean handleMethods) {
         this.handleMethods = handleMethods;
     }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
 }
@@ -150,6 +150,13 @@ public class AbstractMetaDataExportMojo extends AbstractMojo{
      */
     private boolean exportBeans;
 
+    /**
+     * serialize reflection-free row mappers for the beans as well
+     *
+     * @parameter default-value=false
+     */
+    private boolean exportMappers;
+
     /**
      * wrap key properties into inner classes (default: false)
      *
@@ -201,6 +208,21 @@ public class AbstractMetaDataExportMojo extends AbstractMojo{
      */
     private boolean exportViews;
 
+    /**
+     * @parameter default-value=false
+     */
+    private boolean bulkIntrospection;
+
+    /**
+     * @parameter default-value=1
+     */
+    private int threads;
+
+    /**
+     * @parameter default-value=false
+     */
+    private boolean incremental;
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
@@ -261,6 +283,10 @@ public class AbstractMetaDataExportMojo extends AbstractMojo{
         exporter.setLowerCase(lowerCase);
         exporter.setExportTables(exportTables);
         exporter.setExportViews(exportViews);
+        exporter.setBulkIntrospection(bulkIntrospection);
+        exporter.setExportMappers(exportMappers);
+        exporter.setThreads(threads);
+        exporter.setIncremental(incremental);
         if (serializerClass != null) {
             try {
                 exporter.setSerializerClass((Class)Class.forName(serializerClass));
@@ -401,6 +427,10 @@ public class AbstractMetaDataExportMojo extends AbstractMojo{
         this.exportBeans = exportBeans;
     }
 
+    public void setExportMappers(boolean exportMappers) {
+        this.exportMappers = exportMappers;
+    }
+
     public void setInnerClassesForKeys(boolean innerClassesForKeys) {
         this.innerClassesForKeys = innerClassesForKeys;
     }
@@ -428,5 +458,17 @@ public class AbstractMetaDataExportMojo extends AbstractMojo{
     public void setLowerCase(boolean lowerCase) {
         this.lowerCase = lowerCase;
     }
+
+    public void setBulkIntrospection(boolean bulkIntrospection) {
+        this.bulkIntrospection = bulkIntrospection;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
     
 }
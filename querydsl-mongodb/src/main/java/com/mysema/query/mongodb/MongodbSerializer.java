@@ -119,16 +119,18 @@ public class MongodbSerializer implements Visitor<Object, Void> {
 
         } else if (op == Ops.AND) {
             BSONObject lhs = (BSONObject) handle(expr.getArg(0));
-            BSONObject rhs = (BSONObject) handle(expr.getArg(1));
-            if (Sets.intersection(lhs.keySet(), rhs.keySet()).isEmpty()) {
-                lhs.putAll(rhs);
-                return lhs;
-            } else {
-                BasicDBList list = new BasicDBList();
-                list.add(handle(expr.getArg(0)));
-                list.add(handle(expr.getArg(1)));
-                return asDBObject("$and", list);
+            for (int i = 1; i < expr.getArgs().size(); i++) {
+                BSONObject rhs = (BSONObject) handle(expr.getArg(i));
+                if (Sets.intersection(lhs.keySet(), rhs.keySet()).isEmpty()) {
+                    lhs.putAll(rhs);
+                } else {
+                    BasicDBList list = new BasicDBList();
+                    list.add(lhs);
+                    list.add(rhs);
+                    lhs = asDBObject("$and", list);
+                }
             }
+            return lhs;
 
         } else if (op == Ops.NOT) {
             //Handle the not's child
@@ -147,8 +149,9 @@ public class MongodbSerializer implements Visitor<Object, Void> {
 
         } else if (op == Ops.OR) {
             BasicDBList list = new BasicDBList();
-            list.add(handle(expr.getArg(0)));
-            list.add(handle(expr.getArg(1)));
+            for (Expression<?> arg : expr.getArgs()) {
+                list.add(handle(arg));
+            }
             return asDBObject("$or", list);
 
         } else if (op == Ops.NE) {
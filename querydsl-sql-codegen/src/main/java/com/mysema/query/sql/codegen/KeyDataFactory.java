@@ -16,7 +16,9 @@ package com.mysema.query.sql.codegen;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nullable;
@@ -33,6 +35,8 @@ import com.mysema.query.sql.support.PrimaryKeyData;
  */
 public class KeyDataFactory {
     
+    private static final int FK_FOREIGN_CATALOG_NAME = 5;
+
     private static final int FK_FOREIGN_COLUMN_NAME = 8;
 
     private static final int FK_FOREIGN_TABLE_NAME = 7;
@@ -41,12 +45,20 @@ public class KeyDataFactory {
 
     private static final int FK_NAME = 12;
 
+    private static final int FK_PARENT_CATALOG_NAME = 1;
+
     private static final int FK_PARENT_COLUMN_NAME = 4;
 
     private static final int FK_PARENT_TABLE_NAME = 3;
     
     private static final int FK_PARENT_SCHEMA_NAME = 2;
     
+    private static final int PK_CATALOG_NAME = 1;
+
+    private static final int PK_SCHEMA_NAME = 2;
+
+    private static final int PK_TABLE_NAME = 3;
+
     private static final int PK_COLUMN_NAME = 4;
 
     private static final int PK_NAME = 6;
@@ -72,18 +84,7 @@ public class KeyDataFactory {
         Map<String,InverseForeignKeyData> inverseForeignKeyData = new HashMap<String,InverseForeignKeyData>();
         try{
             while (foreignKeys.next()) {
-                String name = foreignKeys.getString(FK_NAME);
-                String parentColumnName = foreignKeys.getString(FK_PARENT_COLUMN_NAME);
-                String foreignSchemaName = foreignKeys.getString(FK_FOREIGN_SCHEMA_NAME);
-                String foreignTableName = foreignKeys.getString(FK_FOREIGN_TABLE_NAME);
-                String foreignColumn = foreignKeys.getString(FK_FOREIGN_COLUMN_NAME);
-                InverseForeignKeyData data = inverseForeignKeyData.get(name);
-                if (data == null) {                    
-                    data = new InverseForeignKeyData(name, foreignSchemaName, 
-                            foreignTableName, createType(foreignSchemaName, foreignTableName));
-                    inverseForeignKeyData.put(name, data);
-                }
-                data.add(parentColumnName, foreignColumn);
+                addExportedKey(inverseForeignKeyData, foreignKeys);
             }
             return inverseForeignKeyData;
         }finally{
@@ -97,18 +98,7 @@ public class KeyDataFactory {
         Map<String,ForeignKeyData> foreignKeyData = new HashMap<String,ForeignKeyData>();
         try{
             while (foreignKeys.next()) {
-                String name = foreignKeys.getString(FK_NAME);
-                String parentSchemaName = foreignKeys.getString(FK_PARENT_SCHEMA_NAME);
-                String parentTableName = foreignKeys.getString(FK_PARENT_TABLE_NAME);
-                String parentColumnName = foreignKeys.getString(FK_PARENT_COLUMN_NAME);
-                String foreignColumn = foreignKeys.getString(FK_FOREIGN_COLUMN_NAME);
-                ForeignKeyData data = foreignKeyData.get(name);
-                if (data == null) {
-                    data = new ForeignKeyData(name, parentSchemaName, parentTableName, 
-                            createType(parentSchemaName, parentTableName));
-                    foreignKeyData.put(name, data);
-                }
-                data.add(foreignColumn, parentColumnName);
+                addImportedKey(foreignKeyData, foreignKeys);
             }
             return foreignKeyData;
         }finally{
@@ -122,21 +112,159 @@ public class KeyDataFactory {
         Map<String,PrimaryKeyData> primaryKeyData = new HashMap<String,PrimaryKeyData>();
         try{
             while (primaryKeys.next()) {
-                String name = primaryKeys.getString(PK_NAME);
-                String columnName = primaryKeys.getString(PK_COLUMN_NAME);
+                addPrimaryKey(primaryKeyData, primaryKeys);
+            }
+            return primaryKeyData;
+        }finally{
+            primaryKeys.close();
+        }
+    }
 
-                PrimaryKeyData data = primaryKeyData.get(name);
-                if (data == null) {
-                    data = new PrimaryKeyData(name);
-                    primaryKeyData.put(name, data);
+    /**
+     * Get the exported keys of all tables of the given schemas with a single metadata call.
+     * The result is grouped by the catalog, schema and table name of the primary key table.
+     *
+     * @param md
+     * @param catalog catalog name or null for all catalogs
+     * @param schemaPattern schema name pattern or null for all schemas
+     * @return
+     * @throws SQLException
+     */
+    public Map<List<String>, Map<String, InverseForeignKeyData>> getAllExportedKeys(
+            DatabaseMetaData md, @Nullable String catalog, @Nullable String schemaPattern)
+            throws SQLException {
+        ResultSet foreignKeys = md.getExportedKeys(catalog, schemaPattern, null);
+        Map<List<String>, Map<String, InverseForeignKeyData>> rv =
+                new HashMap<List<String>, Map<String, InverseForeignKeyData>>();
+        try{
+            while (foreignKeys.next()) {
+                List<String> table = Arrays.asList(foreignKeys.getString(FK_PARENT_CATALOG_NAME),
+                        foreignKeys.getString(FK_PARENT_SCHEMA_NAME),
+                        foreignKeys.getString(FK_PARENT_TABLE_NAME));
+                Map<String, InverseForeignKeyData> inverseForeignKeyData = rv.get(table);
+                if (inverseForeignKeyData == null) {
+                    inverseForeignKeyData = new HashMap<String, InverseForeignKeyData>();
+                    rv.put(table, inverseForeignKeyData);
                 }
-                data.add(columnName);
+                addExportedKey(inverseForeignKeyData, foreignKeys);
             }
-            return primaryKeyData;
+            return rv;
+        }finally{
+            foreignKeys.close();
+        }
+    }
+
+    /**
+     * Get the imported keys of all tables of the given schemas with a single metadata call.
+     * The result is grouped by the catalog, schema and table name of the foreign key table.
+     *
+     * @param md
+     * @param catalog catalog name or null for all catalogs
+     * @param schemaPattern schema name pattern or null for all schemas
+     * @return
+     * @throws SQLException
+     */
+    public Map<List<String>, Map<String, ForeignKeyData>> getAllImportedKeys(
+            DatabaseMetaData md, @Nullable String catalog, @Nullable String schemaPattern)
+            throws SQLException {
+        ResultSet foreignKeys = md.getImportedKeys(catalog, schemaPattern, null);
+        Map<List<String>, Map<String, ForeignKeyData>> rv =
+                new HashMap<List<String>, Map<String, ForeignKeyData>>();
+        try{
+            while (foreignKeys.next()) {
+                List<String> table = Arrays.asList(foreignKeys.getString(FK_FOREIGN_CATALOG_NAME),
+                        foreignKeys.getString(FK_FOREIGN_SCHEMA_NAME),
+                        foreignKeys.getString(FK_FOREIGN_TABLE_NAME));
+                Map<String, ForeignKeyData> foreignKeyData = rv.get(table);
+                if (foreignKeyData == null) {
+                    foreignKeyData = new HashMap<String, ForeignKeyData>();
+                    rv.put(table, foreignKeyData);
+                }
+                addImportedKey(foreignKeyData, foreignKeys);
+            }
+            return rv;
+        }finally{
+            foreignKeys.close();
+        }
+    }
+
+    /**
+     * Get the primary keys of all tables of the given schemas with a single metadata call.
+     * The result is grouped by the catalog, schema and table name.
+     *
+     * @param md
+     * @param catalog catalog name or null for all catalogs
+     * @param schemaPattern schema name pattern or null for all schemas
+     * @return
+     * @throws SQLException
+     */
+    public Map<List<String>, Map<String, PrimaryKeyData>> getAllPrimaryKeys(
+            DatabaseMetaData md, @Nullable String catalog, @Nullable String schemaPattern)
+            throws SQLException {
+        ResultSet primaryKeys = md.getPrimaryKeys(catalog, schemaPattern, null);
+        Map<List<String>, Map<String, PrimaryKeyData>> rv =
+                new HashMap<List<String>, Map<String, PrimaryKeyData>>();
+        try{
+            while (primaryKeys.next()) {
+                List<String> table = Arrays.asList(primaryKeys.getString(PK_CATALOG_NAME),
+                        primaryKeys.getString(PK_SCHEMA_NAME),
+                        primaryKeys.getString(PK_TABLE_NAME));
+                Map<String, PrimaryKeyData> primaryKeyData = rv.get(table);
+                if (primaryKeyData == null) {
+                    primaryKeyData = new HashMap<String, PrimaryKeyData>();
+                    rv.put(table, primaryKeyData);
+                }
+                addPrimaryKey(primaryKeyData, primaryKeys);
+            }
+            return rv;
         }finally{
             primaryKeys.close();
         }
     }
+
+    private void addExportedKey(Map<String, InverseForeignKeyData> inverseForeignKeyData,
+            ResultSet foreignKeys) throws SQLException {
+        String name = foreignKeys.getString(FK_NAME);
+        String parentColumnName = foreignKeys.getString(FK_PARENT_COLUMN_NAME);
+        String foreignSchemaName = foreignKeys.getString(FK_FOREIGN_SCHEMA_NAME);
+        String foreignTableName = foreignKeys.getString(FK_FOREIGN_TABLE_NAME);
+        String foreignColumn = foreignKeys.getString(FK_FOREIGN_COLUMN_NAME);
+        InverseForeignKeyData data = inverseForeignKeyData.get(name);
+        if (data == null) {                    
+            data = new InverseForeignKeyData(name, foreignSchemaName, 
+                    foreignTableName, createType(foreignSchemaName, foreignTableName));
+            inverseForeignKeyData.put(name, data);
+        }
+        data.add(parentColumnName, foreignColumn);
+    }
+
+    private void addImportedKey(Map<String, ForeignKeyData> foreignKeyData,
+            ResultSet foreignKeys) throws SQLException {
+        String name = foreignKeys.getString(FK_NAME);
+        String parentSchemaName = foreignKeys.getString(FK_PARENT_SCHEMA_NAME);
+        String parentTableName = foreignKeys.getString(FK_PARENT_TABLE_NAME);
+        String parentColumnName = foreignKeys.getString(FK_PARENT_COLUMN_NAME);
+        String foreignColumn = foreignKeys.getString(FK_FOREIGN_COLUMN_NAME);
+        ForeignKeyData data = foreignKeyData.get(name);
+        if (data == null) {
+            data = new ForeignKeyData(name, parentSchemaName, parentTableName, 
+                    createType(parentSchemaName, parentTableName));
+            foreignKeyData.put(name, data);
+        }
+        data.add(foreignColumn, parentColumnName);
+    }
+
+    private void addPrimaryKey(Map<String, PrimaryKeyData> primaryKeyData,
+            ResultSet primaryKeys) throws SQLException {
+        String name = primaryKeys.getString(PK_NAME);
+        String columnName = primaryKeys.getString(PK_COLUMN_NAME);
+        PrimaryKeyData data = primaryKeyData.get(name);
+        if (data == null) {
+            data = new PrimaryKeyData(name);
+            primaryKeyData.put(name, data);
+        }
+        data.add(columnName);
+    }
     
     private Type createType(@Nullable String schemaName, String table) {
         String packageName = this.packageName;
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.codegen;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Generated;
+import javax.inject.Inject;
+
+import com.mysema.codegen.CodeWriter;
+import com.mysema.codegen.model.ClassType;
+import com.mysema.codegen.model.Parameter;
+import com.mysema.codegen.model.SimpleType;
+import com.mysema.codegen.model.Type;
+import com.mysema.codegen.model.Types;
+import com.mysema.query.codegen.EntityType;
+import com.mysema.query.codegen.Property;
+import com.mysema.query.codegen.Serializer;
+import com.mysema.query.codegen.SerializerConfig;
+import com.mysema.query.codegen.TypeMappings;
+import com.mysema.query.sql.RelationalPath;
+import com.mysema.query.sql.dml.Mapper;
+import com.mysema.query.sql.support.PrimaryKeyData;
+import com.mysema.query.sql.types.Null;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.ExpressionBase;
+import com.mysema.query.types.FactoryExpression;
+import com.mysema.query.types.Path;
+import com.mysema.query.types.Visitor;
+import com.mysema.util.BeanUtils;
+
+/**
+ * MapperSerializer serializes bean models of tables into row mapper classes, which map rows
+ * to beans and beans to insert and update bindings without reflection.
+ *
+ * <p>The generated classes are {@link FactoryExpression} projections of the columns of the table
+ * in column order, so that query results are mapped via column indexes, and {@link Mapper}
+ * implementations for the populate methods of the DML clauses.</p>
+ *
+ * @author tiwe
+ *
+ */
+public class MapperSerializer implements Serializer {
+
+    /**
+     * Suffix of the mapper class names
+     */
+    public static final String SUFFIX = "Mapper";
+
+    private static final Parameter WITH_NULL_BINDINGS = new Parameter("withNullBindings", Types.BOOLEAN_P);
+
+    private final TypeMappings typeMappings;
+
+    private final NamingStrategy namingStrategy;
+
+    /**
+     * Create a new MapperSerializer instance
+     *
+     * @param typeMappings
+     * @param namingStrategy naming strategy for table to class and column to property conversion
+     */
+    @Inject
+    public MapperSerializer(TypeMappings typeMappings, NamingStrategy namingStrategy) {
+        this.typeMappings = typeMappings;
+        this.namingStrategy = namingStrategy;
+    }
+
+    @Override
+    public void serialize(EntityType model, SerializerConfig serializerConfig,
+            CodeWriter writer) throws IOException {
+        Type queryType = typeMappings.getPathType(model, model, true);
+        Type mapperType = new SimpleType(model.getFullName() + SUFFIX, model.getPackageName(),
+                model.getSimpleName() + SUFFIX);
+        Parameter path = new Parameter("path", queryType);
+
+        // package
+        if (!model.getPackageName().isEmpty()) {
+            writer.packageDecl(model.getPackageName());
+        }
+
+        // imports
+        writer.imports(Arrays.class, HashMap.class, List.class, Map.class, Generated.class,
+                RelationalPath.class, Mapper.class, Null.class, Expression.class,
+                ExpressionBase.class, FactoryExpression.class, Path.class, Visitor.class);
+        if (!queryType.getPackageName().equals(model.getPackageName())) {
+            writer.importClasses(queryType.getFullName());
+        }
+
+        // header
+        writer.javadoc(mapperType.getSimpleName() + " is a Querydsl row mapper for " + model.getSimpleName());
+        writer.line("@Generated(\"", getClass().getName(), "\")");
+        writer.beginClass(mapperType, new ClassType(ExpressionBase.class, model),
+                new ClassType(FactoryExpression.class, model), new ClassType(Mapper.class, model));
+        writer.privateStaticFinal(Types.LONG_P, "serialVersionUID", String.valueOf(model.hashCode()));
+
+        // fields
+        writer.privateFinal(Types.BOOLEAN_P, "withNullBindings");
+        writer.line("private final List<Expression<?>> args;");
+        writer.nl();
+
+        // constructors
+        writer.beginConstructor(path);
+        writer.line("this(path, false);");
+        writer.end();
+
+        writer.beginConstructor(path, WITH_NULL_BINDINGS);
+        writer.line("super(", model.getSimpleName(), ".class);");
+        writer.line("this.withNullBindings = withNullBindings;");
+        StringBuilder args = new StringBuilder();
+        for (Property property : model.getProperties()) {
+            if (args.length() > 0) {
+                args.append(", ");
+            }
+            args.append("path.").append(property.getEscapedName());
+        }
+        writer.line("this.args = Arrays.<Expression<?>>asList(", args.toString(), ");");
+        writer.end();
+
+        // accept
+        writer.line("@Override");
+        writer.line("public <R, C> R accept(Visitor<R, C> v, C context) {");
+        writer.line("    return v.visit(this, context);");
+        writer.line("}");
+        writer.nl();
+
+        // getArgs
+        writer.line("@Override");
+        writer.line("public List<Expression<?>> getArgs() {");
+        writer.line("    return args;");
+        writer.line("}");
+        writer.nl();
+
+        serializeNewInstance(model, writer);
+        serializeCreateMap(model, queryType, writer);
+
+        writer.end();
+    }
+
+    protected void serializeNewInstance(EntityType model, CodeWriter writer) throws IOException {
+        writer.line("@Override");
+        writer.line("public ", model.getSimpleName(), " newInstance(Object... args) {");
+        writer.line("    ", model.getSimpleName(), " bean = new ", model.getSimpleName(), "();");
+        int i = 0;
+        for (Property property : model.getProperties()) {
+            writer.line("    bean.set", BeanUtils.capitalize(property.getEscapedName()),
+                    "((", writer.getGenericName(true, property.getType()), ") args[",
+                    String.valueOf(i++), "]);");
+        }
+        writer.line("    return bean;");
+        writer.line("}");
+        writer.nl();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void serializeCreateMap(EntityType model, Type queryType, CodeWriter writer)
+            throws IOException {
+        // primary key columns are not bound to null
+        Set<String> primaryKeyProperties = new HashSet<String>();
+        Collection<PrimaryKeyData> primaryKeys =
+                (Collection<PrimaryKeyData>) model.getData().get(PrimaryKeyData.class);
+        if (primaryKeys != null) {
+            for (PrimaryKeyData primaryKey : primaryKeys) {
+                for (String column : primaryKey.getColumns()) {
+                    primaryKeyProperties.add(namingStrategy.getPropertyName(column, model));
+                }
+            }
+        }
+
+        writer.line("@Override");
+        writer.line("public Map<Path<?>, Object> createMap(RelationalPath<?> entity, ",
+                model.getSimpleName(), " bean) {");
+        writer.line("    ", queryType.getSimpleName(), " path = (", queryType.getSimpleName(), ") entity;");
+        writer.line("    Map<Path<?>, Object> values = new HashMap<Path<?>, Object>();");
+        for (Property property : model.getProperties()) {
+            String name = property.getEscapedName();
+            String getter = "bean.get" + BeanUtils.capitalize(name) + "()";
+            writer.line("    if (", getter, " != null) {");
+            writer.line("        values.put(path.", name, ", ", getter, ");");
+            if (!primaryKeyProperties.contains(name)) {
+                writer.line("    } else if (withNullBindings) {");
+                writer.line("        values.put(path.", name, ", Null.DEFAULT);");
+            }
+            writer.line("    }");
+        }
+        writer.line("    return values;");
+        writer.line("}");
+        writer.nl();
+    }
+
+}
@@ -21,18 +21,25 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Throwables;
 import com.google.common.io.Files;
 import com.mysema.codegen.CodeWriter;
 import com.mysema.codegen.JavaWriter;
@@ -41,8 +48,10 @@ import com.mysema.codegen.model.ClassType;
 import com.mysema.codegen.model.SimpleType;
 import com.mysema.codegen.model.Type;
 import com.mysema.codegen.model.TypeCategory;
+import com.mysema.query.codegen.BuildState;
 import com.mysema.query.codegen.CodegenModule;
 import com.mysema.query.codegen.EntityType;
+import com.mysema.query.codegen.ModelDigest;
 import com.mysema.query.codegen.Property;
 import com.mysema.query.codegen.QueryTypeFactory;
 import com.mysema.query.codegen.Serializer;
@@ -76,7 +85,7 @@ public class MetaDataExporter {
 
     private final SQLCodegenModule module = new SQLCodegenModule();
 
-    private final Set<String> classes = new HashSet<String>();
+    private final Set<String> classes = Collections.synchronizedSet(new HashSet<String>());
 
     private File targetFolder;
 
@@ -89,6 +98,9 @@ public class MetaDataExporter {
     @Nullable
     private Serializer beanSerializer;
 
+    @Nullable
+    private Serializer mapperSerializer;
+
     private boolean createScalaSources = false;
 
     private final Map<EntityType, Type> entityToWrapped = new HashMap<EntityType, Type>();
@@ -119,6 +131,20 @@ public class MetaDataExporter {
 
     private boolean exportViews = true;
 
+    private boolean bulkIntrospection = false;
+
+    private boolean exportMappers = false;
+
+    private int threads = 1;
+
+    private boolean incremental = false;
+
+    @Nullable
+    private BuildState buildState;
+
+    @Nullable
+    private ModelDigest modelDigest;
+
     public MetaDataExporter() {}
 
     protected EntityType createEntityType(@Nullable String schemaName, String tableName,
@@ -185,6 +211,11 @@ public class MetaDataExporter {
         queryTypeFactory = module.get(QueryTypeFactory.class);
         serializer = module.get(Serializer.class);
         beanSerializer = module.get(Serializer.class, SQLCodegenModule.BEAN_SERIALIZER);
+        if (exportMappers && beanSerializer != null && !createScalaSources) {
+            mapperSerializer = module.get(Serializer.class, SQLCodegenModule.MAPPER_SERIALIZER);
+        } else {
+            mapperSerializer = null;
+        }
         namingStrategy = module.get(NamingStrategy.class);
         configuration = module.get(Configuration.class);
 
@@ -196,6 +227,21 @@ public class MetaDataExporter {
                     module.getBeanPrefix(), module.getBeanSuffix(), schemaToPackage);
         }
 
+        File buildStateFile = new File(targetFolder, BuildState.FILE_NAME);
+        if (incremental) {
+            buildState = new BuildState();
+            try {
+                buildState.load(buildStateFile);
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            modelDigest = new ModelDigest(serializer, beanSerializer, mapperSerializer,
+                    queryTypeFactory, sourceEncoding, createScalaSources);
+        } else {
+            buildState = null;
+            modelDigest = null;
+        }
+
         List<String> types = new ArrayList<String>(2);
         if (exportTables) {
             types.add("TABLE");
@@ -204,13 +250,29 @@ public class MetaDataExporter {
             types.add("VIEW");
         }
 
-        ResultSet tables = md.getTables(null, schemaPattern, tableNamePattern, types.toArray(new String[types.size()]));
-        try{
-            while (tables.next()) {
-                handleTable(md, tables);
+        List<EntityType> entityTypes;
+        if (bulkIntrospection) {
+            entityTypes = handleTables(md, types.toArray(new String[types.size()]));
+        } else {
+            entityTypes = new ArrayList<EntityType>();
+            ResultSet tables = md.getTables(null, schemaPattern, tableNamePattern, types.toArray(new String[types.size()]));
+            try{
+                while (tables.next()) {
+                    entityTypes.add(handleTable(md, tables));
+                }
+            }finally{
+                tables.close();
+            }
+        }
+
+        serialize(entityTypes);
+
+        if (buildState != null) {
+            try {
+                buildState.store(buildStateFile);
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
             }
-        }finally{
-            tables.close();
         }
     }
 
@@ -254,35 +316,31 @@ public class MetaDataExporter {
         classModel.addProperty(property);
     }
 
-    private void handleTable(DatabaseMetaData md, ResultSet tables) throws SQLException {
-        String catalog = tables.getString("TABLE_CAT");
-        String schema = tables.getString("TABLE_SCHEM");
+    private EntityType createEntityType(ResultSet tables) throws SQLException {
         String schemaName = normalize(tables.getString("TABLE_SCHEM"));
         String tableName = normalize(tables.getString("TABLE_NAME"));
         String normalizedTableName = namingStrategy.normalizeTableName(tableName);
         String className = namingStrategy.getClassName(normalizedTableName);
-        EntityType classModel = createEntityType(schemaName, normalizedTableName, className);
+        return createEntityType(schemaName, normalizedTableName, className);
+    }
+
+    private EntityType handleTable(DatabaseMetaData md, ResultSet tables) throws SQLException {
+        String catalog = tables.getString("TABLE_CAT");
+        String schema = tables.getString("TABLE_SCHEM");
+        String tableName = normalize(tables.getString("TABLE_NAME"));
+        EntityType classModel = createEntityType(tables);
 
         // collect primary keys
-        Map<String,PrimaryKeyData> primaryKeyData = keyDataFactory
-                .getPrimaryKeys(md, catalog, schema, tableName);
-        if (!primaryKeyData.isEmpty()) {
-            classModel.getData().put(PrimaryKeyData.class, primaryKeyData.values());
-        }
+        addKeyData(classModel, PrimaryKeyData.class, keyDataFactory
+                .getPrimaryKeys(md, catalog, schema, tableName));
 
         // collect foreign keys
-        Map<String,ForeignKeyData> foreignKeyData = keyDataFactory
-                .getImportedKeys(md, catalog, schema, tableName);
-        if (!foreignKeyData.isEmpty()) {
-            classModel.getData().put(ForeignKeyData.class, foreignKeyData.values());
-        }
+        addKeyData(classModel, ForeignKeyData.class, keyDataFactory
+                .getImportedKeys(md, catalog, schema, tableName));
 
         // collect inverse foreign keys
-        Map<String,InverseForeignKeyData> inverseForeignKeyData = keyDataFactory
-                .getExportedKeys(md, catalog, schema, tableName);
-        if (!inverseForeignKeyData.isEmpty()) {
-            classModel.getData().put(InverseForeignKeyData.class, inverseForeignKeyData.values());
-        }
+        addKeyData(classModel, InverseForeignKeyData.class, keyDataFactory
+                .getExportedKeys(md, catalog, schema, tableName));
 
         // collect columns
         ResultSet columns = md.getColumns(catalog, schema, tableName.replace("/", "//"), null);
@@ -293,11 +351,83 @@ public class MetaDataExporter {
         }finally{
             columns.close();
         }
+        return classModel;
+    }
+
+    /**
+     * Introspect all tables with schema wide metadata calls instead of per table calls
+     *
+     * @param md
+     * @param types table types
+     * @return
+     * @throws SQLException
+     */
+    private List<EntityType> handleTables(DatabaseMetaData md, String[] types) throws SQLException {
+        Map<List<String>, EntityType> entityTypes = new LinkedHashMap<List<String>, EntityType>();
+        Map<List<String>, String> tableNames = new HashMap<List<String>, String>();
+        ResultSet tables = md.getTables(null, schemaPattern, tableNamePattern, types);
+        try{
+            while (tables.next()) {
+                List<String> table = Arrays.asList(tables.getString("TABLE_CAT"),
+                        tables.getString("TABLE_SCHEM"), tables.getString("TABLE_NAME"));
+                entityTypes.put(table, createEntityType(tables));
+                tableNames.put(table, normalize(tables.getString("TABLE_NAME")));
+            }
+        }finally{
+            tables.close();
+        }
 
-        // serialize model
-        serialize(classModel);
+        // collect keys, drivers which don't support schema wide key metadata return no rows
+        // or reject the null table name and are handled via per table calls
+        Map<List<String>, Map<String, PrimaryKeyData>> primaryKeys = Collections.emptyMap();
+        Map<List<String>, Map<String, ForeignKeyData>> foreignKeys = Collections.emptyMap();
+        Map<List<String>, Map<String, InverseForeignKeyData>> inverseForeignKeys = Collections.emptyMap();
+        try {
+            primaryKeys = keyDataFactory.getAllPrimaryKeys(md, null, schemaPattern);
+            foreignKeys = keyDataFactory.getAllImportedKeys(md, null, schemaPattern);
+            inverseForeignKeys = keyDataFactory.getAllExportedKeys(md, null, schemaPattern);
+        } catch (SQLException e) {
+            logger.debug("Schema wide key metadata is not supported, using per table calls", e);
+            primaryKeys = Collections.emptyMap();
+            foreignKeys = Collections.emptyMap();
+            inverseForeignKeys = Collections.emptyMap();
+        }
+        for (Map.Entry<List<String>, EntityType> entry : entityTypes.entrySet()) {
+            List<String> table = entry.getKey();
+            EntityType classModel = entry.getValue();
+            String catalog = table.get(0), schema = table.get(1), tableName = table.get(2);
+            addKeyData(classModel, PrimaryKeyData.class, !primaryKeys.isEmpty()
+                    ? primaryKeys.get(table)
+                    : keyDataFactory.getPrimaryKeys(md, catalog, schema, tableName));
+            addKeyData(classModel, ForeignKeyData.class, !foreignKeys.isEmpty()
+                    ? foreignKeys.get(table)
+                    : keyDataFactory.getImportedKeys(md, catalog, schema, tableName));
+            addKeyData(classModel, InverseForeignKeyData.class, !inverseForeignKeys.isEmpty()
+                    ? inverseForeignKeys.get(table)
+                    : keyDataFactory.getExportedKeys(md, catalog, schema, tableName));
+        }
 
-        logger.info("Exported " + tableName + " successfully");
+        // collect columns
+        ResultSet columns = md.getColumns(null, schemaPattern, tableNamePattern, null);
+        try{
+            while (columns.next()) {
+                List<String> table = Arrays.asList(columns.getString("TABLE_CAT"),
+                        columns.getString("TABLE_SCHEM"), columns.getString("TABLE_NAME"));
+                EntityType classModel = entityTypes.get(table);
+                if (classModel != null) {
+                    handleColumn(classModel, tableNames.get(table), columns);
+                }
+            }
+        }finally{
+            columns.close();
+        }
+        return new ArrayList<EntityType>(entityTypes.values());
+    }
+
+    private void addKeyData(EntityType classModel, Class<?> keyType, @Nullable Map<String, ?> keyData) {
+        if (keyData != null && !keyData.isEmpty()) {
+            classModel.getData().put(keyType, keyData.values());
+        }
     }
 
     private String normalize(String str) {
@@ -308,6 +438,37 @@ public class MetaDataExporter {
         }
     }
 
+    private void serialize(List<EntityType> types) {
+        if (threads > 1 && types.size() > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, types.size()));
+            try {
+                List<Future<?>> tasks = new ArrayList<Future<?>>(types.size());
+                for (final EntityType type : types) {
+                    tasks.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            serialize(type);
+                        }
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e.getMessage(), e);
+            } catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            for (EntityType type : types) {
+                serialize(type);
+            }
+        }
+    }
+
     private void serialize(EntityType type) {
         try {
             String fileSuffix = createScalaSources ? ".scala" : ".java";
@@ -317,6 +478,12 @@ public class MetaDataExporter {
                 String path = packageName.replace('.', '/') + "/" + type.getSimpleName() + fileSuffix;
                 write(beanSerializer, path, type);
 
+                if (mapperSerializer != null) {
+                    String mapperPath = packageName.replace('.', '/') + "/" + type.getSimpleName()
+                            + MapperSerializer.SUFFIX + fileSuffix;
+                    write(mapperSerializer, mapperPath, type);
+                }
+
                 String otherPath = entityToWrapped.get(type).getFullName().replace('.', '/') + fileSuffix;
                 write(serializer, otherPath, type);
             } else {
@@ -328,11 +495,20 @@ public class MetaDataExporter {
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
+
+        logger.info("Exported " + type.getData().get("table") + " successfully");
     }
 
     private void write(Serializer serializer, String path, EntityType type) throws IOException {
         File targetFile = new File(targetFolder, path);
         classes.add(targetFile.getPath());
+        String digest = null;
+        if (modelDigest != null) {
+            digest = modelDigest.digest(type, SimpleSerializerConfig.DEFAULT);
+            if (targetFile.exists() && buildState.isUnchanged(path, digest)) {
+                return;
+            }
+        }
         StringWriter w = new StringWriter();
         CodeWriter writer = createScalaSources ? new ScalaWriter(w) : new JavaWriter(w);
         serializer.serialize(type, SimpleSerializerConfig.DEFAULT, writer);
@@ -352,6 +528,9 @@ public class MetaDataExporter {
         if (generate) {
             Files.write(bytes, targetFile);
         }
+        if (digest != null) {
+            buildState.update(path, digest);
+        }
     }
 
 
@@ -557,6 +736,56 @@ public class MetaDataExporter {
         this.exportViews = exportViews;
     }
 
+    /**
+     * Set true to fetch columns and keys with schema wide metadata calls instead of per table
+     * calls. This is usually much faster for large schemas. Key metadata is fetched per table,
+     * if the JDBC driver doesn't return key metadata for null table names or rejects them.
+     *
+     * @param bulkIntrospection whether to use schema wide metadata calls (default: false)
+     */
+    public void setBulkIntrospection(boolean bulkIntrospection) {
+        this.bulkIntrospection = bulkIntrospection;
+    }
+
+    /**
+     * Set true to export a row mapper per table, which maps rows to beans and beans to DML
+     * bindings without reflection. Row mappers are only exported for Java bean types.
+     *
+     * @param exportMappers whether to export row mappers (default: false)
+     */
+    public void setExportMappers(boolean exportMappers) {
+        this.exportMappers = exportMappers;
+    }
+
+    /**
+     * Override the row mapper serializer class
+     *
+     * @param mapperSerializerClass serializer for row mappers (default: MapperSerializer)
+     */
+    public void setMapperSerializerClass(Class<? extends Serializer> mapperSerializerClass) {
+        module.bind(SQLCodegenModule.MAPPER_SERIALIZER, mapperSerializerClass);
+    }
+
+    /**
+     * Set the amount of threads used to serialize the exported types
+     *
+     * @param threads amount of serializer threads (default: 1)
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Set whether sources are generated incrementally. Digests of the exported models are
+     * recorded in the target folder and sources of unchanged tables are not serialized and
+     * written again.
+     *
+     * @param incremental
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
 
 
 }
@@ -27,6 +27,8 @@ import com.mysema.query.sql.Configuration;
 public class SQLCodegenModule extends CodegenModule{
     
     public static final String BEAN_SERIALIZER = "beanSerializer";
+
+    public static final String MAPPER_SERIALIZER = "mapperSerializer";
     
     public static final String BEAN_SUFFIX = "beanSuffix";
 
@@ -54,6 +56,7 @@ public class SQLCodegenModule extends CodegenModule{
         bind(BEAN_PACKAGE_NAME, "com.example");
         bind(PACKAGE_NAME, "com.example");
         bind(BEAN_SERIALIZER, (Class<?>)null);
+        bind(MAPPER_SERIALIZER, MapperSerializer.class);
         bind(SCHEMA_TO_PACKAGE, false);
     }
     
@@ -14,15 +14,25 @@
 package com.mysema.query.sql.codegen;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -36,8 +46,11 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.mysema.codegen.SimpleCompiler;
 import com.mysema.query.codegen.BeanSerializer;
+import com.mysema.query.codegen.BuildState;
 import com.mysema.query.codegen.Serializer;
 import com.mysema.util.FileUtils;
 
@@ -198,6 +211,175 @@ public class MetaDataExporterTest {
         assertTrue(new File("target/7/test2/DateTest.java").exists());
     }
 
+    @Test
+    public void Bulk_Introspection() throws SQLException, IOException {
+        MetaDataExporter exporter = new MetaDataExporter();
+        exporter.setSchemaPattern("PUBLIC");
+        exporter.setPackageName("test");
+        exporter.setTargetFolder(new File("target/bulk1"));
+        exporter.export(connection.getMetaData());
+
+        MetaDataExporter bulkExporter = new MetaDataExporter();
+        bulkExporter.setSchemaPattern("PUBLIC");
+        bulkExporter.setPackageName("test");
+        bulkExporter.setTargetFolder(new File("target/bulk2"));
+        bulkExporter.setBulkIntrospection(true);
+        bulkExporter.setThreads(4);
+        bulkExporter.export(connection.getMetaData());
+
+        assertEquals(exporter.getClasses().size(), bulkExporter.getClasses().size());
+        for (String name : new File("target/bulk1/test").list()) {
+            assertEquals(name,
+                    Files.toString(new File("target/bulk1/test", name), Charsets.UTF_8),
+                    Files.toString(new File("target/bulk2/test", name), Charsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void Bulk_Introspection_Of_Keys() throws SQLException, IOException {
+        MetaDataExporter exporter = new MetaDataExporter();
+        exporter.setSchemaPattern("PUBLIC");
+        exporter.setPackageName("test");
+        exporter.setTargetFolder(new File("target/bulkkeys1"));
+        exporter.export(connection.getMetaData());
+
+        List<String> tableCalls = new ArrayList<String>();
+        MetaDataExporter bulkExporter = new MetaDataExporter();
+        bulkExporter.setSchemaPattern("PUBLIC");
+        bulkExporter.setPackageName("test");
+        bulkExporter.setTargetFolder(new File("target/bulkkeys2"));
+        bulkExporter.setBulkIntrospection(true);
+        bulkExporter.export(schemaWideKeys(connection.getMetaData(), true, tableCalls));
+
+        // all keys were fetched with schema wide calls
+        assertEquals(Collections.emptyList(), tableCalls);
+        for (String name : new File("target/bulkkeys1/test").list()) {
+            assertEquals(name,
+                    Files.toString(new File("target/bulkkeys1/test", name), Charsets.UTF_8),
+                    Files.toString(new File("target/bulkkeys2/test", name), Charsets.UTF_8));
+        }
+
+        String employee = Files.toString(new File("target/bulkkeys2/test/QEmployee.java"), Charsets.UTF_8);
+        assertTrue(employee.contains("employeePk = createPrimaryKey(id)"));
+        assertTrue(employee.contains("superiorFk = createForeignKey(superiorId, \"ID\")"));
+        assertTrue(employee.contains("_superiorFk = createInvForeignKey(id, \"SUPERIOR_ID\")"));
+        String multikey = Files.toString(new File("target/bulkkeys2/test/QMultikey.java"), Charsets.UTF_8);
+        assertTrue(multikey.contains("multikeyPk = createPrimaryKey(id, id2, id3)"));
+        String survey = Files.toString(new File("target/bulkkeys2/test/QSurvey.java"), Charsets.UTF_8);
+        assertFalse(survey.contains("createPrimaryKey"));
+    }
+
+    @Test
+    public void Bulk_Introspection_Of_Keys_Not_Supported() throws SQLException, IOException {
+        List<String> tableCalls = new ArrayList<String>();
+        MetaDataExporter bulkExporter = new MetaDataExporter();
+        bulkExporter.setSchemaPattern("PUBLIC");
+        bulkExporter.setPackageName("test");
+        bulkExporter.setTargetFolder(new File("target/bulkkeys3"));
+        bulkExporter.setBulkIntrospection(true);
+        bulkExporter.export(schemaWideKeys(connection.getMetaData(), false, tableCalls));
+
+        // keys were fetched per table
+        assertTrue(tableCalls.contains("EMPLOYEE"));
+        String employee = Files.toString(new File("target/bulkkeys3/test/QEmployee.java"), Charsets.UTF_8);
+        assertTrue(employee.contains("employeePk = createPrimaryKey(id)"));
+        assertTrue(employee.contains("superiorFk = createForeignKey(superiorId, \"ID\")"));
+    }
+
+    /**
+     * Wrap the H2 metadata, which returns no key rows for null table names, to answer
+     * schema wide key calls via the information schema or to reject them
+     */
+    private static DatabaseMetaData schemaWideKeys(final DatabaseMetaData md, final boolean supported,
+            final List<String> tableCalls) {
+        return (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+                new Class<?>[]{DatabaseMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("getPrimaryKeys") || name.equals("getImportedKeys")
+                        || name.equals("getExportedKeys")) {
+                    String schema = (String) args[1];
+                    String table = (String) args[2];
+                    if (table != null) {
+                        tableCalls.add(table);
+                    } else if (!supported) {
+                        throw new SQLException("table name must not be null");
+                    } else if (name.equals("getPrimaryKeys")) {
+                        return query("select TABLE_CATALOG, TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, "
+                                + "ORDINAL_POSITION, ifnull(CONSTRAINT_NAME, INDEX_NAME) "
+                                + "from INFORMATION_SCHEMA.INDEXES "
+                                + "where TABLE_SCHEMA like ? and PRIMARY_KEY = true "
+                                + "order by TABLE_NAME, COLUMN_NAME", schema);
+                    } else {
+                        return query("select PKTABLE_CATALOG, PKTABLE_SCHEMA, PKTABLE_NAME, PKCOLUMN_NAME, "
+                                + "FKTABLE_CATALOG, FKTABLE_SCHEMA, FKTABLE_NAME, FKCOLUMN_NAME, "
+                                + "ORDINAL_POSITION, UPDATE_RULE, DELETE_RULE, FK_NAME "
+                                + "from INFORMATION_SCHEMA.CROSS_REFERENCES "
+                                + "where " + (name.equals("getImportedKeys") ? "FK" : "PK")
+                                + "TABLE_SCHEMA like ? "
+                                + "order by FKTABLE_NAME, PKTABLE_NAME, FK_NAME, ORDINAL_POSITION", schema);
+                    }
+                }
+                try {
+                    return method.invoke(md, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    private static ResultSet query(String sql, String schemaPattern) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql);
+        stmt.setString(1, schemaPattern != null ? schemaPattern : "%");
+        return stmt.executeQuery();
+    }
+
+    @Test
+    public void Incremental() throws SQLException, IOException {
+        File folder = new File("target/incremental");
+        FileUtils.delete(folder);
+        statement.execute("create table incremental (id int)");
+        try {
+            export(folder);
+            assertTrue(new File(folder, BuildState.FILE_NAME).exists());
+            File[] files = new File(folder, "test").listFiles();
+            for (File file : files) {
+                assertTrue(file.setLastModified(1000l));
+            }
+
+            // unchanged
+            export(folder);
+            for (File file : files) {
+                assertEquals(file.getName(), 1000l, file.lastModified());
+            }
+
+            // changed
+            statement.execute("alter table incremental add column name varchar(10)");
+            export(folder);
+            for (File file : files) {
+                if (file.getName().equals("QIncremental.java")) {
+                    assertFalse(file.lastModified() == 1000l);
+                } else {
+                    assertEquals(file.getName(), 1000l, file.lastModified());
+                }
+            }
+        } finally {
+            statement.execute("drop table incremental");
+        }
+    }
+
+    private void export(File folder) throws SQLException {
+        MetaDataExporter exporter = new MetaDataExporter();
+        exporter.setSchemaPattern("PUBLIC");
+        exporter.setPackageName("test");
+        exporter.setTargetFolder(folder);
+        exporter.setColumnAnnotations(true);
+        exporter.setIncremental(true);
+        exporter.export(connection.getMetaData());
+    }
+
     @Test
     public void Minimal_Configuration() throws SQLException{
         MetaDataExporter exporter = new MetaDataExporter();
@@ -252,6 +434,27 @@ public class MetaDataExporterTest {
         assertTrue(new File("target/b/test/DateTestBean.java").exists());
     }
 
+    @Test
+    public void Export_Mappers() throws SQLException, IOException {
+        MetaDataExporter exporter = new MetaDataExporter();
+        exporter.setSchemaPattern("PUBLIC");
+        exporter.setPackageName("test");
+        exporter.setBeanPackageName("test.beans");
+        exporter.setBeanSerializer(new BeanSerializer());
+        exporter.setExportMappers(true);
+        exporter.setTargetFolder(new File("target/mappers"));
+        exporter.export(connection.getMetaData());
+
+        String mapper = Files.toString(new File("target/mappers/test/beans/EmployeeMapper.java"), Charsets.UTF_8);
+        assertTrue(mapper.contains("values.put(path.firstname, Null.DEFAULT);"));
+        assertFalse(mapper.contains("values.put(path.id, Null.DEFAULT);"));
+
+        JavaCompiler compiler = new SimpleCompiler();
+        Set<String> classes = exporter.getClasses();
+        assertEquals(0, compiler.run(null, System.out, System.err,
+                classes.toArray(new String[classes.size()])));
+    }
+
     private void test(String namePrefix, String nameSuffix, String beanPrefix, String beanSuffix,
             NamingStrategy namingStrategy, String target, boolean withBeans,
             boolean withInnerClasses) throws SQLException{
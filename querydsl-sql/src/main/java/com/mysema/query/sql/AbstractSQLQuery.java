@@ -13,7 +13,6 @@
  */
 package com.mysema.query.sql;
 
-import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -21,6 +20,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Nullable;
 
@@ -28,9 +28,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.mysema.commons.lang.CloseableIterator;
 import com.mysema.query.DefaultQueryMetadata;
 import com.mysema.query.JoinFlag;
+import com.mysema.query.KeysetResults;
 import com.mysema.query.Query;
 import com.mysema.query.QueryException;
 import com.mysema.query.QueryFlag;
@@ -40,12 +42,14 @@ import com.mysema.query.QueryModifiers;
 import com.mysema.query.SearchResults;
 import com.mysema.query.Tuple;
 import com.mysema.query.support.Expressions;
+import com.mysema.query.support.Keyset;
 import com.mysema.query.support.ProjectableQuery;
 import com.mysema.query.support.QueryMixin;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.ExpressionUtils;
-import com.mysema.query.types.FactoryExpression;
+import com.mysema.query.types.FingerprintVisitor;
 import com.mysema.query.types.OperationImpl;
+import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.ParamExpression;
 import com.mysema.query.types.ParamNotSetException;
 import com.mysema.query.types.Path;
@@ -178,11 +182,20 @@ public abstract class AbstractSQLQuery<Q extends AbstractSQLQuery<Q> & Query<Q>>
 
     protected String buildQueryString(boolean forCountRow) {
         SQLSerializer serializer = createSerializer();
+        SQLTemplates templates = configuration.getTemplates();
+        long fingerprint = queryMixin.getMetadata().getFingerprint();
+        if (union != null) {
+            fingerprint = FingerprintVisitor.mix(fingerprint, FingerprintVisitor.fingerprint(union));
+        } else if (forCountRow) {
+            fingerprint = FingerprintVisitor.mix(fingerprint, 1L);
+        }
+        serializer.ensureCapacity(templates.getLengthHint(fingerprint));
         if (union != null) {
             serializer.serializeUnion(union, queryMixin.getMetadata(), unionAll);
         } else {
             serializer.serialize(queryMixin.getMetadata(), forCountRow);
         }
+        templates.setLengthHint(fingerprint, serializer.getLength());
         constants = serializer.getConstants();
         constantPaths = serializer.getConstantPaths();
         return serializer.toString();
@@ -336,11 +349,6 @@ public abstract class AbstractSQLQuery<Q extends AbstractSQLQuery<Q> & Query<Q>>
         return queryMixin.rightJoin(entity).on(key.on(entity));
     }
 
-    @Nullable
-    private <T> T get(ResultSet rs, Expression<?> expr, int i, Class<T> type) throws SQLException {
-        return configuration.get(rs, expr instanceof Path ? (Path)expr : null, i, type);
-    }
-
     private void set(PreparedStatement stmt, Path<?> path, int i, Object value) throws SQLException{
         configuration.set(stmt, path, i, value);
     }
@@ -444,39 +452,13 @@ public abstract class AbstractSQLQuery<Q extends AbstractSQLQuery<Q> & Query<Q>>
             setParameters(stmt, constants, constantPaths, metadata.getParams());
             final ResultSet rs = stmt.executeQuery();
 
-            if (expr == null) {
-                return new SQLResultIterator<RT>(stmt, rs) {
-                    @Override
-                    public RT produceNext(ResultSet rs) throws Exception {
-                        return (RT) rs.getObject(1);
-                    }
-                };
-            } else if (expr instanceof FactoryExpression) {
-                return new SQLResultIterator<RT>(stmt, rs) {
-                    @Override
-                    public RT produceNext(ResultSet rs) throws Exception {
-                        return newInstance((FactoryExpression<RT>) expr, rs, 0);
-                    }
-                };
-            } else if (expr.getType().isArray()) {
-                return new SQLResultIterator<RT>(stmt, rs) {
-                    @Override
-                    public RT produceNext(ResultSet rs) throws Exception {
-                        Object[] rv = new Object[rs.getMetaData().getColumnCount()];
-                        for (int i = 0; i < rv.length; i++) {
-                            rv[i] = rs.getObject(i+1);
-                        }
-                        return (RT) rv;
-                    }
-                };
-            } else {
-                return new SQLResultIterator<RT>(stmt, rs) {
-                    @Override
-                    public RT produceNext(ResultSet rs) throws Exception {
-                        return get(rs, expr, 1, expr.getType());
-                    }
-                };
-            }
+            final RowReader<RT> reader = RowReader.create(configuration, expr, rs);
+            return new SQLResultIterator<RT>(stmt, rs) {
+                @Override
+                public RT produceNext(ResultSet rs) throws Exception {
+                    return reader.read(rs);
+                }
+            };
 
         } catch (SQLException e) {
             throw new QueryException("Caught " + e.getClass().getSimpleName() + " for " + queryString, e);
@@ -505,34 +487,12 @@ public abstract class AbstractSQLQuery<Q extends AbstractSQLQuery<Q> & Query<Q>>
                 setParameters(stmt, constants, constantPaths, queryMixin.getMetadata().getParams());
                 final ResultSet rs = stmt.executeQuery();
                 try {
+                    final RowReader<RT> reader = RowReader.create(configuration, expr, rs);
                     final List<RT> rv = new ArrayList<RT>();
-                    if (expr instanceof FactoryExpression) {
-                        FactoryExpression<RT> fe = (FactoryExpression<RT>)expr;
-                        while (rs.next()) {
-                            rv.add(newInstance(fe, rs, 0));
-                        }
-                    }  else if (expr.getType().isArray()) {
-                        while (rs.next()) {
-                            Object[] row = new Object[rs.getMetaData().getColumnCount()];
-                            for (int i = 0; i < row.length; i++) {
-                                row[i] = rs.getObject(i+1);
-                            }
-                            rv.add((RT)row);
-                        }
-                    } else {
-                        while (rs.next()) {
-                            rv.add(get(rs, expr, 1, expr.getType()));
-                        }
+                    while (rs.next()) {
+                        rv.add(reader.read(rs));
                     }
                     return rv;
-                } catch (IllegalAccessException e) {
-                    throw new QueryException(e);
-                } catch (InvocationTargetException e) {
-                    throw new QueryException(e);
-                } catch (InstantiationException e) {
-                    throw new QueryException(e);
-                } catch (SQLException e) {
-                    throw new QueryException(e);
                 } finally {
                     rs.close();
                 }
@@ -571,13 +531,82 @@ public abstract class AbstractSQLQuery<Q extends AbstractSQLQuery<Q> & Query<Q>>
         }
     }
 
-    private <RT> RT newInstance(FactoryExpression<RT> c, ResultSet rs, int offset)
-        throws InstantiationException, IllegalAccessException, InvocationTargetException, SQLException{
-        Object[] args = new Object[c.getArgs().size()];
-        for (int i = 0; i < args.length; i++) {
-            args[i] = get(rs, c.getArgs().get(i), offset + i + 1, c.getArgs().get(i).getType());
-        }
-        return c.newInstance(args);
+    /**
+     * Get the count of matched rows asynchronously using the executor of the configuration.
+     * The query must not be modified before the execution has completed.
+     *
+     * @return
+     */
+    public ListenableFuture<Long> countAsync() {
+        return configuration.submit(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return count();
+            }
+        });
+    }
+
+    /**
+     * Get the projection as a typed List asynchronously using the executor of the configuration.
+     * The query must not be modified before the execution has completed.
+     *
+     * @param args projection
+     * @return
+     */
+    public ListenableFuture<List<Tuple>> listAsync(Expression<?>... args) {
+        return listAsync(new QTuple(args));
+    }
+
+    /**
+     * Get the projection as a typed List asynchronously using the executor of the configuration.
+     * The query must not be modified before the execution has completed.
+     *
+     * @param expr projection
+     * @return
+     */
+    public <RT> ListenableFuture<List<RT>> listAsync(final Expression<RT> expr) {
+        return configuration.submit(new Callable<List<RT>>() {
+            @Override
+            public List<RT> call() {
+                return list(expr);
+            }
+        });
+    }
+
+    /**
+     * Get the projection in {@link SearchResults} form asynchronously using the executor of the
+     * configuration. The query must not be modified before the execution has completed.
+     *
+     * @param expr projection
+     * @return
+     */
+    public <RT> ListenableFuture<SearchResults<RT>> listResultsAsync(final Expression<RT> expr) {
+        return configuration.submit(new Callable<SearchResults<RT>>() {
+            @Override
+            public SearchResults<RT> call() {
+                return listResults(expr);
+            }
+        });
+    }
+
+    /**
+     * Get the page of results following the given row using keyset pagination. Row value
+     * comparisons are used if the templates support them, and the default ordering of NULLs
+     * is taken from the templates.
+     *
+     * @param expr projection
+     * @param order order specifiers
+     * @param lastSeen order target values of the last seen row or null for the first page
+     * @param limit page size
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <RT> KeysetResults<RT> listKeyset(Expression<RT> expr, List<? extends OrderSpecifier<?>> order,
+            @Nullable Tuple lastSeen, int limit) {
+        SQLTemplates templates = configuration.getTemplates();
+        return Keyset.list((Q)this, expr, order, lastSeen, limit,
+                templates.isRowValueComparisonSupported(), templates.isNullsFirstInAscendingOrder(),
+                templates.isNullsFirstInDescendingOrder());
     }
 
     public Q on(Predicate condition) {
@@ -17,6 +17,8 @@ import java.sql.Connection;
 
 import javax.inject.Provider;
 
+import com.mysema.query.sql.dml.Mapper;
+import com.mysema.query.sql.dml.SQLBulkLoader;
 import com.mysema.query.sql.dml.SQLDeleteClause;
 import com.mysema.query.sql.dml.SQLInsertClause;
 import com.mysema.query.sql.dml.SQLMergeClause;
@@ -43,6 +45,17 @@ public abstract class AbstractSQLQueryFactory<Q extends SQLCommonQuery<?>> imple
         this.connection = connection;
     }
 
+    /**
+     * Create a new bulk loader for the given table
+     *
+     * @param path table
+     * @param mapper mapper for the rows
+     * @return
+     */
+    public <T> SQLBulkLoader<T> bulkLoader(RelationalPath<?> path, Mapper<? super T> mapper) {
+        return new SQLBulkLoader<T>(connection.get(), configuration, path, mapper);
+    }
+
     @Override
     public final SQLDeleteClause delete(RelationalPath<?> path) {
         return new SQLDeleteClause(connection.get(), configuration, path);
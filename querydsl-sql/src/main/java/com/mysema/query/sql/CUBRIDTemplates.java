@@ -48,6 +48,8 @@ public class CUBRIDTemplates extends SQLTemplates {
 
     public CUBRIDTemplates(char escape, boolean quote) {
         super("\"", escape, quote);
+        setNullsFirstInAscendingOrder(true);
+        setNullsFirstInDescendingOrder(false);
         setDummyTable(null);
         setParameterMetadataAvailable(false);
         setNullsFirst(null);
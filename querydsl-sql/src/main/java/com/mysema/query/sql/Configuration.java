@@ -18,10 +18,17 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Nullable;
 
 import com.google.common.collect.Maps;
+import com.google.common.primitives.Primitives;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.mysema.commons.lang.Pair;
 import com.mysema.query.sql.types.BigDecimalAsDoubleType;
 import com.mysema.query.sql.types.Null;
@@ -57,6 +64,13 @@ public final class Configuration {
 
     private boolean hasTableColumnTypes = false;
 
+    private boolean inListPadding = false;
+
+    private boolean useArraysForInLists = false;
+
+    @Nullable
+    private ListeningExecutorService executor;
+
     /**
      * Create a new Configuration instance
      *
@@ -159,13 +173,62 @@ public final class Configuration {
             } else {
                 stmt.setNull(i, Types.NULL);
             }
+        } else if (value instanceof Object[] && javaTypeMapping.getType(value.getClass()) == null) {
+            setArray(stmt, i, (Object[])value);
         } else {
             getType(path, (Class)value.getClass()).setValue(stmt, i, value);
         }
     }
 
+    private void setArray(PreparedStatement stmt, int i, Object[] value) throws SQLException {
+        String typeName;
+        try {
+            typeName = templates.getTypeForClass(value.getClass().getComponentType());
+        } catch (IllegalArgumentException e) {
+            stmt.setObject(i, value);
+            return;
+        }
+        java.sql.Array array;
+        try {
+            array = stmt.getConnection().createArrayOf(typeName, value);
+        } catch (SQLException e) {
+            // not supported by all drivers
+            stmt.setObject(i, value);
+            return;
+        }
+        stmt.setArray(i, array);
+    }
+
+    /**
+     * Get whether values of the given path and class can be bound as elements of a SQL array
+     *
+     * @param path
+     * @param clazz
+     * @return
+     */
+    public boolean isArrayElementType(@Nullable Path<?> path, Class<?> clazz) {
+        Class<?> cl = Primitives.wrap(clazz);
+        if (cl.isEnum() || getType(path, cl) != JavaTypeMapping.getDefaultType(cl)) {
+            return false;
+        }
+        try {
+            templates.getTypeForClass(cl);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the Type to be used for the given path and class
+     *
+     * @param <T>
+     * @param path
+     * @param clazz
+     * @return
+     */
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private <T> Type<T> getType(@Nullable Path<?> path, Class<T> clazz) {
+    public <T> Type<T> getType(@Nullable Path<?> path, Class<T> clazz) {
         if (hasTableColumnTypes && path != null && !clazz.equals(Null.class)
                 && path.getMetadata().getParent() instanceof RelationalPath) {
             String table = ((RelationalPath)path.getMetadata().getParent()).getTableName();
@@ -245,6 +308,80 @@ public final class Configuration {
         hasTableColumnTypes = true;
     }
 
+    /**
+     * Set whether IN lists are padded to the next power of two by repeating the last element.
+     * This limits the amount of distinct SQL strings for IN lists of varying size.
+     *
+     * @param inListPadding
+     */
+    public void setInListPadding(boolean inListPadding) {
+        this.inListPadding = inListPadding;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isInListPadding() {
+        return inListPadding;
+    }
+
+    /**
+     * Set whether IN lists are bound as a single array parameter, if the templates support it.
+     * IN lists of types without a SQL array type or with a custom {@link Type}, such as enums,
+     * are bound element by element.
+     *
+     * @param useArraysForInLists
+     */
+    public void setUseArraysForInLists(boolean useArraysForInLists) {
+        this.useArraysForInLists = useArraysForInLists;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isUseArraysForInLists() {
+        return useArraysForInLists;
+    }
+
+    /**
+     * Set the executor to be used for asynchronous query and DML execution. If no executor is
+     * set, asynchronous executions are run in the calling thread.
+     *
+     * <p>JDBC connections are not safe for concurrent use, so concurrently executed queries
+     * should be created with separate connections, e.g. via a connection providing query
+     * factory.</p>
+     *
+     * @param executor
+     */
+    public void setExecutor(@Nullable ExecutorService executor) {
+        this.executor = executor != null ? MoreExecutors.listeningDecorator(executor) : null;
+    }
+
+    /**
+     * @return
+     */
+    @Nullable
+    public ListeningExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Submit the given task to the configured executor or run it in the calling thread if no
+     * executor has been set
+     *
+     * @param task
+     * @return
+     */
+    public <T> ListenableFuture<T> submit(Callable<T> task) {
+        if (executor != null) {
+            return executor.submit(task);
+        } else {
+            ListenableFutureTask<T> future = ListenableFutureTask.create(task);
+            future.run();
+            return future;
+        }
+    }
+
     /**
      * @param listeners
      */
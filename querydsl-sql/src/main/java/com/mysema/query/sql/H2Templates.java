@@ -42,6 +42,8 @@ public class H2Templates extends SQLTemplates {
 
     public H2Templates(char escape, boolean quote) {
         super("\"", escape, quote);
+        setNullsFirstInAscendingOrder(true);
+        setNullsFirstInDescendingOrder(false);
         setNativeMerge(true);
         add(Ops.MathOps.ROUND, "round({0},0)");
         add(Ops.TRIM, "trim(both from {0})");
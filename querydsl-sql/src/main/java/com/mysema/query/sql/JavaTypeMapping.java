@@ -104,6 +104,11 @@ public class JavaTypeMapping {
         }
     }
 
+    @Nullable
+    static Type<?> getDefaultType(Class<?> clazz) {
+        return defaultTypes.get(clazz);
+    }
+
     private final Map<Class<?>,Type<?>> typeByClass = new HashMap<Class<?>,Type<?>>();
 
     private final Map<Class<?>,Type<?>> resolvedTypesByClass = new HashMap<Class<?>,Type<?>>();
@@ -46,9 +46,12 @@ public class MySQLTemplates extends SQLTemplates {
 
     public MySQLTemplates(char escape, boolean quote) {
         super("`", escape, quote);
+        setNullsFirstInAscendingOrder(true);
+        setNullsFirstInDescendingOrder(false);
         setParameterMetadataAvailable(false);
         setNullsFirst(null);
         setNullsLast(null);
+        setMaxParameters(65535);
 
         addClass2TypeMappings("bool", Boolean.class);
         addClass2TypeMappings("int", Integer.class);
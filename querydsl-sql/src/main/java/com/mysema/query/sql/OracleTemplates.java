@@ -62,6 +62,8 @@ public class OracleTemplates extends SQLTemplates {
         super("\"", escape, quote);
         setParameterMetadataAvailable(false);
         setBatchCountViaGetUpdateCount(true);
+        setMultiRowInsertSupported(false);
+        setMaxInListSize(1000);
         setWithRecursive("with ");
         // type mappings
         addClass2TypeMappings("number(3,0)", Byte.class);
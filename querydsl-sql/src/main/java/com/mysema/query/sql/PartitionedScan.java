@@ -0,0 +1,538 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.inject.Provider;
+import javax.sql.DataSource;
+
+import com.google.common.collect.ImmutableList;
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.query.QueryException;
+import com.mysema.query.Tuple;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.expr.NumberExpression;
+import com.mysema.query.types.path.NumberPath;
+import com.mysema.util.MathUtils;
+
+/**
+ * PartitionedScan reads the rows of a table in parallel by splitting it into ranges of an
+ * integral column. Each partition is read via its own connection and the rows of all partitions
+ * are merged into one iterator or passed to a {@link Handler}.
+ *
+ * <p>The ranges are derived from the minimum and maximum value of the column, so columns with
+ * evenly distributed values such as generated primary keys give the best balance. The order of
+ * the merged rows is undefined.</p>
+ *
+ * @author tiwe
+ *
+ * @param <T> row type
+ */
+public class PartitionedScan<T> {
+
+    /**
+     * Handler for the rows of a scan
+     *
+     * @param <T> row type
+     */
+    public interface Handler<T> {
+
+        /**
+         * Handle the given row
+         *
+         * @param row
+         */
+        void handle(T row);
+
+    }
+
+    /**
+     * Partition of a scan with progress information
+     */
+    public static final class Partition {
+
+        private final int index;
+
+        private final long lower, upper;
+
+        private final AtomicLong rows = new AtomicLong();
+
+        private volatile long startTime, endTime;
+
+        Partition(int index, long lower, long upper) {
+            this.index = index;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /**
+         * @return index of the partition
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return inclusive lower bound of the partition
+         */
+        public long getLower() {
+            return lower;
+        }
+
+        /**
+         * @return inclusive upper bound of the partition
+         */
+        public long getUpper() {
+            return upper;
+        }
+
+        /**
+         * @return amount of rows read so far
+         */
+        public long getRows() {
+            return rows.get();
+        }
+
+        /**
+         * @return true, if reading of the partition has started
+         */
+        public boolean isStarted() {
+            return startTime != 0;
+        }
+
+        /**
+         * @return true, if reading of the partition has completed
+         */
+        public boolean isCompleted() {
+            return endTime != 0;
+        }
+
+        /**
+         * @return elapsed reading time in milliseconds
+         */
+        public long getElapsedTime() {
+            if (startTime == 0) {
+                return 0;
+            } else if (endTime == 0) {
+                return System.currentTimeMillis() - startTime;
+            } else {
+                return endTime - startTime;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lower + ".." + upper + "] " + rows + " rows";
+        }
+
+    }
+
+    private static final Object END = new Object();
+
+    // queues don't accept null elements
+    private static final Object NULL = new Object();
+
+    private final Configuration configuration;
+
+    private final Provider<Connection> connections;
+
+    private final RelationalPath<?> entity;
+
+    private final NumberPath<?> column;
+
+    private final Expression<T> projection;
+
+    private final List<Predicate> conditions = new ArrayList<Predicate>();
+
+    private int partitionCount = Runtime.getRuntime().availableProcessors();
+
+    private int bufferSize = 1000;
+
+    @Nullable
+    private ExecutorService executor;
+
+    private volatile List<Partition> partitions = Collections.emptyList();
+
+    /**
+     * Create a new PartitionedScan which partitions by the primary key of the given entity
+     *
+     * @param configuration
+     * @param dataSource
+     * @param entity
+     * @param projection
+     */
+    public PartitionedScan(Configuration configuration, DataSource dataSource,
+            RelationalPath<?> entity, Expression<T> projection) {
+        this(configuration, new SQLQueryFactoryImpl.DataSourceProvider(dataSource), entity,
+                getPrimaryKeyColumn(entity), projection);
+    }
+
+    /**
+     * Create a new PartitionedScan which partitions by the given column
+     *
+     * @param configuration
+     * @param connections
+     * @param entity
+     * @param column
+     * @param projection
+     */
+    public PartitionedScan(Configuration configuration, Provider<Connection> connections,
+            RelationalPath<?> entity, NumberPath<?> column, Expression<T> projection) {
+        Class<?> type = column.getType();
+        if (!type.equals(Long.class) && !type.equals(Integer.class) && !type.equals(Short.class)
+         && !type.equals(Byte.class)) {
+            throw new IllegalArgumentException("Unsupported partition column type " + type.getName());
+        }
+        this.configuration = configuration;
+        this.connections = connections;
+        this.entity = entity;
+        this.column = column;
+        this.projection = projection;
+    }
+
+    private static NumberPath<?> getPrimaryKeyColumn(RelationalPath<?> entity) {
+        PrimaryKey<?> primaryKey = entity.getPrimaryKey();
+        if (primaryKey != null && primaryKey.getLocalColumns().size() == 1
+         && primaryKey.getLocalColumns().get(0) instanceof NumberPath<?>) {
+            return (NumberPath<?>) primaryKey.getLocalColumns().get(0);
+        } else {
+            throw new IllegalArgumentException("No single column numeric primary key for " + entity);
+        }
+    }
+
+    /**
+     * Add the given filter conditions
+     *
+     * @param conditions
+     * @return
+     */
+    public PartitionedScan<T> where(Predicate... conditions) {
+        this.conditions.addAll(Arrays.asList(conditions));
+        return this;
+    }
+
+    /**
+     * Set the amount of partitions, defaults to the amount of available processors
+     *
+     * @param partitionCount
+     * @return
+     */
+    public PartitionedScan<T> setPartitionCount(int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Illegal partition count " + partitionCount);
+        }
+        this.partitionCount = partitionCount;
+        return this;
+    }
+
+    /**
+     * Set the amount of rows buffered for iteration
+     *
+     * @param bufferSize
+     * @return
+     */
+    public PartitionedScan<T> setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Set the executor to be used for reading the partitions. If no executor is set, a thread
+     * per partition is used.
+     *
+     * @param executor
+     * @return
+     */
+    public PartitionedScan<T> setExecutor(@Nullable ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Get the partitions of the current or last scan
+     *
+     * @return
+     */
+    public List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Read all partitions and pass the rows to the given handler. Invocations of the handler are
+     * serialized, so the handler doesn't need to be thread-safe.
+     *
+     * @param handler
+     * @return amount of rows read
+     */
+    public long run(final Handler<? super T> handler) {
+        List<Partition> partitions = createPartitions();
+        ExecutorService executor = getExecutor(partitions.size());
+        List<Future<?>> futures = new ArrayList<Future<?>>(partitions.size());
+        try {
+            for (final Partition partition : partitions) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        read(partition, new Handler<T>() {
+                            @Override
+                            public void handle(T row) {
+                                synchronized (handler) {
+                                    handler.handle(row);
+                                }
+                            }
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(e);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            if (executor != this.executor) {
+                executor.shutdownNow();
+            }
+        }
+        long rows = 0;
+        for (Partition partition : partitions) {
+            rows += partition.getRows();
+        }
+        return rows;
+    }
+
+    /**
+     * Read all partitions and merge the rows into one iterator. Reading is throttled when the
+     * buffer of the iterator is full. The iterator needs to be closed after usage.
+     *
+     * @return
+     */
+    public CloseableIterator<T> iterate() {
+        final List<Partition> partitions = createPartitions();
+        final ExecutorService executor = getExecutor(partitions.size());
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(bufferSize);
+        final AtomicBoolean closed = new AtomicBoolean();
+        final List<Future<?>> futures = new ArrayList<Future<?>>(partitions.size());
+        for (final Partition partition : partitions) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    Object end = END;
+                    try {
+                        read(partition, new Handler<T>() {
+                            @Override
+                            public void handle(T row) {
+                                put(queue, row != null ? row : NULL, closed);
+                            }
+                        });
+                    } catch (Throwable e) {
+                        end = propagate(e);
+                    } finally {
+                        put(queue, end, closed);
+                    }
+                }
+            }));
+        }
+        return new CloseableIterator<T>() {
+
+            private int remaining = partitions.size();
+
+            private Object next;
+
+            private boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                while (!hasNext && remaining > 0) {
+                    try {
+                        Object value = queue.take();
+                        if (value == END) {
+                            remaining--;
+                        } else if (value instanceof RuntimeException) {
+                            close();
+                            throw (RuntimeException) value;
+                        } else {
+                            next = value != NULL ? value : null;
+                            hasNext = true;
+                        }
+                    } catch (InterruptedException e) {
+                        close();
+                        Thread.currentThread().interrupt();
+                        throw new QueryException(e);
+                    }
+                }
+                if (!hasNext) {
+                    close();
+                }
+                return hasNext;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (hasNext()) {
+                    T rv = (T) next;
+                    next = null;
+                    hasNext = false;
+                    return rv;
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    remaining = 0;
+                    for (Future<?> future : futures) {
+                        future.cancel(true);
+                    }
+                    if (executor != PartitionedScan.this.executor) {
+                        executor.shutdownNow();
+                    }
+                    queue.clear();
+                }
+            }
+
+        };
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object value, AtomicBoolean closed) {
+        try {
+            while (!closed.get() && !queue.offer(value, 100, TimeUnit.MILLISECONDS)) {
+                // retry until the consumer takes rows or closes the iterator
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(e);
+        }
+    }
+
+    private ExecutorService getExecutor(int threads) {
+        if (executor != null) {
+            return executor;
+        } else {
+            return Executors.newFixedThreadPool(Math.max(threads, 1));
+        }
+    }
+
+    private List<Partition> createPartitions() {
+        NumberExpression<?> min = column.min(), max = column.max();
+        Connection conn = connections.get();
+        Tuple range;
+        try {
+            range = new SQLQuery(conn, configuration).from(entity)
+                    .where(conditions.toArray(new Predicate[conditions.size()]))
+                    .uniqueResult(min, max);
+        } finally {
+            close(conn);
+        }
+        List<Partition> rv = new ArrayList<Partition>(partitionCount);
+        if (range != null && range.get(min) != null) {
+            long lower = range.get(min).longValue();
+            long upper = range.get(max).longValue();
+            // the span of the full long range doesn't fit into a long
+            BigInteger span = BigInteger.valueOf(upper).subtract(BigInteger.valueOf(lower))
+                    .add(BigInteger.ONE);
+            int count = span.min(BigInteger.valueOf(partitionCount)).intValue();
+            BigInteger[] sizeAndRemainder = span.divideAndRemainder(BigInteger.valueOf(count));
+            int remainder = sizeAndRemainder[1].intValue();
+            long start = lower;
+            for (int i = 0; i < count; i++) {
+                BigInteger size = i < remainder ? sizeAndRemainder[0].add(BigInteger.ONE) : sizeAndRemainder[0];
+                long end = BigInteger.valueOf(start).add(size).subtract(BigInteger.ONE).longValue();
+                rv.add(new Partition(i, start, end));
+                start = end + 1;
+            }
+        }
+        partitions = ImmutableList.copyOf(rv);
+        return partitions;
+    }
+
+    private void read(Partition partition, Handler<? super T> handler) {
+        partition.startTime = System.currentTimeMillis();
+        Connection conn = connections.get();
+        try {
+            SQLQuery query = new SQLQuery(conn, configuration).from(entity)
+                    .where(conditions.toArray(new Predicate[conditions.size()]))
+                    .where(between(column, partition.lower, partition.upper));
+            CloseableIterator<T> rows = query.iterate(projection);
+            try {
+                while (rows.hasNext() && !Thread.currentThread().isInterrupted()) {
+                    handler.handle(rows.next());
+                    partition.rows.incrementAndGet();
+                }
+            } finally {
+                rows.close();
+            }
+        } finally {
+            close(conn);
+            partition.endTime = System.currentTimeMillis();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <N extends Number & Comparable<?>> Predicate between(NumberPath<N> column,
+            long lower, long upper) {
+        Class<N> type = (Class<N>) column.getType();
+        return column.between(MathUtils.cast(lower, type), MathUtils.cast(upper, type));
+    }
+
+    private static void close(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            throw new QueryException(e);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else {
+            return new QueryException(e);
+        }
+    }
+
+}
@@ -45,6 +45,8 @@ public class PostgresTemplates extends SQLTemplates {
     public PostgresTemplates(char escape, boolean quote) {
         super("\"", escape, quote);
         setDummyTable(null);
+        setRowValueComparisonSupported(true);
+        setArrayParametersSupported(true);
         // type mappings
         addClass2TypeMappings("numeric(3,0)", Byte.class);
         addClass2TypeMappings("double precision", Double.class);
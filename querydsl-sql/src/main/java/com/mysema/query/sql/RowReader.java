@@ -0,0 +1,149 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.mysema.query.sql.types.Type;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.FactoryExpression;
+import com.mysema.query.types.Path;
+
+/**
+ * RowReader is a row mapping plan for a projection. The {@link Type} instances of the projected
+ * columns are resolved once when the plan is created, so mapping rows involves no type lookups.
+ *
+ * @author tiwe
+ *
+ * @param <T> row type
+ */
+public abstract class RowReader<T> {
+
+    /**
+     * Create a row reader for the given projection
+     *
+     * @param configuration configuration used for type resolution
+     * @param expr projection or null for a single untyped column
+     * @param rs result set to be read
+     * @return
+     * @throws SQLException
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowReader<T> create(Configuration configuration, @Nullable Expression<T> expr,
+            ResultSet rs) throws SQLException {
+        if (expr == null) {
+            return (RowReader<T>) new ObjectReader();
+        } else if (expr instanceof FactoryExpression) {
+            FactoryExpression<T> factory = (FactoryExpression<T>)expr;
+            return new FactoryReader<T>(factory, getTypes(configuration, factory.getArgs()));
+        } else if (expr.getType().isArray()) {
+            return (RowReader<T>) new ArrayReader(rs.getMetaData().getColumnCount());
+        } else {
+            return new SingleReader<T>(getType(configuration, expr));
+        }
+    }
+
+    private static Type<?>[] getTypes(Configuration configuration, List<Expression<?>> args) {
+        Type<?>[] types = new Type<?>[args.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = getType(configuration, args.get(i));
+        }
+        return types;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Type<T> getType(Configuration configuration, Expression<T> expr) {
+        return configuration.getType(expr instanceof Path ? (Path<?>)expr : null, (Class<T>)expr.getType());
+    }
+
+    /**
+     * Read the current row of the given result set
+     *
+     * @param rs
+     * @return
+     * @throws SQLException
+     */
+    @Nullable
+    public abstract T read(ResultSet rs) throws SQLException;
+
+    private static final class ObjectReader extends RowReader<Object> {
+
+        @Override
+        public Object read(ResultSet rs) throws SQLException {
+            return rs.getObject(1);
+        }
+
+    }
+
+    private static final class ArrayReader extends RowReader<Object[]> {
+
+        private final int columns;
+
+        ArrayReader(int columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public Object[] read(ResultSet rs) throws SQLException {
+            Object[] row = new Object[columns];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        }
+
+    }
+
+    private static final class SingleReader<T> extends RowReader<T> {
+
+        private final Type<T> type;
+
+        SingleReader(Type<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T read(ResultSet rs) throws SQLException {
+            return type.getValue(rs, 1);
+        }
+
+    }
+
+    private static final class FactoryReader<T> extends RowReader<T> {
+
+        private final FactoryExpression<T> factory;
+
+        private final Type<?>[] types;
+
+        FactoryReader(FactoryExpression<T> factory, Type<?>[] types) {
+            this.factory = factory;
+            this.types = types;
+        }
+
+        @Override
+        public T read(ResultSet rs) throws SQLException {
+            Object[] args = new Object[types.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = types[i].getValue(rs, i + 1);
+            }
+            return factory.newInstance(args);
+        }
+
+    }
+
+}
@@ -13,6 +13,7 @@
  */
 package com.mysema.query.sql;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -23,12 +24,14 @@ import javax.annotation.Nullable;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Primitives;
 import com.mysema.commons.lang.Pair;
 import com.mysema.query.JoinExpression;
 import com.mysema.query.JoinFlag;
 import com.mysema.query.QueryFlag;
 import com.mysema.query.QueryFlag.Position;
 import com.mysema.query.QueryMetadata;
+import com.mysema.query.sql.dml.SQLInsertBatch;
 import com.mysema.query.support.SerializerBase;
 import com.mysema.query.types.Constant;
 import com.mysema.query.types.ConstantImpl;
@@ -81,6 +84,9 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
 
     private boolean inJoin = false;
 
+    // number of visited elements which prevent caching of the enclosing fragment
+    private int uncacheable = 0;
+
     public SQLSerializer(Configuration conf) {
         this(conf, false);
     }
@@ -107,6 +113,60 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
         append(templates.quoteIdentifier(table));
     }
 
+    /**
+     * Append the cached serialized form of the given expression
+     *
+     * @param expr
+     * @return true, if a cached form was found
+     */
+    private boolean appendFragment(Expression<?> expr) {
+        if (isFragmentCacheEnabled()) {
+            final String fragment = templates.getFragment(expr);
+            if (fragment != null) {
+                append(fragment);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cache the serialized form of the given expression, if it was serialized without constants
+     * or context dependent elements. Only paths and projections are cached, since they are
+     * reused between queries, unlike most operations.
+     *
+     * @param expr
+     * @param start start position of the serialized form
+     * @param count value of the uncacheable counter before the serialization
+     */
+    private void cacheFragment(Expression<?> expr, int start, int count) {
+        if (uncacheable == count && isFragmentCacheEnabled()) {
+            templates.putFragment(expr, substring(start));
+        }
+    }
+
+    private boolean isFragmentCacheEnabled() {
+        return !dml && !skipParent && !inJoin && !inUnion;
+    }
+
+    /**
+     * Clear the serialized content, constants and serialization state, so that this serializer
+     * can be reused
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        constantPaths.clear();
+        constants.clear();
+        stage = Stage.SELECT;
+        skipParent = false;
+        dmlWithSchema = false;
+        entity = null;
+        inUnion = false;
+        inJoin = false;
+        uncacheable = 0;
+    }
+
     public List<Object> getConstants() {
         return constants;
     }
@@ -421,6 +481,50 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
 
     public void serializeForInsert(QueryMetadata metadata, RelationalPath<?> entity, List<Path<?>> columns,
             List<Expression<?>> values, @Nullable SubQueryExpression<?> subQuery) {
+        serializeInsertInto(metadata, entity, columns);
+
+        if (subQuery != null) {
+            append("\n");
+            serialize(subQuery.getMetadata(), false);
+
+        } else {
+            // values
+            append(templates.getValues());
+            serializeValues(columns, values);
+        }
+
+        serialize(Position.END, metadata.getFlags());
+
+    }
+
+    /**
+     * Serialize the given batches as a single multi-row insert. The batches are expected to have
+     * the given columns and no subqueries.
+     *
+     * @param metadata
+     * @param entity
+     * @param columns
+     * @param batches
+     */
+    public void serializeForInsert(QueryMetadata metadata, RelationalPath<?> entity, List<Path<?>> columns,
+            List<SQLInsertBatch> batches) {
+        serializeInsertInto(metadata, entity, columns);
+
+        // values
+        append(templates.getValues());
+        boolean first = true;
+        for (SQLInsertBatch batch : batches) {
+            if (!first) {
+                append(COMMA);
+            }
+            serializeValues(columns, batch.getValues());
+            first = false;
+        }
+
+        serialize(Position.END, metadata.getFlags());
+    }
+
+    private void serializeInsertInto(QueryMetadata metadata, RelationalPath<?> entity, List<Path<?>> columns) {
         this.entity = entity;
 
         serialize(Position.START, metadata.getFlags());
@@ -439,27 +543,17 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
             skipParent = false;
             append(")");
         }
+    }
 
-        if (subQuery != null) {
-            append("\n");
-            serialize(subQuery.getMetadata(), false);
-
-        } else {
-            for (int i = 0; i < columns.size(); i++) {
-                if (values.get(i) instanceof Constant<?>) {
-                    constantPaths.add(columns.get(i));
-                }
+    private void serializeValues(List<Path<?>> columns, List<Expression<?>> values) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (values.get(i) instanceof Constant<?>) {
+                constantPaths.add(columns.get(i));
             }
-
-            // values
-            append(templates.getValues());
-            append("(");
-            handle(COMMA, values);
-            append(")");
         }
-
-        serialize(Position.END, metadata.getFlags());
-
+        append("(");
+        handle(COMMA, values);
+        append(")");
     }
 
     public void serializeForUpdate(QueryMetadata metadata, RelationalPath<?> entity,
@@ -484,7 +578,8 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
             }
             handle(update.getFirst());
             append(" = ");
-            if (update.getSecond() instanceof Constant<?>) {
+            if (update.getSecond() instanceof Constant<?>
+             || update.getSecond() instanceof ParamExpression<?>) {
                 constantPaths.add(update.getFirst());
             }
             handle(update.getSecond());
@@ -602,6 +697,12 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
         stage = oldStage;
     }
 
+    @Override
+    public Void visit(Constant<?> expr, Void context) {
+        uncacheable++;
+        return super.visit(expr, context);
+    }
+
     @Override
     public void visitConstant(Object constant) {
         if (constant instanceof Collection) {
@@ -636,6 +737,7 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
 
     @Override
     public Void visit(ParamExpression<?> param, Void context) {
+        uncacheable++;
         append("?");
         constants.add(param);
         if (constantPaths.size() < constants.size()) {
@@ -644,9 +746,21 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
         return null;
     }
 
+    @Override
+    public Void visit(FactoryExpression<?> expr, Void context) {
+        if (!appendFragment(expr)) {
+            final int start = getLength(), count = uncacheable;
+            super.visit(expr, context);
+            cacheFragment(expr, start, count);
+        }
+        return null;
+    }
+
     @Override
     public Void visit(Path<?> path, Void context) {
-        if (dml) {
+        if (appendFragment(path)) {
+            return null;
+        } else if (dml) {
             if (path.equals(entity) && path instanceof RelationalPath<?>) {
                 if (dmlWithSchema && templates.isPrintSchema()) {
                     appendAsSchemaName((RelationalPath<?>)path);
@@ -660,16 +774,19 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
             }
         }
         final PathMetadata<?> metadata = path.getMetadata();
+        final int start = getLength();
         if (metadata.getParent() != null && !skipParent) {
             visit(metadata.getParent(), context);
             append(".");
         }
         append(templates.quoteIdentifier(metadata.getName()));
+        cacheFragment(path, start, uncacheable);
         return null;
     }
 
     @Override
     public Void visit(SubQueryExpression<?> query, Void context) {
+        uncacheable++;
         if (inUnion && !templates.isUnionsWrapped()) {
             serialize(query.getMetadata(), false);
         } else {
@@ -682,6 +799,7 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
 
     @Override
     public Void visit(TemplateExpression<?> expr, Void context) {
+        uncacheable++;
         if (inJoin && templates.isFunctionJoinsWrapped()) {
             append("table(");
             super.visit(expr, context);
@@ -694,9 +812,16 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
 
     @Override
     protected void visitOperation(Class<?> type, Operator<?> operator, List<? extends Expression<?>> args) {
+        if ((operator == Ops.IN || operator == Ops.NOT_IN)
+         && args.get(1) instanceof Constant<?>
+         && ((Constant<?>)args.get(1)).getConstant() instanceof Collection
+         && visitInList(type, operator, args.get(0), (Collection<?>)((Constant<?>)args.get(1)).getConstant())) {
+            return;
+        }
+
         if (args.size() == 2
          && args.get(0) instanceof Path<?>
-         && args.get(1) instanceof Constant<?>
+         && (args.get(1) instanceof Constant<?> || args.get(1) instanceof ParamExpression<?>)
          && operator != Ops.NUMCAST) {
             for (Element element : templates.getTemplate(operator).getElements()) {
                 if (element instanceof Template.ByIndex && ((Template.ByIndex)element).getIndex() == 1) {
@@ -706,6 +831,12 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
             }
         }
 
+        if (operator == SQLTemplates.UNION || operator == SQLTemplates.UNION_ALL
+         || operator == Ops.ALIAS || operator == SQLTemplates.WITH_COLUMNS) {
+            // serialized form depends on the context
+            uncacheable++;
+        }
+
         if (operator == SQLTemplates.UNION || operator == SQLTemplates.UNION_ALL) {
             boolean oldUnion = inUnion;
             inUnion = true;
@@ -748,4 +879,74 @@ public class SQLSerializer extends SerializerBase<SQLSerializer> {
         }
     }
 
+    /**
+     * Serialize IN lists as array parameters, in chunks or padded, if configured
+     *
+     * @param type
+     * @param operator IN or NOT_IN
+     * @param expr
+     * @param values
+     * @return true, if the operation was serialized
+     */
+    private boolean visitInList(Class<?> type, Operator<?> operator, Expression<?> expr, Collection<?> values) {
+        uncacheable++;
+        if (values.isEmpty()) {
+            return false;
+        } else if (configuration.isUseArraysForInLists() && templates.isArrayParametersSupported()) {
+            Path<?> path = expr instanceof Path<?> ? (Path<?>)expr : null;
+            Object[] array = configuration.isArrayElementType(path, expr.getType())
+                    ? toArray(expr.getType(), values) : null;
+            if (array != null) {
+                if (path != null) {
+                    constantPaths.add(path);
+                }
+                handle(expr);
+                append(operator == Ops.IN ? " = any(" : " <> all(");
+                visitConstant(array);
+                append(")");
+                return true;
+            }
+        }
+
+        int max = templates.getMaxInListSize();
+        if (values.size() > max) {
+            List<Object> list = new ArrayList<Object>(values);
+            append("(");
+            for (int i = 0; i < list.size(); i += max) {
+                if (i > 0) {
+                    append(operator == Ops.IN ? " or " : " and ");
+                }
+                List<Object> chunk = list.subList(i, Math.min(i + max, list.size()));
+                visitOperation(type, operator, ImmutableList.of(expr, new ConstantImpl<Object>(chunk)));
+            }
+            append(")");
+            return true;
+        } else if (configuration.isInListPadding()) {
+            int size = values.size();
+            int padded = Math.min(size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1, max);
+            if (padded > size) {
+                List<Object> list = new ArrayList<Object>(padded);
+                list.addAll(values);
+                Object last = list.get(size - 1);
+                while (list.size() < padded) {
+                    list.add(last);
+                }
+                visitOperation(type, operator, ImmutableList.of(expr, new ConstantImpl<Object>(list)));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static Object[] toArray(Class<?> type, Collection<?> values) {
+        Class<?> componentType = Primitives.wrap(type);
+        for (Object value : values) {
+            if (!componentType.isInstance(value)) {
+                return null;
+            }
+        }
+        return values.toArray((Object[]) Array.newInstance(componentType, values.size()));
+    }
+
 }
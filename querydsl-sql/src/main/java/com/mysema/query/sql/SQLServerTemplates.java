@@ -49,10 +49,14 @@ public class SQLServerTemplates extends SQLTemplates {
 
     public SQLServerTemplates(char escape, boolean quote) {
         super("\"", escape, quote);
+        setNullsFirstInAscendingOrder(true);
+        setNullsFirstInDescendingOrder(false);
         addClass2TypeMappings("decimal", Double.class);
         setDummyTable("");
         setNullsFirst(null);
         setNullsLast(null);
+        setMultiRowInsertSupported(false);
+        setMaxParameters(2000);
 
         // String
         add(Ops.CONCAT, "{0} + {1}", 13);
@@ -19,6 +19,10 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.primitives.Primitives;
 import com.mysema.query.JoinType;
 import com.mysema.query.QueryException;
@@ -48,6 +52,10 @@ public class SQLTemplates extends Templates {
 
     public static final Operator<Object> UNION_ALL = new OperatorImpl<Object>("SQL_UNION_ALL");
 
+    private static final int MAX_FRAGMENTS = 10000;
+
+    private static final int MAX_LENGTH_HINTS = 1000;
+
     public static final Operator<Object> NEXTVAL = new OperatorImpl<Object>("SQL_NEXTVAL");
 
     public static final Operator<Long> ROWNUMBER = new OperatorImpl<Long>("ROWNUMBER");
@@ -111,6 +119,14 @@ public class SQLTemplates extends Templates {
 
     private final Map<Class<?>, String> class2type = new HashMap<Class<?>, String>();
 
+    // serialized forms of constant free paths and projections, keys are compared by identity
+    private final Cache<Expression<?>, String> fragments = CacheBuilder.newBuilder()
+            .weakKeys().maximumSize(MAX_FRAGMENTS).build();
+
+    // serialized lengths of queries by query fingerprint
+    private final Cache<Long, Integer> lengthHints = CacheBuilder.newBuilder()
+            .maximumSize(MAX_LENGTH_HINTS).build();
+
     private final String quoteStr;
 
     private final boolean useQuotes;
@@ -215,6 +231,20 @@ public class SQLTemplates extends Templates {
 
     private boolean functionJoinsWrapped = false;
 
+    private boolean rowValueComparisonSupported = false;
+
+    private boolean multiRowInsertSupported = true;
+
+    private int maxParameters = 32767;
+
+    private int maxInListSize = Integer.MAX_VALUE;
+
+    private boolean arrayParametersSupported = false;
+
+    private boolean nullsFirstInAscendingOrder = false;
+
+    private boolean nullsFirstInDescendingOrder = true;
+
     protected SQLTemplates(String quoteStr, char escape, boolean useQuotes) {
         super(escape);
         this.quoteStr = quoteStr;
@@ -555,6 +585,44 @@ public class SQLTemplates extends Templates {
         return functionJoinsWrapped;
     }
 
+    public final boolean isRowValueComparisonSupported() {
+        return rowValueComparisonSupported;
+    }
+
+    public final boolean isMultiRowInsertSupported() {
+        return multiRowInsertSupported;
+    }
+
+    public final int getMaxParameters() {
+        return maxParameters;
+    }
+
+    public final int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    public final boolean isArrayParametersSupported() {
+        return arrayParametersSupported;
+    }
+
+    /**
+     * Get whether NULLs are ordered first in ascending order without explicit null handling
+     *
+     * @return
+     */
+    public final boolean isNullsFirstInAscendingOrder() {
+        return nullsFirstInAscendingOrder;
+    }
+
+    /**
+     * Get whether NULLs are ordered first in descending order without explicit null handling
+     *
+     * @return
+     */
+    public final boolean isNullsFirstInDescendingOrder() {
+        return nullsFirstInDescendingOrder;
+    }
+
     public final String getNullsFirst() {
         return nullsFirst;
     }
@@ -590,6 +658,48 @@ public class SQLTemplates extends Templates {
         }
     }
 
+    /**
+     * Get the cached serialized form of the given expression
+     *
+     * @param expr
+     * @return
+     */
+    @Nullable
+    String getFragment(Expression<?> expr) {
+        return fragments.getIfPresent(expr);
+    }
+
+    /**
+     * Cache the serialized form of the given constant free expression
+     *
+     * @param expr
+     * @param fragment
+     */
+    void putFragment(Expression<?> expr, String fragment) {
+        fragments.put(expr, fragment);
+    }
+
+    /**
+     * Get the last serialized length of queries with the given fingerprint
+     *
+     * @param fingerprint
+     * @return length or 0, if unknown
+     */
+    int getLengthHint(long fingerprint) {
+        Integer length = lengthHints.getIfPresent(fingerprint);
+        return length != null ? length.intValue() : 0;
+    }
+
+    /**
+     * Set the serialized length of queries with the given fingerprint
+     *
+     * @param fingerprint
+     * @param length
+     */
+    void setLengthHint(long fingerprint, int length) {
+        lengthHints.put(fingerprint, length);
+    }
+
     protected boolean requiresQuotes(final String identifier) {
         for (int i = 0; i < identifier.length(); i++) {
             final char ch = identifier.charAt(i);
@@ -807,6 +917,34 @@ public class SQLTemplates extends Templates {
         this.functionJoinsWrapped = functionJoinsWrapped;
     }
 
+    protected void setRowValueComparisonSupported(boolean rowValueComparisonSupported) {
+        this.rowValueComparisonSupported = rowValueComparisonSupported;
+    }
+
+    protected void setMultiRowInsertSupported(boolean multiRowInsertSupported) {
+        this.multiRowInsertSupported = multiRowInsertSupported;
+    }
+
+    protected void setMaxParameters(int maxParameters) {
+        this.maxParameters = maxParameters;
+    }
+
+    protected void setMaxInListSize(int maxInListSize) {
+        this.maxInListSize = maxInListSize;
+    }
+
+    protected void setArrayParametersSupported(boolean arrayParametersSupported) {
+        this.arrayParametersSupported = arrayParametersSupported;
+    }
+
+    protected void setNullsFirstInAscendingOrder(boolean nullsFirstInAscendingOrder) {
+        this.nullsFirstInAscendingOrder = nullsFirstInAscendingOrder;
+    }
+
+    protected void setNullsFirstInDescendingOrder(boolean nullsFirstInDescendingOrder) {
+        this.nullsFirstInDescendingOrder = nullsFirstInDescendingOrder;
+    }
+
     protected void setNullsFirst(String nullsFirst) {
         this.nullsFirst = nullsFirst;
     }
@@ -42,11 +42,14 @@ public class SQLiteTemplates extends SQLTemplates {
 
     public SQLiteTemplates(char escape, boolean quote) {
         super("\"", escape, quote);
+        setNullsFirstInAscendingOrder(true);
+        setNullsFirstInDescendingOrder(false);
         setDummyTable(null);
         setBigDecimalSupported(false);
         setUnionsWrapped(false);
         setNullsFirst(null);
         setNullsLast(null);
+        setMaxParameters(999);
         add(Ops.MOD, "{0} % {1}");
 
         add(Ops.INDEX_OF, "charindex({1},{0},1)-1");
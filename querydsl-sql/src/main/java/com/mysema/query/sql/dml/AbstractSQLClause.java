@@ -18,7 +18,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.mysema.query.QueryException;
 import com.mysema.query.dml.DMLClause;
 import com.mysema.query.sql.Configuration;
@@ -55,6 +57,21 @@ public abstract class AbstractSQLClause<C extends AbstractSQLClause<C>> implemen
         listeners.add(listener);
     }
 
+    /**
+     * Execute the clause asynchronously using the executor of the configuration. The clause
+     * must not be modified before the execution has completed.
+     *
+     * @return future of the amount of affected rows
+     */
+    public ListenableFuture<Long> executeAsync() {
+        return configuration.submit(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return execute();
+            }
+        });
+    }
+
     /**
      * Set the parameters to the given PreparedStatement
      *
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.dml;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.mysema.commons.lang.Pair;
+import com.mysema.query.QueryMetadata;
+import com.mysema.query.sql.SQLSerializer;
+import com.mysema.query.types.Constant;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.Operation;
+import com.mysema.query.types.OperationImpl;
+import com.mysema.query.types.Operator;
+import com.mysema.query.types.Ops;
+import com.mysema.query.types.ParamExpression;
+import com.mysema.query.types.Path;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.PredicateOperation;
+import com.mysema.query.types.Template;
+import com.mysema.query.types.expr.Param;
+
+/**
+ * GroupedBatch sends batch items in the order of addition. Consecutive items with the same SQL
+ * are sent as one JDBC batch, a change of the SQL flushes the pending items. Prepared statements
+ * are reused for items of a previously seen SQL.
+ *
+ * <p>Items are serialized once per shape. Constants which are bound as plain parameters are
+ * replaced with positional params, so items which differ only in these constants share the
+ * serialized form and only the constants are bound per item.</p>
+ *
+ * @author tiwe
+ *
+ */
+abstract class GroupedBatch {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupedBatch.class);
+
+    /**
+     * Serialized form of a batch item shape
+     */
+    private static final class Shape {
+
+        private final String queryString;
+
+        private final List<Object> constants;
+
+        private final List<Path<?>> constantPaths;
+
+        Shape(SQLSerializer serializer) {
+            this.queryString = serializer.toString();
+            this.constants = serializer.getConstants();
+            this.constantPaths = serializer.getConstantPaths();
+        }
+
+    }
+
+    private final AbstractSQLClause<?> clause;
+
+    private final Connection connection;
+
+    private final int maxBatchSize;
+
+    private final Map<List<?>, Shape> shapes = new HashMap<List<?>, Shape>();
+
+    private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+
+    private final List<Integer> pending = new ArrayList<Integer>();
+
+    private final int[] updateCounts;
+
+    @Nullable
+    private String queryString;
+
+    @Nullable
+    private PreparedStatement stmt;
+
+    private int items;
+
+    private int constantIndex;
+
+    private long rows;
+
+    /**
+     * @param clause clause to be used for parameter binding
+     * @param connection connection to be used
+     * @param maxBatchSize maximum amount of items per JDBC batch or 0 for no limit
+     * @param size amount of batch items
+     */
+    GroupedBatch(AbstractSQLClause<?> clause, Connection connection, int maxBatchSize, int size) {
+        this.clause = clause;
+        this.connection = connection;
+        this.maxBatchSize = maxBatchSize;
+        this.updateCounts = new int[size];
+        Arrays.fill(updateCounts, Statement.SUCCESS_NO_INFO);
+    }
+
+    /**
+     * Serialize the given batch item
+     *
+     * @param serializer serializer to be used
+     * @param metadata metadata of the item
+     * @param updates updates of the item
+     */
+    protected abstract void serialize(SQLSerializer serializer, QueryMetadata metadata,
+            List<Pair<Path<?>, Expression<?>>> updates);
+
+    /**
+     * Add the given batch item
+     *
+     * @param metadata metadata of the item
+     * @param updates updates of the item
+     * @return SQL of the item
+     * @throws SQLException
+     */
+    String add(QueryMetadata metadata, List<Pair<Path<?>, Expression<?>>> updates) throws SQLException {
+        Map<ParamExpression<?>, Object> params =
+                new HashMap<ParamExpression<?>, Object>(metadata.getParams());
+        constantIndex = 0;
+        Predicate where = metadata.getWhere() != null
+                ? (Predicate) replaceConstants(metadata.getWhere(), params) : null;
+        List<Pair<Path<?>, Expression<?>>> shapeUpdates =
+                new ArrayList<Pair<Path<?>, Expression<?>>>(updates.size());
+        for (Pair<Path<?>, Expression<?>> update : updates) {
+            Expression<?> value = update.getSecond();
+            if (value instanceof Constant<?>) {
+                value = replaceConstant((Constant<?>)value, params);
+            } else {
+                value = replaceConstants(value, params);
+            }
+            shapeUpdates.add(Pair.<Path<?>, Expression<?>>of(update.getFirst(), value));
+        }
+
+        List<?> key = Arrays.asList(where, shapeUpdates, metadata.getFlags(), metadata.getModifiers());
+        Shape shape = shapes.get(key);
+        if (shape == null) {
+            QueryMetadata shapeMetadata = metadata.clone();
+            shapeMetadata.clearWhere();
+            shapeMetadata.addWhere(where);
+            SQLSerializer serializer = new SQLSerializer(clause.configuration, true);
+            serialize(serializer, shapeMetadata, shapeUpdates);
+            shape = new Shape(serializer);
+            shapes.put(key, shape);
+        }
+
+        if (!shape.queryString.equals(queryString)) {
+            flush();
+            queryString = shape.queryString;
+            stmt = statements.get(queryString);
+            if (stmt == null) {
+                logger.debug(queryString);
+                stmt = connection.prepareStatement(queryString);
+                statements.put(queryString, stmt);
+            }
+        }
+        clause.setParameters(stmt, shape.constants, shape.constantPaths, params);
+        stmt.addBatch();
+        pending.add(items++);
+        if (maxBatchSize > 0 && pending.size() >= maxBatchSize) {
+            flush();
+        }
+        return queryString;
+    }
+
+    /**
+     * Replace the constants of the given expression which are bound as plain parameters
+     *
+     * @param expr expression
+     * @param params param values to be populated
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private Expression<?> replaceConstants(Expression<?> expr, Map<ParamExpression<?>, Object> params) {
+        if (!(expr instanceof Operation<?>)) {
+            return expr;
+        }
+        Operation<?> operation = (Operation<?>)expr;
+        Operator<?> operator = operation.getOperator();
+        if (operator == Ops.IN || operator == Ops.NOT_IN || operator == Ops.LIKE
+         || operator == Ops.NUMCAST || operator == Ops.STRING_CAST || operator == Ops.ALIAS) {
+            // serialized form depends on the constants
+            return expr;
+        }
+        Template template = clause.configuration.getTemplates().getTemplate(operator);
+        boolean plain = template != null;
+        if (plain) {
+            for (Template.Element element : template.getElements()) {
+                if (!(element instanceof Template.ByIndex) && !(element instanceof Template.StaticText)) {
+                    plain = false;
+                    break;
+                }
+            }
+        }
+        boolean changed = false;
+        List<Expression<?>> args = operation.getArgs();
+        Expression<?>[] replaced = new Expression<?>[args.size()];
+        for (int i = 0; i < replaced.length; i++) {
+            Expression<?> arg = args.get(i);
+            if (arg instanceof Constant<?>) {
+                replaced[i] = plain ? replaceConstant((Constant<?>)arg, params) : arg;
+            } else {
+                replaced[i] = replaceConstants(arg, params);
+            }
+            changed |= replaced[i] != arg;
+        }
+        if (!changed) {
+            return expr;
+        } else if (expr instanceof Predicate) {
+            return new PredicateOperation((Operator<Boolean>)operator, ImmutableList.copyOf(replaced));
+        } else {
+            return new OperationImpl<Object>((Class<Object>)operation.getType(),
+                    (Operator<Object>)operator, ImmutableList.copyOf(replaced));
+        }
+    }
+
+    /**
+     * Replace the given constant with a positional param
+     *
+     * @param constant constant
+     * @param params param values to be populated
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private Expression<?> replaceConstant(Constant<?> constant, Map<ParamExpression<?>, Object> params) {
+        Object value = constant.getConstant();
+        if (value instanceof Collection<?> || value.getClass().isArray()) {
+            // serialized form depends on the size
+            return constant;
+        }
+        Param<Object> param = new Param<Object>((Class<Object>)constant.getType(), "batch" + constantIndex++);
+        params.put(param, value);
+        return param;
+    }
+
+    private void flush() throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (clause.configuration.getTemplates().isBatchCountViaGetUpdateCount()) {
+            stmt.executeBatch();
+            rows += stmt.getUpdateCount();
+        } else {
+            int[] counts = stmt.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    rows += counts[i];
+                }
+                if (i < pending.size()) {
+                    updateCounts[pending.get(i)] = counts[i];
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Execute the pending items
+     *
+     * @return total amount of affected rows
+     * @throws SQLException
+     */
+    long execute() throws SQLException {
+        flush();
+        return rows;
+    }
+
+    /**
+     * Get the update counts of the batch items in the order of addition. Items without
+     * update count information have the value {@link Statement#SUCCESS_NO_INFO}.
+     *
+     * @return
+     */
+    int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    /**
+     * Close all statements
+     */
+    void close() {
+        for (PreparedStatement statement : statements.values()) {
+            clause.close(statement);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.dml;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
+import com.mysema.query.sql.types.Null;
+import com.mysema.query.types.Path;
+
+/**
+ * SQLBulkLoader loads large amounts of rows into a table. This implementation uses batched
+ * INSERT statements, dialect specific subclasses may use more efficient bulk load mechanisms.
+ *
+ * <p>The rows are converted into column values via the given {@link Mapper}. If no columns are
+ * given explicitly, all columns of the table are populated, except for primary key columns
+ * without a value in the first row, which are expected to be generated by the database. Columns
+ * without a value in a row are populated with null, so columns with database side defaults need
+ * to be excluded by giving the columns explicitly.</p>
+ *
+ * @author tiwe
+ *
+ * @param <T> row type
+ */
+public class SQLBulkLoader<T> {
+
+    protected final Connection connection;
+
+    protected final Configuration configuration;
+
+    protected final RelationalPath<?> entity;
+
+    private final Mapper<? super T> mapper;
+
+    private final List<Path<?>> columns = new ArrayList<Path<?>>();
+
+    private int batchSize = 1000;
+
+    public SQLBulkLoader(Connection connection, Configuration configuration, RelationalPath<?> entity,
+            Mapper<? super T> mapper) {
+        this.connection = connection;
+        this.configuration = configuration;
+        this.entity = entity;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Set the columns to be populated
+     *
+     * @param columns
+     * @return
+     */
+    public SQLBulkLoader<T> columns(Path<?>... columns) {
+        this.columns.clear();
+        this.columns.addAll(Arrays.asList(columns));
+        return this;
+    }
+
+    /**
+     * Set the amount of rows to be sent to the database at once
+     *
+     * @param batchSize
+     * @return
+     */
+    public SQLBulkLoader<T> setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Load the given rows
+     *
+     * @param rows
+     * @return amount of loaded rows
+     */
+    public long load(Iterable<? extends T> rows) {
+        return load(rows.iterator());
+    }
+
+    /**
+     * Load the given rows
+     *
+     * @param rows
+     * @return amount of loaded rows
+     */
+    public long load(Iterator<? extends T> rows) {
+        long rv = 0;
+        SQLInsertClause insert = null;
+        int count = 0;
+        while (rows.hasNext()) {
+            Object[] values = getValues(rows.next());
+            if (insert == null) {
+                insert = new SQLInsertClause(connection, configuration, entity);
+            }
+            insert.columns(columns.toArray(new Path<?>[columns.size()])).values(values).addBatch();
+            if (++count == batchSize) {
+                rv += insert.execute();
+                insert = null;
+                count = 0;
+            }
+        }
+        if (insert != null) {
+            rv += insert.execute();
+        }
+        return rv;
+    }
+
+    /**
+     * Get the column values of the given row in the order of {@link #getColumns()}
+     *
+     * @param row
+     * @return
+     */
+    protected Object[] getValues(T row) {
+        Map<Path<?>, Object> map = mapper.createMap(entity, row);
+        if (columns.isEmpty()) {
+            List<? extends Path<?>> primaryKey = entity.getPrimaryKey() != null ?
+                    entity.getPrimaryKey().getLocalColumns() : Collections.<Path<?>>emptyList();
+            for (Path<?> column : entity.getColumns()) {
+                // mappers may leave out null values, so only generated keys are skipped
+                if (!primaryKey.contains(column) || map.containsKey(column)) {
+                    columns.add(column);
+                }
+            }
+        }
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = map.get(columns.get(i));
+            values[i] = value instanceof Null ? null : value;
+        }
+        return values;
+    }
+
+    /**
+     * Get the populated columns
+     *
+     * @return
+     */
+    public List<Path<?>> getColumns() {
+        return columns;
+    }
+
+}
@@ -17,11 +17,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mysema.commons.lang.Pair;
 import com.mysema.query.DefaultQueryMetadata;
 import com.mysema.query.JoinType;
 import com.mysema.query.QueryException;
@@ -34,6 +36,7 @@ import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLSerializer;
 import com.mysema.query.sql.SQLTemplates;
 import com.mysema.query.types.Expression;
+import com.mysema.query.types.Path;
 import com.mysema.query.types.Predicate;
 
 /**
@@ -56,6 +59,10 @@ public class SQLDeleteClause extends AbstractSQLClause<SQLDeleteClause> implemen
 
     private transient String queryString;
 
+    private int maxBatchSize = 0;
+
+    private int[] batchUpdateCounts = new int[0];
+
     public SQLDeleteClause(Connection connection, SQLTemplates templates, RelationalPath<?> entity) {
         this(connection, new Configuration(templates), entity);
     }
@@ -103,49 +110,81 @@ public class SQLDeleteClause extends AbstractSQLClause<SQLDeleteClause> implemen
         return this;
     }
 
+    /**
+     * Set the maximum amount of batch items to be sent to the database at once. Batch items
+     * are executed in the order of addition, consecutive items with the same SQL are sent
+     * together up to this limit.
+     *
+     * @param maxBatchSize maximum amount of items per JDBC batch or 0 for no limit
+     * @return
+     */
+    public SQLDeleteClause setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Get the update counts of the batch items of the last batch execution in the order
+     * of addition. Items without update count information have the value
+     * {@link java.sql.Statement#SUCCESS_NO_INFO}.
+     *
+     * @return
+     */
+    public int[] getBatchUpdateCounts() {
+        return batchUpdateCounts.clone();
+    }
+
     private PreparedStatement createStatement() throws SQLException{
-        PreparedStatement stmt;
-        if (batches.isEmpty()) {
-            SQLSerializer serializer = new SQLSerializer(configuration, true);
-            serializer.serializeForDelete(metadata, entity);
-            queryString = serializer.toString();
-            logger.debug(queryString);
-            stmt = connection.prepareStatement(queryString);
-            setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
-        } else {
-            SQLSerializer serializer = new SQLSerializer(configuration, true);
-            serializer.serializeForDelete(batches.get(0), entity);
-            queryString = serializer.toString();
-            logger.debug(queryString);
-
-            // add first batch
-            stmt = connection.prepareStatement(queryString);
-            setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
-            stmt.addBatch();
-
-            // add other batches
-            for (int i = 1; i < batches.size(); i++) {
-                serializer = new SQLSerializer(configuration, true);
-                serializer.serializeForDelete(batches.get(i), entity);
-                setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
-                stmt.addBatch();
+        SQLSerializer serializer = new SQLSerializer(configuration, true);
+        serializer.serializeForDelete(metadata, entity);
+        queryString = serializer.toString();
+        logger.debug(queryString);
+        PreparedStatement stmt = connection.prepareStatement(queryString);
+        setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
+        return stmt;
+    }
+
+    private long executeBatches() throws SQLException {
+        GroupedBatch batch = new GroupedBatch(this, connection, maxBatchSize, batches.size()) {
+            @Override
+            protected void serialize(SQLSerializer serializer, QueryMetadata metadata,
+                    List<Pair<Path<?>, Expression<?>>> updates) {
+                serializer.serializeForDelete(metadata, entity);
+            }
+        };
+        try {
+            List<Pair<Path<?>, Expression<?>>> updates = Collections.emptyList();
+            for (QueryMetadata item : batches) {
+                String itemString = batch.add(item, updates);
+                if (queryString == null) {
+                    queryString = itemString;
+                }
             }
+            long rv = batch.execute();
+            batchUpdateCounts = batch.getUpdateCounts();
+            return rv;
+        } finally {
+            batch.close();
         }
-        return stmt;
     }
 
     @Override
     public long execute() {
+        queryString = null;
+        batchUpdateCounts = new int[0];
+        if (!batches.isEmpty()) {
+            try {
+                listeners.notifyDeletes(metadata, entity, batches);
+                return executeBatches();
+            } catch (SQLException e) {
+                throw new QueryException("Caught " + e.getClass().getSimpleName() + " for " + queryString, e);
+            }
+        }
         PreparedStatement stmt = null;
         try {
             stmt = createStatement();
-            if (batches.isEmpty()) {
-                listeners.notifyDelete(metadata, entity);
-                return stmt.executeUpdate();
-            } else {
-                listeners.notifyDeletes(metadata, entity, batches);
-                return executeBatch(stmt);
-            }
+            listeners.notifyDelete(metadata, entity);
+            return stmt.executeUpdate();
         } catch (SQLException e) {
             throw new QueryException("Caught " + e.getClass().getSimpleName() + " for " + queryString, e);
         } finally {
@@ -20,6 +20,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +42,7 @@ import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLSerializer;
 import com.mysema.query.sql.SQLTemplates;
 import com.mysema.query.sql.types.Null;
+import com.mysema.query.types.Constant;
 import com.mysema.query.types.ConstantImpl;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.ParamExpression;
@@ -76,6 +78,8 @@ public class SQLInsertClause extends AbstractSQLClause<SQLInsertClause> implemen
 
     private final List<Expression<?>> values = new ArrayList<Expression<?>>();
 
+    private int multiRowBatchSize = 0;
+
     private transient String queryString;
 
     public SQLInsertClause(Connection connection, SQLTemplates templates, RelationalPath<?> entity) {
@@ -143,6 +147,23 @@ public class SQLInsertClause extends AbstractSQLClause<SQLInsertClause> implemen
         return this;
     }
 
+    /**
+     * Set the maximum amount of batch rows to be inserted via a single multi-row
+     * INSERT ... VALUES statement. The amount of rows per statement is further limited by
+     * the maximum amount of bind parameters of the used templates.
+     *
+     * <p>Multi-row inserts are used only by {@link #execute()} for batches with the same columns
+     * and without subqueries, and only if supported by the templates. Otherwise the batches
+     * are executed as JDBC batches.</p>
+     *
+     * @param rows maximum amount of rows per statement or 0 to use JDBC batches
+     * @return
+     */
+    public SQLInsertClause setMultiRowBatchSize(int rows) {
+        this.multiRowBatchSize = rows;
+        return this;
+    }
+
     @Override
     public SQLInsertClause columns(Path<?>... columns) {
         this.columns.addAll(Arrays.asList(columns));
@@ -244,7 +265,7 @@ public class SQLInsertClause extends AbstractSQLClause<SQLInsertClause> implemen
             // add other batches
             for (int i = 1; i < batches.size(); i++) {
                 SQLInsertBatch batch = batches.get(i);
-                serializer = new SQLSerializer(configuration, true);
+                serializer.reset();
                 serializer.serializeForInsert(metadata, entity, batch.getColumns(), batch.getValues(), batch.getSubQuery());
                 setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
                 stmt.addBatch();
@@ -308,6 +329,10 @@ public class SQLInsertClause extends AbstractSQLClause<SQLInsertClause> implemen
 
     @Override
     public long execute() {
+        if (isMultiRowBatch()) {
+            listeners.notifyInserts(metadata, entity, batches);
+            return executeMultiRowBatch();
+        }
         PreparedStatement stmt = null;
         try {
             stmt = createStatement(false);
@@ -327,6 +352,88 @@ public class SQLInsertClause extends AbstractSQLClause<SQLInsertClause> implemen
         }
     }
 
+    private boolean isMultiRowBatch() {
+        if (multiRowBatchSize < 2 || batches.size() < 2 || subQueryBuilder != null
+                || !configuration.getTemplates().isMultiRowInsertSupported()) {
+            return false;
+        }
+        List<Path<?>> columns = batches.get(0).getColumns();
+        if (columns.isEmpty()) {
+            return false;
+        }
+        for (SQLInsertBatch batch : batches) {
+            if (batch.getSubQuery() != null || !batch.getColumns().equals(columns)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long executeMultiRowBatch() {
+        int maxParameters = configuration.getTemplates().getMaxParameters();
+        PreparedStatement stmt = null;
+        String stmtQuery = null;
+        try {
+            long rv = 0;
+            int from = 0, parameters = 0;
+            SQLSerializer serializer = new SQLSerializer(configuration, true);
+            for (int i = 0; i <= batches.size(); i++) {
+                int rowParameters = i < batches.size() ? countParameters(batches.get(i).getValues()) : 0;
+                if (i == batches.size() || (i > from
+                        && (i - from == multiRowBatchSize || parameters + rowParameters > maxParameters))) {
+                    serializer.reset();
+                    serializer.serializeForInsert(metadata, entity, batches.get(from).getColumns(),
+                            batches.subList(from, i));
+                    queryString = serializer.toString();
+                    // full chunks share the same statement
+                    if (!queryString.equals(stmtQuery)) {
+                        if (stmt != null) {
+                            close(stmt);
+                        }
+                        logger.debug(queryString);
+                        stmt = connection.prepareStatement(queryString);
+                        stmtQuery = queryString;
+                    }
+                    setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(),
+                            metadata.getParams());
+                    rv += stmt.executeUpdate();
+                    from = i;
+                    parameters = 0;
+                }
+                parameters += rowParameters;
+            }
+            return rv;
+        } catch (SQLException e) {
+            throw new QueryException("Caught " + e.getClass().getSimpleName() + " for " + queryString, e);
+        } finally {
+            if (stmt != null) {
+                close(stmt);
+            }
+        }
+    }
+
+    private int countParameters(List<Expression<?>> values) {
+        int count = 0;
+        SQLSerializer serializer = null;
+        for (Expression<?> value : values) {
+            if (value instanceof Constant<?>) {
+                Object constant = ((Constant<?>)value).getConstant();
+                count += constant instanceof Collection ? ((Collection<?>)constant).size() : 1;
+            } else if (value instanceof ParamExpression<?>) {
+                count++;
+            } else {
+                if (serializer == null) {
+                    serializer = new SQLSerializer(configuration, true);
+                } else {
+                    serializer.reset();
+                }
+                serializer.handle(value);
+                count += serializer.getConstants().size();
+            }
+        }
+        return count;
+    }
+
     @Override
     public SQLInsertClause select(SubQueryExpression<?> sq) {
         subQuery = sq;
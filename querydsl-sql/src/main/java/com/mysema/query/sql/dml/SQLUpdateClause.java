@@ -65,6 +65,10 @@ public class SQLUpdateClause extends AbstractSQLClause<SQLUpdateClause> implemen
 
     private transient String queryString;
 
+    private int maxBatchSize = 0;
+
+    private int[] batchUpdateCounts = new int[0];
+
     public SQLUpdateClause(Connection connection, SQLTemplates templates, RelationalPath<?> entity) {
         this(connection, new Configuration(templates), entity);
     }
@@ -113,49 +117,80 @@ public class SQLUpdateClause extends AbstractSQLClause<SQLUpdateClause> implemen
         return this;
     }
 
+    /**
+     * Set the maximum amount of batch items to be sent to the database at once. Batch items
+     * are executed in the order of addition, consecutive items with the same SQL are sent
+     * together up to this limit.
+     *
+     * @param maxBatchSize maximum amount of items per JDBC batch or 0 for no limit
+     * @return
+     */
+    public SQLUpdateClause setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Get the update counts of the batch items of the last batch execution in the order
+     * of addition. Items without update count information have the value
+     * {@link java.sql.Statement#SUCCESS_NO_INFO}.
+     *
+     * @return
+     */
+    public int[] getBatchUpdateCounts() {
+        return batchUpdateCounts.clone();
+    }
+
     private PreparedStatement createStatement() throws SQLException{
-        PreparedStatement stmt;
-        if (batches.isEmpty()) {
-            SQLSerializer serializer = new SQLSerializer(configuration, true);
-            serializer.serializeForUpdate(metadata, entity, updates);
-            queryString = serializer.toString();
-            logger.debug(queryString);
-            stmt = connection.prepareStatement(queryString);
-            setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
-        } else {
-            SQLSerializer serializer = new SQLSerializer(configuration, true);
-            serializer.serializeForUpdate(batches.get(0).getMetadata(), entity, batches.get(0).getUpdates());
-            queryString = serializer.toString();
-            logger.debug(queryString);
-
-            // add first batch
-            stmt = connection.prepareStatement(queryString);
-            setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
-            stmt.addBatch();
-
-            // add other batches
-            for (int i = 1; i < batches.size(); i++) {
-                serializer = new SQLSerializer(configuration, true);
-                serializer.serializeForUpdate(batches.get(i).getMetadata(), entity, batches.get(i).getUpdates());
-                setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
-                stmt.addBatch();
+        SQLSerializer serializer = new SQLSerializer(configuration, true);
+        serializer.serializeForUpdate(metadata, entity, updates);
+        queryString = serializer.toString();
+        logger.debug(queryString);
+        PreparedStatement stmt = connection.prepareStatement(queryString);
+        setParameters(stmt, serializer.getConstants(), serializer.getConstantPaths(), metadata.getParams());
+        return stmt;
+    }
+
+    private long executeBatches() throws SQLException {
+        GroupedBatch batch = new GroupedBatch(this, connection, maxBatchSize, batches.size()) {
+            @Override
+            protected void serialize(SQLSerializer serializer, QueryMetadata metadata,
+                    List<Pair<Path<?>, Expression<?>>> updates) {
+                serializer.serializeForUpdate(metadata, entity, updates);
+            }
+        };
+        try {
+            for (SQLUpdateBatch item : batches) {
+                String itemString = batch.add(item.getMetadata(), item.getUpdates());
+                if (queryString == null) {
+                    queryString = itemString;
+                }
             }
+            long rv = batch.execute();
+            batchUpdateCounts = batch.getUpdateCounts();
+            return rv;
+        } finally {
+            batch.close();
         }
-        return stmt;
     }
 
     @Override
     public long execute() {
+        queryString = null;
+        batchUpdateCounts = new int[0];
+        if (!batches.isEmpty()) {
+            try {
+                listeners.notifyUpdates(metadata, entity, batches);
+                return executeBatches();
+            } catch (SQLException e) {
+                throw new QueryException("Caught " + e.getClass().getSimpleName() + " for " + queryString, e);
+            }
+        }
         PreparedStatement stmt = null;
         try {
             stmt = createStatement();
-            if (batches.isEmpty()) {
-                listeners.notifyUpdate(metadata, entity, updates);
-                return stmt.executeUpdate();
-            } else {
-                listeners.notifyUpdates(metadata, entity, batches);
-                return executeBatch(stmt);
-            }
+            listeners.notifyUpdate(metadata, entity, updates);
+            return stmt.executeUpdate();
         } catch (SQLException e) {
             throw new QueryException("Caught " + e.getClass().getSimpleName() + " for " + queryString, e);
         } finally {
@@ -165,6 +200,7 @@ public class SQLUpdateClause extends AbstractSQLClause<SQLUpdateClause> implemen
         }
     }
 
+
     @Override
     public <T> SQLUpdateClause set(Path<T> path, T value) {
         if (value instanceof Expression<?>) {
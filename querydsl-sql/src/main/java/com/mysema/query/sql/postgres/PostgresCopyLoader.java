@@ -0,0 +1,245 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.postgres;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.mysema.query.QueryException;
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.RelationalPath;
+import com.mysema.query.sql.SQLTemplates;
+import com.mysema.query.sql.dml.Mapper;
+import com.mysema.query.sql.dml.SQLBulkLoader;
+import com.mysema.query.types.Path;
+
+/**
+ * PostgresCopyLoader loads rows via the PostgreSQL COPY command in text format. The rows are
+ * encoded lazily while they are streamed to the server.
+ *
+ * <p>Values are encoded with the {@link com.mysema.query.sql.types.Type} instances registered in
+ * the {@link Configuration}, so custom types are applied in the same way as for inserts. Streams,
+ * large objects and arrays are not supported.</p>
+ *
+ * <p>The PostgreSQL JDBC driver needs to be available at runtime.</p>
+ *
+ * @author tiwe
+ *
+ * @param <T> row type
+ */
+public class PostgresCopyLoader<T> extends SQLBulkLoader<T> {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    public PostgresCopyLoader(Connection connection, Configuration configuration,
+            RelationalPath<?> entity, Mapper<? super T> mapper) {
+        super(connection, configuration, entity, mapper);
+    }
+
+    @Override
+    public long load(Iterator<? extends T> rows) {
+        if (!rows.hasNext()) {
+            return 0l;
+        }
+        RowEncoder encoder = new RowEncoder(rows);
+        // the first row determines the columns, if they are not explicitly given
+        encoder.encodeNext();
+        return copyIn(getCopyStatement(), encoder);
+    }
+
+    /**
+     * Stream the encoded rows to the server via the CopyManager of the PostgreSQL JDBC driver
+     *
+     * @param statement COPY statement
+     * @param reader encoded rows
+     * @return amount of loaded rows
+     */
+    protected long copyIn(String statement, Reader reader) {
+        try {
+            Class<?> baseConnection = Class.forName("org.postgresql.core.BaseConnection");
+            Class<?> copyManager = Class.forName("org.postgresql.copy.CopyManager");
+            Object manager = copyManager.getConstructor(baseConnection)
+                    .newInstance(connection.unwrap(baseConnection));
+            Method copyIn = copyManager.getMethod("copyIn", String.class, Reader.class, int.class);
+            return (Long) copyIn.invoke(manager, statement, reader, getBatchSize() * 64);
+        } catch (ClassNotFoundException e) {
+            throw new QueryException("PostgreSQL JDBC driver is not available", e);
+        } catch (InvocationTargetException e) {
+            throw new QueryException(e.getCause());
+        } catch (Exception e) {
+            throw new QueryException(e);
+        }
+    }
+
+    /**
+     * Get the COPY statement used for loading
+     *
+     * @return
+     */
+    public String getCopyStatement() {
+        SQLTemplates templates = configuration.getTemplates();
+        StringBuilder builder = new StringBuilder("COPY ");
+        if (templates.isPrintSchema()) {
+            builder.append(templates.quoteIdentifier(configuration.getSchema(entity.getSchemaName())));
+            builder.append(".");
+        }
+        builder.append(templates.quoteIdentifier(
+                configuration.getTable(entity.getSchemaName(), entity.getTableName())));
+        builder.append(" (");
+        List<Path<?>> columns = getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(templates.quoteIdentifier(columns.get(i).getMetadata().getName()));
+        }
+        builder.append(") FROM STDIN");
+        return builder.toString();
+    }
+
+    /**
+     * Append the given value in COPY text format
+     *
+     * @param builder
+     * @param value
+     */
+    protected void append(StringBuilder builder, @Nullable Object value) {
+        if (value == null) {
+            builder.append("\\N");
+        } else if (value instanceof Boolean) {
+            builder.append(((Boolean)value).booleanValue() ? 't' : 'f');
+        } else if (value instanceof byte[]) {
+            builder.append("\\\\x");
+            for (byte b : (byte[])value) {
+                builder.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+            }
+        } else if (value instanceof BigDecimal) {
+            builder.append(((BigDecimal)value).toPlainString());
+        } else if (value instanceof Number || value instanceof java.util.Date) {
+            builder.append(value.toString());
+        } else if (value instanceof String || value instanceof Character) {
+            String str = value.toString();
+            for (int i = 0; i < str.length(); i++) {
+                char ch = str.charAt(i);
+                switch (ch) {
+                case '\\': builder.append("\\\\"); break;
+                case '\t': builder.append("\\t"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                default: builder.append(ch);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * RowEncoder streams the rows in COPY text format
+     */
+    private class RowEncoder extends Reader {
+
+        private final Iterator<? extends T> rows;
+
+        private final ValueCapture capture = new ValueCapture();
+
+        private final PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                PostgresCopyLoader.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, capture);
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        private int position = 0;
+
+        RowEncoder(Iterator<? extends T> rows) {
+            this.rows = rows;
+        }
+
+        void encodeNext() {
+            Object[] values = getValues(rows.next());
+            List<Path<?>> columns = getColumns();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                Object value = values[i];
+                if (value != null) {
+                    try {
+                        capture.value = null;
+                        configuration.set(stmt, columns.get(i), i + 1, value);
+                        value = capture.value;
+                    } catch (SQLException e) {
+                        throw new QueryException(e);
+                    }
+                }
+                append(buffer, value);
+            }
+            buffer.append('\n');
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            while (position == buffer.length()) {
+                if (!rows.hasNext()) {
+                    return -1;
+                }
+                buffer.setLength(0);
+                position = 0;
+                encodeNext();
+            }
+            int count = Math.min(len, buffer.length() - position);
+            buffer.getChars(position, position + count, cbuf, off);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {}
+
+    }
+
+    /**
+     * ValueCapture records the value bound via the PreparedStatement setter methods
+     */
+    private static class ValueCapture implements InvocationHandler {
+
+        @Nullable
+        private Object value;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("setNull")) {
+                value = null;
+            } else if (method.getName().startsWith("set") && args != null && args.length > 1) {
+                value = args[1];
+            } else {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return null;
+        }
+
+    }
+
+}
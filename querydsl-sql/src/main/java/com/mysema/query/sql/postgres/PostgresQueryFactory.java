@@ -20,7 +20,9 @@ import javax.inject.Provider;
 import com.mysema.query.sql.AbstractSQLQueryFactory;
 import com.mysema.query.sql.Configuration;
 import com.mysema.query.sql.PostgresTemplates;
+import com.mysema.query.sql.RelationalPath;
 import com.mysema.query.sql.SQLTemplates;
+import com.mysema.query.sql.dml.Mapper;
 
 /**
  * PostgreSQL specific implementation of SQLQueryFactory
@@ -42,6 +44,18 @@ public class PostgresQueryFactory extends AbstractSQLQueryFactory<PostgresQuery>
         this(new Configuration(templates), connection);
     }
 
+    /**
+     * Create a new COPY based bulk loader for the given table
+     *
+     * @param path table
+     * @param mapper mapper for the rows
+     * @return
+     */
+    @Override
+    public <T> PostgresCopyLoader<T> bulkLoader(RelationalPath<?> path, Mapper<? super T> mapper) {
+        return new PostgresCopyLoader<T>(connection.get(), configuration, path, mapper);
+    }
+
     public PostgresQuery query() {
         return new PostgresQuery(connection.get(), configuration);
     }
@@ -15,6 +15,8 @@ package com.mysema.query;
 
 import static com.mysema.query.Constants.survey;
 import static com.mysema.query.Target.MYSQL;
+import static com.mysema.query.Target.ORACLE;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.sql.SQLException;
@@ -58,6 +60,20 @@ public class DeleteBase extends AbstractBaseTest{
         assertEquals(2, delete.execute());
     }
 
+    @Test
+    @ExcludeIn(ORACLE)
+    public void Batch_Grouped_By_Statement() throws SQLException{
+        insert(survey).values(2, "A","B").execute();
+        insert(survey).values(3, "B","C").execute();
+
+        SQLDeleteClause delete = delete(survey).setMaxBatchSize(1);
+        delete.where(survey.name.eq("A")).addBatch();
+        delete.where(survey.name2.eq("C")).addBatch();
+        delete.where(survey.name.eq("X")).addBatch();
+        assertEquals(2, delete.execute());
+        assertArrayEquals(new int[]{1, 1, 0}, delete.getBatchUpdateCounts());
+    }
+
     @Test
     @ExcludeIn(MYSQL)
     public void Delete() throws SQLException{
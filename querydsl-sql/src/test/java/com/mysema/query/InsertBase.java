@@ -108,6 +108,17 @@ public class InsertBase extends AbstractBaseTest {
         assertEquals(1l, query().from(survey).where(survey.name.eq("66")).count());
     }
 
+    @Test
+    public void Insert_Batch_Multi_Row() {
+        SQLInsertClause insert = insert(survey).setMultiRowBatchSize(2);
+        for (int i = 0; i < 5; i++) {
+            insert.set(survey.id, 10 + i).set(survey.name, "multi").addBatch();
+        }
+
+        assertEquals(5, insert.execute());
+        assertEquals(5l, query().from(survey).where(survey.name.eq("multi")).count());
+    }
+
     @Test
     public void Insert_Null_With_Columns() {
         assertEquals(1, insert(survey)
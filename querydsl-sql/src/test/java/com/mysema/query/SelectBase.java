@@ -51,15 +51,18 @@ import java.util.Map;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.mysema.commons.lang.CloseableIterator;
 import com.mysema.commons.lang.Pair;
 import com.mysema.query.group.Group;
 import com.mysema.query.group.GroupBy;
 import com.mysema.query.sql.Beans;
+import com.mysema.query.sql.Configuration;
 import com.mysema.query.sql.DatePart;
 import com.mysema.query.sql.QBeans;
 import com.mysema.query.sql.RelationalPathBase;
 import com.mysema.query.sql.SQLExpressions;
+import com.mysema.query.sql.SQLQuery;
 import com.mysema.query.sql.WindowOver;
 import com.mysema.query.sql.domain.Employee;
 import com.mysema.query.sql.domain.IdName;
@@ -73,6 +76,7 @@ import com.mysema.query.types.ConstantImpl;
 import com.mysema.query.types.ConstructorExpression;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.MappingProjection;
+import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.ParamNotSetException;
 import com.mysema.query.types.Path;
 import com.mysema.query.types.PathImpl;
@@ -640,6 +644,20 @@ public class SelectBase extends AbstractBaseTest{
         query().from(employee).where(employee.id.in(Arrays.asList(1,2))).list(employee);
     }
 
+    @Test
+    public void In_With_Arrays() {
+        Configuration conf = new Configuration(Connections.getTemplates());
+        conf.setUseArraysForInLists(true);
+        assertEquals(Arrays.asList(1, 2), new SQLQuery(Connections.getConnection(), conf).from(employee)
+                .where(employee.id.in(1, 2, 99)).orderBy(employee.id.asc()).list(employee.id));
+        assertEquals(Arrays.asList(1, 2), new SQLQuery(Connections.getConnection(), conf).from(employee)
+                .where(employee.id.notIn(10, 11, 12, 13, 20, 21, 22, 23))
+                .orderBy(employee.id.asc()).list(employee.id));
+        assertEquals(Arrays.asList("Mary", "Mike"), new SQLQuery(Connections.getConnection(), conf).from(employee)
+                .where(employee.firstname.in("Mike", "Mary")).orderBy(employee.firstname.asc())
+                .list(employee.firstname));
+    }
+
     @Test
     public void Inner_Join() throws SQLException {
         query().from(employee).innerJoin(employee2)
@@ -701,6 +719,33 @@ public class SelectBase extends AbstractBaseTest{
         .limit(4).list(employee.id);
     }
 
+    @Test
+    public void ListKeyset_Nullable_Column() {
+        List<List<OrderSpecifier<?>>> orders = Arrays.<List<OrderSpecifier<?>>>asList(
+                Arrays.<OrderSpecifier<?>>asList(employee.superiorId.asc(), employee.id.asc()),
+                Arrays.<OrderSpecifier<?>>asList(employee.superiorId.desc(), employee.id.desc()));
+        for (List<OrderSpecifier<?>> order : orders) {
+            OrderSpecifier<?>[] orderArray = order.toArray(new OrderSpecifier<?>[order.size()]);
+            List<Integer> ids = new ArrayList<Integer>();
+            List<Integer> superiorIds = new ArrayList<Integer>();
+            Tuple lastSeen = null;
+            int pages = 0;
+            do {
+                KeysetResults<Integer> page = query().from(employee)
+                        .listKeyset(employee.id, order, lastSeen, 3);
+                ids.addAll(page.getResults());
+                superiorIds.addAll(query().from(employee)
+                        .listKeyset(employee.superiorId, order, lastSeen, 3).getResults());
+                lastSeen = page.getNext();
+                pages++;
+            } while (lastSeen != null);
+
+            assertTrue(pages > 2);
+            assertEquals(query().from(employee).orderBy(orderArray).list(employee.id), ids);
+            assertEquals(query().from(employee).orderBy(orderArray).list(employee.superiorId), superiorIds);
+        }
+    }
+
     @Test
     public void Limit_And_Offset() throws SQLException {
         // limit and offset
@@ -784,6 +829,16 @@ public class SelectBase extends AbstractBaseTest{
         assertEquals(10, results.getTotal());
     }
 
+    @Test
+    public void ListResults_Async() throws Exception {
+        ListenableFuture<SearchResults<Integer>> results = query().from(employee)
+                .limit(10).offset(1).orderBy(employee.id.asc())
+                .listResultsAsync(employee.id);
+        ListenableFuture<Long> count = query().from(employee).countAsync();
+        assertEquals(10, results.get().getTotal());
+        assertEquals(10l, count.get().longValue());
+    }
+
     private double log(double x, int y) {
         return Math.log(x) / Math.log(y);
     }
@@ -14,6 +14,8 @@
 package com.mysema.query;
 
 import static com.mysema.query.Constants.survey;
+import static com.mysema.query.Target.ORACLE;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.sql.SQLException;
@@ -30,6 +32,7 @@ import com.mysema.query.sql.domain.QEmployee;
 import com.mysema.query.sql.domain.QSurvey;
 import com.mysema.query.types.Path;
 import com.mysema.query.types.expr.Param;
+import com.mysema.testutil.ExcludeIn;
 
 public class UpdateBase extends AbstractBaseTest {
 
@@ -114,6 +117,52 @@ public class UpdateBase extends AbstractBaseTest {
         assertEquals(2, update.execute());        
     }
     
+    @Test
+    @ExcludeIn(ORACLE)
+    public void Batch_Grouped_By_Statement() throws SQLException{
+        insert(survey).values(2, "A","B").execute();
+        insert(survey).values(3, "B","C").execute();
+
+        SQLUpdateClause update = update(survey).setMaxBatchSize(1);
+        update.set(survey.name, "AA").where(survey.name.eq("A")).addBatch();
+        update.set(survey.name2, "BB").where(survey.name.eq("B")).addBatch();
+        update.set(survey.name, "CC").where(survey.name.eq("X")).addBatch();
+        assertEquals(2, update.execute());
+        assertArrayEquals(new int[]{1, 1, 0}, update.getBatchUpdateCounts());
+        assertEquals(1, query().from(survey).where(survey.name2.eq("BB")).count());
+    }
+
+    @Test
+    @ExcludeIn(ORACLE)
+    public void Batch_Keeps_Order() throws SQLException{
+        insert(survey).values(2, "A","B").execute();
+
+        SQLUpdateClause update = update(survey);
+        update.set(survey.name, "X").where(survey.name.eq("A")).addBatch();
+        update.set(survey.name2, "Y").where(survey.name.eq("X")).addBatch();
+        update.set(survey.name, "Z").where(survey.name.eq("X")).addBatch();
+        assertEquals(3, update.execute());
+        assertArrayEquals(new int[]{1, 1, 1}, update.getBatchUpdateCounts());
+        assertEquals(1, query().from(survey).where(survey.name.eq("Z"), survey.name2.eq("Y")).count());
+    }
+
+    @Test
+    @ExcludeIn(ORACLE)
+    public void Batch_Shared_Shape() throws SQLException{
+        insert(survey).values(2, "A","B").execute();
+        insert(survey).values(3, "B","C").execute();
+
+        SQLUpdateClause update = update(survey);
+        update.set(survey.name2, "X").where(survey.name.eq("A")).addBatch();
+        update.set(survey.name2, "Y").where(survey.name.eq("B")).addBatch();
+        update.set(survey.name2, "Z").where(survey.name.startsWith("A")).addBatch();
+        update.set(survey.name2, "W").where(survey.name.in("B", "C")).addBatch();
+        assertEquals(4, update.execute());
+        assertArrayEquals(new int[]{1, 1, 1, 1}, update.getBatchUpdateCounts());
+        assertEquals(1, query().from(survey).where(survey.name.eq("A"), survey.name2.eq("Z")).count());
+        assertEquals(1, query().from(survey).where(survey.name.eq("B"), survey.name2.eq("W")).count());
+    }
+
     @Test
     public void Update_with_SubQuery_exists() {
         QSurvey survey1 = new QSurvey("s1");
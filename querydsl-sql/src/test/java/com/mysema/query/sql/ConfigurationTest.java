@@ -14,11 +14,16 @@
 package com.mysema.query.sql;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.InputStream;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.easymock.EasyMock;
 import org.junit.Test;
@@ -73,4 +78,24 @@ public class ConfigurationTest {
         assertEquals("employees", configuration.getTable("public", "employee"));
     }
 
+    @Test
+    public void Submit() throws Exception {
+        Configuration configuration = new Configuration(new H2Templates());
+        Callable<Thread> currentThread = new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        };
+        assertSame(Thread.currentThread(), configuration.submit(currentThread).get());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            configuration.setExecutor(executor);
+            assertNotSame(Thread.currentThread(), configuration.submit(currentThread).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import com.mysema.query.Tuple;
+import com.mysema.query.sql.domain.QSurvey;
+import com.mysema.query.types.QTuple;
+import com.mysema.query.types.expr.Wildcard;
+
+public class RowReaderTest {
+
+    private final QSurvey survey = QSurvey.survey;
+
+    @Test
+    public void Single() throws SQLException {
+        Configuration configuration = new Configuration(new H2Templates());
+        ResultSet rs = EasyMock.createMock(ResultSet.class);
+        EasyMock.expect(rs.getString(1)).andReturn("a");
+        EasyMock.expect(rs.getString(1)).andReturn("b");
+        EasyMock.replay(rs);
+
+        RowReader<String> reader = RowReader.create(configuration, survey.name, rs);
+        assertEquals("a", reader.read(rs));
+        assertEquals("b", reader.read(rs));
+        EasyMock.verify(rs);
+    }
+
+    @Test
+    public void Factory() throws SQLException {
+        Configuration configuration = new Configuration(new H2Templates());
+        configuration.register("SURVEY", "NAME", new EncryptedString() {
+            @Override
+            public String getValue(ResultSet rs, int startIndex) throws SQLException {
+                return "decrypted " + super.getValue(rs, startIndex);
+            }
+        });
+        ResultSet rs = EasyMock.createMock(ResultSet.class);
+        EasyMock.expect(rs.getString(1)).andReturn("a");
+        EasyMock.expect(rs.getString(2)).andReturn("b");
+        EasyMock.replay(rs);
+
+        RowReader<Tuple> reader = RowReader.create(configuration, new QTuple(survey.name, survey.name2), rs);
+        Tuple row = reader.read(rs);
+        assertEquals("decrypted a", row.get(survey.name));
+        assertEquals("b", row.get(survey.name2));
+        EasyMock.verify(rs);
+    }
+
+    @Test
+    public void Array() throws SQLException {
+        Configuration configuration = new Configuration(new H2Templates());
+        ResultSetMetaData metaData = EasyMock.createMock(ResultSetMetaData.class);
+        EasyMock.expect(metaData.getColumnCount()).andReturn(2).once();
+        ResultSet rs = EasyMock.createMock(ResultSet.class);
+        EasyMock.expect(rs.getMetaData()).andReturn(metaData).once();
+        EasyMock.expect(rs.getObject(1)).andReturn(1).times(2);
+        EasyMock.expect(rs.getObject(2)).andReturn("x").times(2);
+        EasyMock.replay(metaData, rs);
+
+        RowReader<Object[]> reader = RowReader.create(configuration, Wildcard.all, rs);
+        assertArrayEquals(new Object[]{1, "x"}, reader.read(rs));
+        assertArrayEquals(new Object[]{1, "x"}, reader.read(rs));
+        EasyMock.verify(metaData, rs);
+    }
+
+}
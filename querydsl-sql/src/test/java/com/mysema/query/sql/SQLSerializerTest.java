@@ -13,24 +13,39 @@
  */
 package com.mysema.query.sql;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.mysema.query.BooleanBuilder;
+import com.mysema.query.DefaultQueryMetadata;
 import com.mysema.query.QueryMetadata;
 import com.mysema.query.Survey;
 import com.mysema.query.Tuple;
+import com.mysema.query.sql.dml.SQLInsertBatch;
 import com.mysema.query.sql.domain.QEmployee;
 import com.mysema.query.sql.domain.QSurvey;
+import com.mysema.query.sql.types.StringType;
 import com.mysema.query.support.Expressions;
+import com.mysema.query.types.ConstantImpl;
 import com.mysema.query.types.Expression;
+import com.mysema.query.types.ExpressionUtils;
+import com.mysema.query.types.Path;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.QTuple;
 import com.mysema.query.types.SubQueryExpression;
 import com.mysema.query.types.expr.Wildcard;
+import com.mysema.query.types.path.EnumPath;
 import com.mysema.query.types.path.PathBuilder;
 
 public class SQLSerializerTest {
@@ -221,4 +236,153 @@ public class SQLSerializerTest {
 
     }
 
+    @Test
+    public void Insert_Multi_Row() {
+        List<Path<?>> columns = ImmutableList.<Path<?>>of(survey.id, survey.name);
+        List<SQLInsertBatch> batches = new ArrayList<SQLInsertBatch>();
+        batches.add(new SQLInsertBatch(columns, ImmutableList.<Expression<?>>of(
+                ConstantImpl.create(1), ConstantImpl.create("a")), null));
+        batches.add(new SQLInsertBatch(columns, ImmutableList.<Expression<?>>of(
+                ConstantImpl.create(2), ConstantImpl.create("b")), null));
+
+        SQLSerializer serializer = new SQLSerializer(Configuration.DEFAULT, true);
+        serializer.serializeForInsert(new DefaultQueryMetadata(), survey, columns, batches);
+        assertEquals("insert into SURVEY (ID, NAME)\nvalues (?, ?), (?, ?)", serializer.toString());
+        assertEquals(Arrays.<Object>asList(1, "a", 2, "b"), serializer.getConstants());
+        assertEquals(Arrays.<Path<?>>asList(survey.id, survey.name, survey.id, survey.name),
+                serializer.getConstantPaths());
+    }
+
+    @Test
+    public void In_List_Padding() {
+        Configuration conf = new Configuration(new H2Templates());
+        conf.setInListPadding(true);
+        SQLSerializer serializer = new SQLSerializer(conf);
+        serializer.handle(survey.id.in(1, 2, 3));
+        assertEquals("SURVEY.ID in (?, ?, ?, ?)", serializer.toString());
+        assertEquals(Arrays.<Object>asList(1, 2, 3, 3), serializer.getConstants());
+        assertEquals(4, serializer.getConstantPaths().size());
+    }
+
+    @Test
+    public void In_List_Array() {
+        Configuration conf = new Configuration(new PostgresTemplates());
+        conf.setUseArraysForInLists(true);
+        SQLSerializer serializer = new SQLSerializer(conf);
+        serializer.handle(survey.id.in(1, 2, 3).and(survey.name.notIn("a", "b")));
+        assertEquals("SURVEY.ID = any(?) and SURVEY.NAME <> all(?)", serializer.toString());
+        assertEquals(2, serializer.getConstants().size());
+        assertArrayEquals(new Integer[]{1, 2, 3}, (Object[]) serializer.getConstants().get(0));
+        assertEquals(Integer[].class, serializer.getConstants().get(0).getClass());
+        assertEquals(Arrays.<Path<?>>asList(survey.id, survey.name), serializer.getConstantPaths());
+    }
+
+    @Test
+    public void In_List_Array_Not_Used() {
+        Configuration conf = new Configuration(new PostgresTemplates());
+        conf.setUseArraysForInLists(true);
+        conf.register("SURVEY", "NAME", new StringType());
+        SQLSerializer serializer = new SQLSerializer(conf);
+        EnumPath<TimeUnit> unit = new PathBuilder<Object>(Object.class, "p").getEnum("unit", TimeUnit.class);
+        serializer.handle(unit.in(TimeUnit.DAYS, TimeUnit.HOURS).and(survey.name.in("a", "b")));
+        assertEquals("p.unit in (?, ?) and SURVEY.NAME in (?, ?)", serializer.toString());
+        assertEquals(Arrays.<Object>asList(TimeUnit.DAYS, TimeUnit.HOURS, "a", "b"), serializer.getConstants());
+
+        // no templates support
+        conf = new Configuration(new H2Templates());
+        conf.setUseArraysForInLists(true);
+        serializer = new SQLSerializer(conf);
+        serializer.handle(survey.id.in(1, 2));
+        assertEquals("SURVEY.ID in (?, ?)", serializer.toString());
+    }
+
+    @Test
+    public void In_List_Chunks() {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int i = 0; i < 2500; i++) {
+            ids.add(i);
+        }
+        SQLSerializer serializer = new SQLSerializer(new Configuration(new OracleTemplates()));
+        serializer.handle(survey.id.in(ids));
+        assertTrue(serializer.toString().startsWith("(SURVEY.ID in (?, "));
+        assertEquals(3, serializer.toString().split(" or ").length);
+        assertEquals(2500, serializer.getConstants().size());
+        assertEquals(2500, serializer.getConstantPaths().size());
+    }
+
+    @Test
+    public void Fragments_Cached() {
+        SQLTemplates templates = new H2Templates();
+        Expression<?> lower = survey.name.concat(survey.name2).lower();
+        Expression<?> expr = new QTuple(survey.id, lower);
+        SQLSerializer serializer = new SQLSerializer(new Configuration(templates));
+        serializer.handle(expr);
+        assertEquals("SURVEY.ID, lower(SURVEY.NAME || SURVEY.NAME2)", serializer.toString());
+        assertEquals("SURVEY.ID, lower(SURVEY.NAME || SURVEY.NAME2)", templates.getFragment(expr));
+        assertEquals("SURVEY.NAME", templates.getFragment(ExpressionUtils.extract(survey.name)));
+        assertNull(templates.getFragment(ExpressionUtils.extract(lower)));
+
+        serializer = new SQLSerializer(new Configuration(templates));
+        serializer.handle(expr);
+        assertEquals("SURVEY.ID, lower(SURVEY.NAME || SURVEY.NAME2)", serializer.toString());
+    }
+
+    @Test
+    public void Fragments_Not_Cached_With_Constants() {
+        SQLTemplates templates = new H2Templates();
+        Expression<?> expr = new QTuple(survey.id, survey.name.concat("X"));
+        for (int i = 0; i < 2; i++) {
+            SQLSerializer serializer = new SQLSerializer(new Configuration(templates));
+            serializer.handle(expr);
+            assertEquals("SURVEY.ID, SURVEY.NAME || ?", serializer.toString());
+            assertEquals(Arrays.asList("X"), serializer.getConstants());
+        }
+        assertNull(templates.getFragment(expr));
+        assertEquals("SURVEY.ID", templates.getFragment(ExpressionUtils.extract(survey.id)));
+    }
+
+    @Test
+    public void Fragments_Not_Cached_For_Operations() {
+        SQLTemplates templates = new H2Templates();
+        Predicate notNull = survey.id.isNotNull();
+        SQLSerializer serializer = new SQLSerializer(new Configuration(templates));
+        serializer.handle(notNull);
+        assertEquals("SURVEY.ID is not null", serializer.toString());
+        assertNull(templates.getFragment(ExpressionUtils.extract(notNull)));
+    }
+
+    @Test
+    public void Fragments_Not_Cached_For_Aliases() {
+        SQLTemplates templates = new H2Templates();
+        Expression<?> expr = new QTuple(survey.name.as("n"));
+        SQLSerializer serializer = new SQLSerializer(new Configuration(templates));
+        serializer.handle(expr);
+        assertEquals("SURVEY.NAME as n", serializer.toString());
+        assertNull(templates.getFragment(expr));
+    }
+
+    @Test
+    public void Reset() {
+        SQLSerializer serializer = new SQLSerializer(Configuration.DEFAULT);
+        serializer.handle(survey.name.eq("X"));
+        serializer.reset();
+        assertEquals(0, serializer.getLength());
+        assertTrue(serializer.getConstants().isEmpty());
+        assertTrue(serializer.getConstantPaths().isEmpty());
+
+        serializer.handle(survey.id.eq(1));
+        assertEquals("SURVEY.ID = ?", serializer.toString());
+        assertEquals(Arrays.<Object>asList(1), serializer.getConstants());
+        assertEquals(Arrays.<Path<?>>asList(survey.id), serializer.getConstantPaths());
+    }
+
+    @Test
+    public void WriteTo() throws IOException {
+        SQLSerializer serializer = new SQLSerializer(Configuration.DEFAULT);
+        serializer.handle(survey.id.add(1).multiply(2));
+        StringBuilder builder = new StringBuilder("select ");
+        serializer.writeTo(builder);
+        assertEquals("select " + serializer.toString(), builder.toString());
+    }
+
 }
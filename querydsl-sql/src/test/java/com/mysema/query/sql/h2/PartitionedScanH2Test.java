@@ -0,0 +1,228 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.h2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Provider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.query.QCompanies;
+import com.mysema.query.QGeneratedKeysEntity;
+import com.mysema.query.QueryException;
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.H2Templates;
+import com.mysema.query.sql.PartitionedScan;
+
+public class PartitionedScanH2Test {
+
+    private static final String URL = "jdbc:h2:target/h2-scan";
+
+    private final QGeneratedKeysEntity entity = new QGeneratedKeysEntity("entity");
+
+    private final Configuration configuration = new Configuration(new H2Templates());
+
+    private final Provider<Connection> connections = new Provider<Connection>() {
+        @Override
+        public Connection get() {
+            try {
+                return DriverManager.getConnection(URL, "sa", "");
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws ClassNotFoundException, SQLException {
+        Class.forName("org.h2.Driver");
+        conn = connections.get();
+        Statement stmt = conn.createStatement();
+        try {
+            stmt.execute("drop table GENERATED_KEYS if exists");
+            stmt.execute("create table GENERATED_KEYS(ID int PRIMARY KEY, NAME varchar(30))");
+            for (int i = 1; i <= 100; i++) {
+                String name = i % 10 != 0 ? "'name" + i + "'" : "null";
+                stmt.execute("insert into GENERATED_KEYS values (" + i + ", " + name + ")");
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private PartitionedScan<Integer> scan() {
+        return new PartitionedScan<Integer>(configuration, connections, entity, entity.id, entity.id)
+                .setPartitionCount(3);
+    }
+
+    @Test
+    public void Run() {
+        final List<Integer> ids = new ArrayList<Integer>();
+        PartitionedScan<Integer> scan = scan();
+        long rows = scan.run(new PartitionedScan.Handler<Integer>() {
+            @Override
+            public void handle(Integer row) {
+                ids.add(row);
+            }
+        });
+        assertEquals(100, rows);
+        assertEquals(100, ids.size());
+        Collections.sort(ids);
+        assertEquals(Integer.valueOf(1), ids.get(0));
+        assertEquals(Integer.valueOf(100), ids.get(99));
+
+        assertEquals(3, scan.getPartitions().size());
+        assertEquals(34, scan.getPartitions().get(0).getRows());
+        assertEquals(1, scan.getPartitions().get(0).getLower());
+        assertEquals(34, scan.getPartitions().get(0).getUpper());
+        assertTrue(scan.getPartitions().get(2).isCompleted());
+    }
+
+    @Test
+    public void Iterate() {
+        PartitionedScan<Integer> scan = scan().where(entity.id.gt(50)).setBufferSize(5);
+        CloseableIterator<Integer> ids = scan.iterate();
+        int count = 0;
+        try {
+            while (ids.hasNext()) {
+                assertTrue(ids.next() > 50);
+                count++;
+            }
+        } finally {
+            ids.close();
+        }
+        assertEquals(50, count);
+    }
+
+    @Test
+    public void Iterate_Close_Early() {
+        CloseableIterator<Integer> ids = scan().setBufferSize(1).iterate();
+        assertTrue(ids.hasNext());
+        ids.next();
+        ids.close();
+    }
+
+    @Test
+    public void Iterate_Empty() {
+        CloseableIterator<Integer> ids = scan().where(entity.id.gt(100)).iterate();
+        try {
+            assertFalse(ids.hasNext());
+            assertFalse(ids.hasNext());
+        } finally {
+            ids.close();
+        }
+    }
+
+    @Test
+    public void Iterate_Worker_Error() {
+        final AtomicInteger calls = new AtomicInteger();
+        Provider<Connection> failing = new Provider<Connection>() {
+            @Override
+            public Connection get() {
+                if (calls.incrementAndGet() > 1) {
+                    throw new AssertionError("no connection");
+                }
+                return connections.get();
+            }
+        };
+        CloseableIterator<Integer> ids = new PartitionedScan<Integer>(configuration, failing,
+                entity, entity.id, entity.id).setPartitionCount(3).iterate();
+        try {
+            ids.hasNext();
+            fail("Expected QueryException");
+        } catch (QueryException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        } finally {
+            ids.close();
+        }
+    }
+
+    @Test
+    public void Iterate_Nullable_Column() {
+        CloseableIterator<String> names = new PartitionedScan<String>(configuration, connections,
+                entity, entity.id, entity.name).setPartitionCount(3).setBufferSize(5).iterate();
+        int count = 0, nulls = 0;
+        try {
+            while (names.hasNext()) {
+                if (names.next() == null) {
+                    nulls++;
+                }
+                count++;
+            }
+        } finally {
+            names.close();
+        }
+        assertEquals(100, count);
+        assertEquals(10, nulls);
+    }
+
+    @Test
+    public void Run_Full_Long_Range() throws SQLException {
+        QCompanies companies = QCompanies.companies;
+        Statement stmt = conn.createStatement();
+        try {
+            stmt.execute("drop table COMPANIES if exists");
+            stmt.execute("create table COMPANIES(ID bigint PRIMARY KEY, NAME varchar(30))");
+            stmt.execute("insert into COMPANIES values (" + Long.MIN_VALUE + ", 'min')");
+            stmt.execute("insert into COMPANIES values (0, 'zero')");
+            stmt.execute("insert into COMPANIES values (" + Long.MAX_VALUE + ", 'max')");
+        } finally {
+            stmt.close();
+        }
+        final List<String> names = new ArrayList<String>();
+        PartitionedScan<String> scan = new PartitionedScan<String>(configuration, connections,
+                companies, companies.id, companies.name).setPartitionCount(4);
+        assertEquals(3, scan.run(new PartitionedScan.Handler<String>() {
+            @Override
+            public void handle(String row) {
+                names.add(row);
+            }
+        }));
+        Collections.sort(names);
+        assertEquals(Arrays.asList("max", "min", "zero"), names);
+
+        List<PartitionedScan.Partition> partitions = scan.getPartitions();
+        assertEquals(4, partitions.size());
+        assertEquals(Long.MIN_VALUE, partitions.get(0).getLower());
+        assertEquals(Long.MAX_VALUE, partitions.get(3).getUpper());
+        for (int i = 1; i < partitions.size(); i++) {
+            assertEquals(partitions.get(i - 1).getUpper() + 1, partitions.get(i).getLower());
+        }
+    }
+
+}
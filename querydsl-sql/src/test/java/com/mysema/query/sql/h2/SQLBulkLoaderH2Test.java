@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013, Mysema Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.h2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mysema.query.QGeneratedKeysEntity;
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.H2Templates;
+import com.mysema.query.sql.SQLQuery;
+import com.mysema.query.sql.dml.DefaultMapper;
+import com.mysema.query.sql.dml.SQLBulkLoader;
+
+public class SQLBulkLoaderH2Test {
+
+    public static class Row {
+
+        Integer id;
+
+        String name;
+
+        Row(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+    }
+
+    private final QGeneratedKeysEntity entity = new QGeneratedKeysEntity("entity");
+
+    private final Configuration configuration = new Configuration(new H2Templates());
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws ClassNotFoundException, SQLException {
+        Class.forName("org.h2.Driver");
+        conn = DriverManager.getConnection("jdbc:h2:target/h2-bulk", "sa", "");
+        Statement stmt = conn.createStatement();
+        try {
+            stmt.execute("drop table GENERATED_KEYS if exists");
+            stmt.execute("create table GENERATED_KEYS(ID int, NAME varchar(30))");
+        } finally {
+            stmt.close();
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    public void Load_Null_In_First_Row() {
+        SQLBulkLoader<Row> loader = new SQLBulkLoader<Row>(conn, configuration, entity, DefaultMapper.DEFAULT)
+                .setBatchSize(2);
+        assertEquals(3, loader.load(Arrays.asList(new Row(1, null), new Row(2, "Bob"), new Row(3, "Ann"))));
+        assertEquals(Arrays.asList(entity.id, entity.name), loader.getColumns());
+
+        SQLQuery query = new SQLQuery(conn, configuration).from(entity).orderBy(entity.id.asc());
+        assertEquals(Arrays.asList(null, "Bob", "Ann"), query.list(entity.name));
+    }
+
+}
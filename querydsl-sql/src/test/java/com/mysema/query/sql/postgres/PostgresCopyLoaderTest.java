@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011, Mysema Ltd
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mysema.query.sql.postgres;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.mysema.query.sql.Configuration;
+import com.mysema.query.sql.PostgresTemplates;
+import com.mysema.query.sql.dml.DefaultMapper;
+import com.mysema.query.sql.domain.QSurvey;
+
+public class PostgresCopyLoaderTest {
+
+    public static class Row {
+
+        Integer id;
+
+        String name;
+
+        Row(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+    }
+
+    private final QSurvey survey = QSurvey.survey;
+
+    private final PostgresCopyLoader<Object> loader = new PostgresCopyLoader<Object>(null,
+            new Configuration(new PostgresTemplates()), survey, DefaultMapper.DEFAULT);
+
+    private String encode(Object value) {
+        StringBuilder builder = new StringBuilder();
+        loader.append(builder, value);
+        return builder.toString();
+    }
+
+    @Test
+    public void CopyStatement() {
+        loader.columns(survey.id, survey.name);
+        assertEquals("COPY SURVEY (ID, NAME) FROM STDIN", loader.getCopyStatement());
+    }
+
+    @Test
+    public void Values() {
+        assertEquals("\\N", encode(null));
+        assertEquals("t", encode(true));
+        assertEquals("123", encode(123));
+        assertEquals("0.00001", encode(new BigDecimal("1E-5")));
+        assertEquals("\\\\x00ff", encode(new byte[]{0, -1}));
+    }
+
+    @Test
+    public void Escaping() {
+        assertEquals("a\\tb\\nc\\\\d\\re", encode("a\tb\nc\\d\re"));
+    }
+
+    @Test
+    public void Load() {
+        final StringBuilder copied = new StringBuilder();
+        PostgresCopyLoader<Row> rowLoader = new PostgresCopyLoader<Row>(null,
+                new Configuration(new PostgresTemplates()), survey, DefaultMapper.DEFAULT) {
+            @Override
+            protected long copyIn(String statement, Reader reader) {
+                copied.append(statement).append('\n');
+                char[] buffer = new char[4];
+                try {
+                    int count;
+                    while ((count = reader.read(buffer, 0, buffer.length)) != -1) {
+                        copied.append(buffer, 0, count);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                return 3;
+            }
+        };
+        // the name of the first row is null, but the column is still populated
+        assertEquals(3, rowLoader.load(Arrays.asList(new Row(1, null), new Row(2, "Bob"), new Row(3, "a\tb"))));
+        assertEquals("COPY SURVEY (NAME, NAME2, ID) FROM STDIN\n"
+                + "\\N\t\\N\t1\n"
+                + "Bob\t\\N\t2\n"
+                + "a\\tb\t\\N\t3\n", copied.toString());
+    }
+
+}
@@ -14,6 +14,7 @@
 package com.mysema.query.sql.postgres;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.sql.Connection;
 
@@ -24,6 +25,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.mysema.query.sql.SQLTemplates;
+import com.mysema.query.sql.dml.DefaultMapper;
 import com.mysema.query.sql.domain.QSurvey;
 
 public class PostgresQueryFactoryTest {
@@ -81,4 +83,9 @@ public class PostgresQueryFactoryTest {
         assertNotNull(queryFactory.merge(QSurvey.survey));
     }
 
+    @Test
+    public void BulkLoader() {
+        assertTrue(queryFactory.bulkLoader(QSurvey.survey, DefaultMapper.DEFAULT) instanceof PostgresCopyLoader);
+    }
+
 }